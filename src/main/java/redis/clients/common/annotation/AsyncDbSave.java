@@ -0,0 +1,17 @@
+package redis.clients.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体更新异步存储到DB
+ * 更新时立即写入Redis, 变化字段进入EntityAsyncSaveQueue合并后批量写入DB
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface AsyncDbSave {
+}
@@ -9,6 +9,7 @@ public enum DbOperationEnum {
 	update, 
 	query, 
 	queryList, 
+	queryListStream, 
 	delete, 
 	insertBatch, 
 	updateBatch, 
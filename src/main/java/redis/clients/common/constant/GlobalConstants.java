@@ -17,6 +17,48 @@ public class GlobalConstants {
 		public static final int NORMAL_MONTH_LIFECYCLE = 86400 * 30;
 	}
 
+	/**
+	 * 带版本号的hash更新
+	 */
+	public static class RedisVersion {
+		/** hash中保存版本号的字段, 与AbstractEntity.cacheVersion同名 */
+		public static final String VERSION_FIELD = "cacheVersion";
+		/** 版本号不一致, hash保持不变, 脚本同时返回缓存中的当前版本号 */
+		public static final long VERSION_CONFLICT = -1;
+		/** hash不存在, 没有写入 */
+		public static final long VERSION_KEY_MISSING = -2;
+		/** 执行失败 */
+		public static final long VERSION_FAILED = -3;
+		/**
+		 * KEYS[1]=key ARGV[1]=版本字段 ARGV[2]=期望版本 ARGV[3]=生命周期 ARGV[4..]=字段,值
+		 * 没有版本字段的hash视为版本0, 冲突时返回"-1:当前版本号"
+		 * 版本号用HINCRBY递增, 避免lua数字转字符串时大版本号(时间种子)丢失精度
+		 */
+		public static final String VERSION_HMSET_SCRIPT = "local v = redis.call('HGET', KEYS[1], ARGV[1]) "
+				+ "if not v then "
+				+ "if redis.call('EXISTS', KEYS[1]) == 0 then return '-2' end "
+				+ "v = '0' "
+				+ "end "
+				+ "if v ~= ARGV[2] then return '-1:' .. v end "
+				+ "local nv = redis.call('HINCRBY', KEYS[1], ARGV[1], 1) "
+				+ "redis.call('HMSET', KEYS[1], unpack(ARGV, 4)) "
+				+ "if tonumber(ARGV[3]) >= 0 then redis.call('EXPIRE', KEYS[1], ARGV[3]) end "
+				+ "return string.format('%d', nv)";
+	}
+
+	/**
+	 * 租约脚本
+	 */
+	public static class RedisLease {
+		/**
+		 * KEYS[1]=key ARGV[1]=期望值 ARGV[2]=新值 ARGV[3]=有效期(毫秒)
+		 * 只有当前值等于期望值(自己持有的租约)时才替换, 不会覆盖其他节点的租约
+		 */
+		public static final String COMPARE_AND_SET_SCRIPT = "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+				+ "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end "
+				+ "return 0";
+	}
+
 	/**
 	 * class常量
 	 */
@@ -163,6 +205,11 @@ public class GlobalConstants {
 		public static final String NET_PROXY_WORKER = "net_proxy_worker";
 		public static final String NET_HTTP_BOSS = "net_http_boss";
 		public static final String NET_HTTP_WORKER = "net_http_worker";
+		public static final String ENTITY_ASYNC_SAVE = "entity_async_save";
+		public static final String ENTITY_NEAR_CACHE_SUBSCRIBE = "entity_near_cache_subscribe";
+		public static final String ENTITY_SINGLE_FLIGHT_REFRESH = "entity_single_flight_refresh";
+		public static final String ENTITY_SHARDING_BATCH = "entity_sharding_batch";
+		public static final String SHARDING_BUCKET_SUBSCRIBE = "sharding_bucket_subscribe";
 	}
 
 	/**
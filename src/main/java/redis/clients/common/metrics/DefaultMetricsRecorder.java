@@ -0,0 +1,146 @@
+package redis.clients.common.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+import redis.clients.common.utils.Loggers;
+
+/**
+ * 默认统计实现 耗时与连接池等待按微秒记录在MetricsHistogram中, 超过slowMillis的操作输出到timeMonitorLogger,
+ * 通过snapshot导出, 可由MetricsPublicMetrics绑定到actuator的/metrics
+ */
+public class DefaultMetricsRecorder implements MetricsRecorder {
+
+	private static final Logger logger = Loggers.timeMonitorLogger;
+
+	/**
+	 * 慢操作阈值, 小于等于0时不输出慢操作日志
+	 */
+	private long slowMillis = 100;
+
+	private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, CacheStats> caches = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, MetricsHistogram> payloads = new ConcurrentHashMap<>();
+
+	private final MetricsHistogram poolWait = new MetricsHistogram();
+
+	private static final class OperationStats {
+		private final MetricsHistogram latency = new MetricsHistogram();
+		private final LongAdder errors = new LongAdder();
+	}
+
+	private static final class CacheStats {
+		private final LongAdder hit = new LongAdder();
+		private final LongAdder miss = new LongAdder();
+	}
+
+	@Override
+	public void recordLatency(String name, String key, long nanos, boolean success) {
+		OperationStats stats = operations.get(name);
+		if (stats == null) {
+			stats = new OperationStats();
+			OperationStats old = operations.putIfAbsent(name, stats);
+			if (old != null) {
+				stats = old;
+			}
+		}
+		stats.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+		if (!success) {
+			stats.errors.increment();
+		}
+		if (slowMillis > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(slowMillis)) {
+			logger.warn("slow operation name={} key={} cost={}ms success={}", name, key,
+					TimeUnit.NANOSECONDS.toMillis(nanos), success);
+		}
+	}
+
+	@Override
+	public void recordCache(String name, boolean hit) {
+		CacheStats stats = caches.get(name);
+		if (stats == null) {
+			stats = new CacheStats();
+			CacheStats old = caches.putIfAbsent(name, stats);
+			if (old != null) {
+				stats = old;
+			}
+		}
+		if (hit) {
+			stats.hit.increment();
+		} else {
+			stats.miss.increment();
+		}
+	}
+
+	@Override
+	public void recordPoolWait(long nanos) {
+		poolWait.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	@Override
+	public void recordPayload(String name, long bytes) {
+		MetricsHistogram histogram = payloads.get(name);
+		if (histogram == null) {
+			histogram = new MetricsHistogram();
+			MetricsHistogram old = payloads.putIfAbsent(name, histogram);
+			if (old != null) {
+				histogram = old;
+			}
+		}
+		histogram.record(bytes);
+	}
+
+	/**
+	 * 导出当前统计 耗时单位为微秒, 大小单位为字符
+	 *
+	 * @return 统计名称 -> 值, 按名称排序
+	 */
+	public Map<String, Number> snapshot() {
+		Map<String, Number> map = new TreeMap<>();
+		for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+			String prefix = "latency." + entry.getKey();
+			putHistogram(map, prefix, entry.getValue().latency);
+			map.put(prefix + ".errors", entry.getValue().errors.sum());
+		}
+		for (Map.Entry<String, CacheStats> entry : caches.entrySet()) {
+			String prefix = "cache." + entry.getKey();
+			long hit = entry.getValue().hit.sum();
+			long miss = entry.getValue().miss.sum();
+			map.put(prefix + ".hit", hit);
+			map.put(prefix + ".miss", miss);
+			map.put(prefix + ".hitRatio", (hit + miss) == 0 ? 0.0 : (double) hit / (hit + miss));
+		}
+		for (Map.Entry<String, MetricsHistogram> entry : payloads.entrySet()) {
+			putHistogram(map, "payload." + entry.getKey(), entry.getValue());
+		}
+		putHistogram(map, "pool.wait", poolWait);
+		return map;
+	}
+
+	/*
+	 * 导出直方图的数量, 平均值, 百分位和最大值
+	 */
+	private void putHistogram(Map<String, Number> map, String prefix, MetricsHistogram histogram) {
+		map.put(prefix + ".count", histogram.getCount());
+		map.put(prefix + ".mean", histogram.getMean());
+		map.put(prefix + ".p50", histogram.getValueAtPercentile(50));
+		map.put(prefix + ".p99", histogram.getValueAtPercentile(99));
+		map.put(prefix + ".p999", histogram.getValueAtPercentile(99.9));
+		map.put(prefix + ".max", histogram.getMax());
+	}
+
+	public long getSlowMillis() {
+		return slowMillis;
+	}
+
+	public void setSlowMillis(long slowMillis) {
+		this.slowMillis = slowMillis;
+	}
+}
@@ -0,0 +1,110 @@
+package redis.clients.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁直方图 按2的幂分段, 每段再等分为16个桶, 相对误差不超过1/16. 记录只有一次原子加, 不分配对象
+ */
+public class MetricsHistogram {
+
+	// 每段的桶数 2^SUB_BITS
+	private static final int SUB_BITS = 4;
+
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	// 0..15单独一段, 之后16..2^63每段16个桶
+	private static final int BUCKET_COUNT = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * 记录一个值, 负数按0记录
+	 *
+	 * @param value
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(getIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : sum.get() / n;
+	}
+
+	/**
+	 * 获取百分位数 返回所在桶的上界, 不超过最大值
+	 *
+	 * @param percentile
+	 *            0-100
+	 * @return
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			n += snapshot[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= target) {
+				return Math.min(getUpperValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/*
+	 * 值所在的桶
+	 */
+	static int getIndex(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+		return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	/*
+	 * 桶内的最大值
+	 */
+	static long getUpperValue(int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_COUNT + SUB_BITS - 1;
+		long sub = index % SUB_COUNT;
+		long lower = (SUB_COUNT + sub) << (exponent - SUB_BITS);
+		return lower + (1L << (exponent - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,33 @@
+package redis.clients.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * 将DefaultMetricsRecorder的统计绑定到spring boot actuator的/metrics, 名称统一加上jredis.前缀
+ */
+public class MetricsPublicMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "jredis.";
+
+	private final DefaultMetricsRecorder metricsRecorder;
+
+	public MetricsPublicMetrics(DefaultMetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Map<String, Number> snapshot = metricsRecorder.snapshot();
+		List<Metric<?>> metrics = new ArrayList<>(snapshot.size());
+		for (Map.Entry<String, Number> entry : snapshot.entrySet()) {
+			metrics.add(new Metric<Number>(PREFIX + entry.getKey(), entry.getValue()));
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,48 @@
+package redis.clients.common.metrics;
+
+/**
+ * 统计接口 RedisService, EntityService, EntityServiceProxy通过此接口上报耗时, 命中率, 连接池等待和数据大小,
+ * 默认实现为DefaultMetricsRecorder, 也可以对接其他统计系统. 实现需要线程安全且不能阻塞
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * 记录一次操作的耗时
+	 * 
+	 * @param name
+	 *            操作名称, 如redis.getObjectFromHash, db.getEntity
+	 * @param key
+	 *            缓存key或数据源key, 用于慢操作日志
+	 * @param nanos
+	 *            耗时纳秒
+	 * @param success
+	 *            是否成功
+	 */
+	void recordLatency(String name, String key, long nanos, boolean success);
+
+	/**
+	 * 记录一次缓存查询是否命中
+	 * 
+	 * @param name
+	 *            缓存名称, 如nearCache, redis.query
+	 * @param hit
+	 */
+	void recordCache(String name, boolean hit);
+
+	/**
+	 * 记录从连接池获取连接的等待时间
+	 * 
+	 * @param nanos
+	 */
+	void recordPoolWait(long nanos);
+
+	/**
+	 * 记录一次读写的数据大小
+	 * 
+	 * @param name
+	 *            操作名称
+	 * @param bytes
+	 *            字符数, 近似字节数
+	 */
+	void recordPayload(String name, long bytes);
+}
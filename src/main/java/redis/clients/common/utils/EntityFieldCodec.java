@@ -0,0 +1,477 @@
+package redis.clients.common.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.fastjson.JSON;
+
+import redis.clients.common.annotation.FieldSave;
+import redis.clients.common.annotation.FieldSave2DB;
+import redis.clients.common.annotation.FieldSave2Redis;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+
+/**
+ * 按类缓存的实体字段编解码器
+ *
+ * 每个类只解析一次字段注解和setter, 之后通过MethodHandle读写字段, 避免每次调用按名字反射查找Field/Method
+ */
+public final class EntityFieldCodec {
+
+	private static final Logger logger = LoggerFactory.getLogger(EntityFieldCodec.class);
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final ConcurrentMap<Class<?>, EntityFieldCodec> codecs = new ConcurrentHashMap<>();
+
+	/*
+	 * 字段类型, 决定如何从字符串还原
+	 */
+	private enum FieldType {
+		INT, BOOLEAN, LONG, FLOAT, DOUBLE, BYTE, SHORT, STRING, DATE, TIMESTAMP, MAP, LIST, OTHER;
+
+		static FieldType valueOf(Class<?> type) {
+			if (type == Integer.class || type == int.class) {
+				return INT;
+			} else if (type == Boolean.class || type == boolean.class) {
+				return BOOLEAN;
+			} else if (type == Long.class || type == long.class) {
+				return LONG;
+			} else if (type == Float.class || type == float.class) {
+				return FLOAT;
+			} else if (type == Double.class || type == double.class) {
+				return DOUBLE;
+			} else if (type == Byte.class || type == byte.class) {
+				return BYTE;
+			} else if (type == Short.class || type == short.class) {
+				return SHORT;
+			} else if (type == String.class) {
+				return STRING;
+			} else if (type == Date.class) {
+				return DATE;
+			} else if (type == Timestamp.class) {
+				return TIMESTAMP;
+			} else if (type == Map.class || type == HashMap.class) {
+				return MAP;
+			} else if (type == List.class || type == ArrayList.class) {
+				return LIST;
+			}
+			return OTHER;
+		}
+	}
+
+	/**
+	 * 单个字段的访问器
+	 */
+	public static final class FieldAccessor {
+		private final String name;
+		private final FieldType fieldType;
+		private final MethodHandle getter;
+		// 没有对应setXxx方法时为null, 与原反射实现一致不做设置
+		private final MethodHandle setter;
+
+		FieldAccessor(String name, FieldType fieldType, MethodHandle getter, MethodHandle setter) {
+			this.name = name;
+			this.fieldType = fieldType;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Object get(Object obj) throws Exception {
+			try {
+				return (Object) getter.invokeExact(obj);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new UndeclaredThrowableException(t);
+			}
+		}
+
+		void set(Object obj, Object value) throws Exception {
+			try {
+				setter.invokeExact(obj, value);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new UndeclaredThrowableException(t);
+			}
+		}
+
+		/*
+		 * 从缓存字符串还原字段, 规则与ObjectUtils.getObjFromMap一致
+		 */
+		void decode(Object obj, String value) throws Exception {
+			if (setter == null) {
+				return;
+			}
+			switch (fieldType) {
+			case INT:
+				set(obj, Integer.parseInt(value));
+				break;
+			case BOOLEAN:
+				set(obj, Boolean.parseBoolean(value));
+				break;
+			case LONG:
+				set(obj, Long.parseLong(value));
+				break;
+			case FLOAT:
+				set(obj, Float.parseFloat(value));
+				break;
+			case DOUBLE:
+				set(obj, Double.parseDouble(value));
+				break;
+			case BYTE:
+				set(obj, Byte.parseByte(value));
+				break;
+			case SHORT:
+				set(obj, Short.parseShort(value));
+				break;
+			case STRING:
+				set(obj, value);
+				break;
+			case DATE:
+				set(obj, TimeUtils.stringToDate(value));
+				break;
+			case TIMESTAMP:
+				set(obj, TimeUtils.stringtoTimestamp(value));
+				break;
+			case MAP:
+				Map<?, ?> mapFields = JSON.parseObject(value.replaceAll("=", ":"), HashMap.class);
+				if (mapFields.size() > 0) {
+					set(obj, mapFields);
+				}
+				break;
+			case LIST:
+				List<?> listFields = JSON.parseObject(value.replaceAll("=", ":"), ArrayList.class);
+				if (listFields.size() > 0) {
+					set(obj, listFields);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	// 按字段名索引, 子类字段优先
+	private final Map<String, FieldAccessor> accessorMap;
+
+	private final Field[] saveAllFields;
+	private final Field[] save2DBFields;
+	private final Field[] save2RedisFields;
+
+	private final FieldAccessor[] saveAllAccessors;
+	private final FieldAccessor[] save2DBAccessors;
+	private final FieldAccessor[] save2RedisAccessors;
+
+	// 所有实例字段(包括被子类同名字段隐藏的父类字段)的读写handle, 用于复制对象
+	private final MethodHandle[] copyGetters;
+	private final MethodHandle[] copySetters;
+
+	private EntityFieldCodec(Class<?> clazz) {
+		this.accessorMap = new HashMap<>();
+		List<MethodHandle> copyGetterList = new ArrayList<>();
+		List<MethodHandle> copySetterList = new ArrayList<>();
+		List<Field> saveAll = new ArrayList<>();
+		List<Field> save2DB = new ArrayList<>();
+		List<Field> save2Redis = new ArrayList<>();
+		for (Class<?> current = clazz; current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) && !accessorMap.containsKey(field.getName())) {
+					accessorMap.put(field.getName(), createAccessor(clazz, field));
+				}
+				if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+					addCopyHandle(field, copyGetterList, copySetterList);
+				}
+				// 与EntityUtils.getAllCacheFields的收集顺序保持一致
+				if (field.getAnnotation(FieldSave.class) != null) {
+					saveAll.add(field);
+					save2DB.add(field);
+					save2Redis.add(field);
+				}
+				if (field.getAnnotation(FieldSave2DB.class) != null) {
+					save2DB.add(field);
+				}
+				if (field.getAnnotation(FieldSave2Redis.class) != null) {
+					save2Redis.add(field);
+				}
+			}
+		}
+		this.saveAllFields = saveAll.toArray(new Field[0]);
+		this.save2DBFields = save2DB.toArray(new Field[0]);
+		this.save2RedisFields = save2Redis.toArray(new Field[0]);
+		this.saveAllAccessors = toAccessors(saveAllFields);
+		this.save2DBAccessors = toAccessors(save2DBFields);
+		this.save2RedisAccessors = toAccessors(save2RedisFields);
+		this.copyGetters = copyGetterList.toArray(new MethodHandle[0]);
+		this.copySetters = copySetterList.toArray(new MethodHandle[0]);
+	}
+
+	/**
+	 * 获取类对应的编解码器, 每个类只构建一次
+	 *
+	 * @param clazz
+	 * @return
+	 */
+	public static EntityFieldCodec getCodec(Class<?> clazz) {
+		EntityFieldCodec codec = codecs.get(clazz);
+		if (codec == null) {
+			codec = new EntityFieldCodec(clazz);
+			EntityFieldCodec old = codecs.putIfAbsent(clazz, codec);
+			if (old != null) {
+				codec = old;
+			}
+		}
+		return codec;
+	}
+
+	/**
+	 * 获取需要保存的字段
+	 *
+	 * @param type
+	 * @return 缓存的数组, 调用方不要修改
+	 */
+	public Field[] getCacheFields(EntitySaveEnum type) {
+		if (type == EntitySaveEnum.Save2DB) {
+			return save2DBFields;
+		} else if (type == EntitySaveEnum.Save2Redis) {
+			return save2RedisFields;
+		}
+		return saveAllFields;
+	}
+
+	/**
+	 * 将需要保存的字段编码为缓存字符串map
+	 *
+	 * @param obj
+	 * @param type
+	 * @return
+	 */
+	public Map<String, String> encode(Object obj, EntitySaveEnum type) {
+		FieldAccessor[] accessors = getAccessors(type);
+		Map<String, String> map = new HashMap<>(accessors.length * 4 / 3 + 1);
+		for (FieldAccessor accessor : accessors) {
+			Object value = null;
+			try {
+				value = accessor.get(obj);
+			} catch (Exception e) {
+				logger.error("EntityFieldCodec Failed to encode field={} Exception err={}",
+						accessor.getName(), e.toString());
+			}
+			map.put(accessor.getName(), ObjectUtils.getObjectString(value));
+		}
+		return map;
+	}
+
+	/**
+	 * 将缓存字符串map还原到对象中, 空值与没有setter的字段会被忽略
+	 *
+	 * @param map
+	 * @param obj
+	 * @return
+	 * @throws Exception
+	 */
+	public <T> T decode(Map<String, String> map, T obj) throws Exception {
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			String key = entry.getKey();
+			if (key == null || key.isEmpty()) {
+				continue;
+			}
+			String value = entry.getValue();
+			// 如果为空放弃，默认设置为空
+			if (StringUtils.isEmpty(value)) {
+				continue;
+			}
+			FieldAccessor accessor = accessorMap.get(key);
+			if (accessor != null) {
+				accessor.decode(obj, value);
+			}
+		}
+		return obj;
+	}
+
+	/**
+	 * 按getCacheFields的顺序将需要保存的字段编码为缓存字符串
+	 *
+	 * @param obj
+	 * @param type
+	 * @return
+	 */
+	public String[] encodeValues(Object obj, EntitySaveEnum type) {
+		FieldAccessor[] accessors = getAccessors(type);
+		String[] values = new String[accessors.length];
+		for (int i = 0; i < accessors.length; i++) {
+			Object value = null;
+			try {
+				value = accessors[i].get(obj);
+			} catch (Exception e) {
+				logger.error("EntityFieldCodec Failed to encode field={} Exception err={}",
+						accessors[i].getName(), e.toString());
+			}
+			values[i] = ObjectUtils.getObjectString(value);
+		}
+		return values;
+	}
+
+	/**
+	 * 按getCacheFields的顺序还原字段, 空值与没有setter的字段会被忽略
+	 *
+	 * @param values
+	 *            encodeValues的结果
+	 * @param obj
+	 * @param type
+	 * @return
+	 * @throws Exception
+	 */
+	public <T> T decodeValues(String[] values, T obj, EntitySaveEnum type) throws Exception {
+		FieldAccessor[] accessors = getAccessors(type);
+		int length = Math.min(values.length, accessors.length);
+		for (int i = 0; i < length; i++) {
+			if (!StringUtils.isEmpty(values[i])) {
+				accessors[i].decode(obj, values[i]);
+			}
+		}
+		return obj;
+	}
+
+	/**
+	 * 按字段复制对象, 直接读写字段不经过getter/setter, dest可以是src类的子类(如代理类)
+	 *
+	 * @param src
+	 * @param dest
+	 * @return dest
+	 * @throws Exception
+	 */
+	public <T> T copyFields(Object src, T dest) throws Exception {
+		try {
+			for (int i = 0; i < copyGetters.length; i++) {
+				copySetters[i].invokeExact(dest, (Object) copyGetters[i].invokeExact(src));
+			}
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+		return dest;
+	}
+
+	/**
+	 * 获取字段访问器, 子类字段优先
+	 *
+	 * @param fieldName
+	 * @return 字段不存在时返回null
+	 */
+	public FieldAccessor getAccessor(String fieldName) {
+		return accessorMap.get(fieldName);
+	}
+
+	/**
+	 * 读取字段值, 字段不存在时返回null
+	 *
+	 * @param obj
+	 * @param fieldName
+	 * @return
+	 * @throws Exception
+	 */
+	public Object getFieldValue(Object obj, String fieldName) throws Exception {
+		FieldAccessor accessor = accessorMap.get(fieldName);
+		if (accessor == null) {
+			return null;
+		}
+		return accessor.get(obj);
+	}
+
+	private FieldAccessor[] getAccessors(EntitySaveEnum type) {
+		if (type == EntitySaveEnum.Save2DB) {
+			return save2DBAccessors;
+		} else if (type == EntitySaveEnum.Save2Redis) {
+			return save2RedisAccessors;
+		}
+		return saveAllAccessors;
+	}
+
+	private FieldAccessor[] toAccessors(Field[] fields) {
+		FieldAccessor[] accessors = new FieldAccessor[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			FieldAccessor accessor = accessorMap.get(fields[i].getName());
+			if (accessor == null) {
+				// 静态字段或被子类同名字段覆盖的字段
+				accessor = createAccessor(fields[i].getDeclaringClass(), fields[i]);
+			}
+			accessors[i] = accessor;
+		}
+		return accessors;
+	}
+
+	private static FieldAccessor createAccessor(Class<?> clazz, Field field) {
+		try {
+			field.setAccessible(true);
+			MethodHandle getter = LOOKUP.unreflectGetter(field);
+			if (Modifier.isStatic(field.getModifiers())) {
+				getter = MethodHandles.dropArguments(getter, 0, Object.class);
+			}
+			getter = getter.asType(GETTER_TYPE);
+			MethodHandle setter = null;
+			Method method = getSetMethod(clazz, buildSetMethod(field.getName()), field.getType());
+			if (method != null && !Modifier.isStatic(method.getModifiers())) {
+				method.setAccessible(true);
+				setter = LOOKUP.unreflect(method).asType(SETTER_TYPE);
+			}
+			return new FieldAccessor(field.getName(), FieldType.valueOf(field.getType()), getter, setter);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("EntityFieldCodec Failed to access field " + field, e);
+		}
+	}
+
+	private static void addCopyHandle(Field field, List<MethodHandle> getters, List<MethodHandle> setters) {
+		try {
+			field.setAccessible(true);
+			getters.add(LOOKUP.unreflectGetter(field).asType(GETTER_TYPE));
+			setters.add(LOOKUP.unreflectSetter(field).asType(SETTER_TYPE));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("EntityFieldCodec Failed to access field " + field, e);
+		}
+	}
+
+	private static Method getSetMethod(Class<?> clazz, String methodName, Class<?> fieldType) {
+		for (; clazz != Object.class; clazz = clazz.getSuperclass()) {
+			try {
+				return clazz.getDeclaredMethod(methodName, fieldType);
+			} catch (NoSuchMethodException e) {
+				continue;
+			}
+		}
+		return null;
+	}
+
+	private static String buildSetMethod(String fieldName) {
+		StringBuilder sb = new StringBuilder("set");
+		if (fieldName.length() > 0) {
+			sb.append(Character.toUpperCase(fieldName.charAt(0))).append(fieldName, 1, fieldName.length());
+		}
+		return sb.toString();
+	}
+}
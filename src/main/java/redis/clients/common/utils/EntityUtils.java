@@ -2,13 +2,12 @@ package redis.clients.common.utils;
 
 import java.util.Map;
 import java.util.List;
-import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.lang.reflect.Field;
 
-import redis.clients.common.annotation.FieldSave;
-import redis.clients.common.annotation.FieldSave2DB;
-import redis.clients.common.annotation.FieldSave2Redis;
+import redis.clients.common.constant.GlobalConstants;
 import redis.clients.entity.AbstractEntity;
 import redis.clients.entity.IEntity;
 import redis.clients.proxy.EntityProxy;
@@ -16,6 +15,7 @@ import redis.clients.proxy.EntityProxyWrapper;
 import redis.clients.redis.RedisInterface;
 import redis.clients.redis.RedisListInterface;
 import redis.clients.redis.RedisService;
+import redis.clients.redis.VersionUpdateResult;
 
 /**
  * Created by qq24139297 on 2017/3/22. 实体辅助类
@@ -39,14 +39,7 @@ public class EntityUtils {
 	 * @return
 	 */
 	public static Map<String, String> getCacheValueMap(IEntity iEntity, EntitySaveEnum type) {
-		Map<String, String> map = new HashMap<>();
-		Field[] fields = getAllCacheFields(iEntity, type);
-		for (Field field : fields) {
-			String fieldName = field.getName();
-			String value = ObjectUtils.getFieldsValueStr(iEntity, fieldName);
-			map.put(fieldName, value);
-		}
-		return map;
+		return EntityFieldCodec.getCodec(iEntity.getClass()).encode(iEntity, type);
 	}
 
 	/**
@@ -71,38 +64,13 @@ public class EntityUtils {
 
 	/**
 	 * 获取所有缓存的需要保存到Redis和DB数据库的字段field type == 0 获取所有需要同时保存到Redis和DB数据库的字段 type == 1
-	 * 获取所有需要同时保存到DB数据库的字段 type == 2 获取所有需要同时保存到Redis的字段
+	 * 获取所有需要同时保存到DB数据库的字段 type == 2 获取所有需要同时保存到Redis的字段 字段按类缓存在EntityFieldCodec中
 	 * 
 	 * @param obj
 	 * @return
 	 */
 	public static Field[] getAllCacheFields(IEntity obj, EntitySaveEnum type) {
-		Class<?> clazz = obj.getClass();
-		List<Field> fieldList = new ArrayList<>();
-		for (; clazz != Object.class; clazz = clazz.getSuperclass()) {
-			Field[] fields = clazz.getDeclaredFields();
-			for (Field field : fields) {
-				// 获取filed注解
-				FieldSave fieldSave = field.getAnnotation(FieldSave.class);
-				if (fieldSave != null) {
-					fieldList.add(field);
-				}
-				if (type == EntitySaveEnum.Save2DB) {
-					// 保存到DB数据库的字段
-					FieldSave2DB fieldSave2DB = field.getAnnotation(FieldSave2DB.class);
-					if (fieldSave2DB != null) {
-						fieldList.add(field);
-					}
-				} else if (type == EntitySaveEnum.Save2Redis) {
-					// 保存到Redis数据库的字段
-					FieldSave2Redis fieldSave2Redis = field.getAnnotation(FieldSave2Redis.class);
-					if (fieldSave2Redis != null) {
-						fieldList.add(field);
-					}
-				}
-			}
-		}
-		return fieldList.toArray(new Field[0]);
+		return EntityFieldCodec.getCodec(obj.getClass()).getCacheFields(type).clone();
 	}
 
 	// Get rediskey
@@ -131,8 +99,14 @@ public class EntityUtils {
 					if (entityProxy != null) {
 						Map<String, Object> changeParamSet = entityProxy.getChangeParamSet(EntitySaveEnum.Save2Redis);
 						if ((changeParamSet != null) && (!changeParamSet.isEmpty())) {
-							ret = redisService.updateObjectHashMap(EntityUtils.getRedisKey(redisInterface),
-									changeParamSet);
+							if (redisService.isVersionFlag()) {
+								VersionUpdateResult result = updateChangedFieldWithVersion(redisService, entity,
+										EntityUtils.getRedisKey(redisInterface), changeParamSet);
+								ret = result.isSuccess();
+							} else {
+								ret = redisService.updateObjectHashMap(EntityUtils.getRedisKey(redisInterface),
+										changeParamSet);
+							}
 						}
 					}
 				}
@@ -193,90 +167,250 @@ public class EntityUtils {
 	}
 
 	/**
-	 * 插入或更新所有字段实体列表
+	 * 插入或更新所有字段实体列表 所有实体的写入在同一个pipeline中发送
 	 * 
 	 * @param entityList
+	 * @return 与entityList顺序一致的结果, 1为成功, 0为失败
 	 */
 	public static List<Long> updateAllFieldEntityList(RedisService redisService, List<AbstractEntity> entityList) {
-		// 拿到第一个，看一下类型
-		boolean ret = false;
 		List<Long> retlist = new ArrayList<>();
 		if (entityList.size() > 0) {
+			// 拿到第一个，看一下类型
 			AbstractEntity entity = entityList.get(0);
 			if (entity instanceof RedisInterface) {
+				Map<String, AbstractEntity> entityMap = new LinkedHashMap<>();
 				for (AbstractEntity abstractEntity : entityList) {
-					ret = updateAllFieldEntity(redisService, entity);
-					retlist.add((long) (ret == true ? 1 : 0));
+					entityMap.put(getRedisKey((RedisInterface) abstractEntity), abstractEntity);
 				}
-			} else if (entity instanceof RedisListInterface) {
-				List<RedisListInterface> redisListInterfaceList = new ArrayList<>();
+				Map<String, Boolean> retMap = redisService.setObjectToHashBatch(entityMap);
 				for (AbstractEntity abstractEntity : entityList) {
-					redisListInterfaceList.add((RedisListInterface) abstractEntity);
+					retlist.add(toResult(retMap.get(getRedisKey((RedisInterface) abstractEntity))));
 				}
-				ret = redisService.setListToHash(EntityUtils.getRedisListKey((RedisListInterface) entity),
-						redisListInterfaceList);
-				retlist.add((long) (ret == true ? 1 : 0));
+			} else if (entity instanceof RedisListInterface) {
+				retlist = setListToHashBatch(redisService, entityList);
 			}
 		}
 		return retlist;
 	}
 
 	/**
-	 * 更新变化字段实体列表
+	 * 更新变化字段实体列表 所有实体的写入在同一个pipeline中发送
 	 * 
 	 * @param entityList
-	 * @return
+	 * @return 与entityList顺序一致的结果, 1为成功, 0为失败或没有变化, 带版本号更新冲突时为VERSION_CONFLICT
 	 */
 	public static List<Long> updateChangedFieldEntityList(RedisService redisService, List<AbstractEntity> entityList) {
-		boolean ret = false;
 		List<Long> retlist = new ArrayList<>();
 		if (entityList.size() > 0) {
 			AbstractEntity entity = entityList.get(0);
 			if (entity != null) {
 				if (entity instanceof RedisInterface) {
+					Map<String, Map<String, Object>> changeMap = new LinkedHashMap<>();
 					for (AbstractEntity abstractEntity : entityList) {
-						ret = updateChangedFieldEntity(redisService, entity);
-						retlist.add((long) (ret == true ? 1 : 0));
+						Map<String, Object> changeParamSet = getProxyChangeParamSet(abstractEntity);
+						if ((changeParamSet != null) && (!changeParamSet.isEmpty())) {
+							changeMap.put(getRedisKey((RedisInterface) abstractEntity), changeParamSet);
+						}
 					}
-				} else if (entity instanceof RedisListInterface) {
-					List<RedisListInterface> redisListInterfaceList = new ArrayList<>();
+					if (redisService.isVersionFlag()) {
+						return updateChangedFieldListWithVersion(redisService, entityList, changeMap);
+					}
+					Map<String, Boolean> retMap = redisService.updateObjectHashMapBatch(changeMap);
 					for (AbstractEntity abstractEntity : entityList) {
-						RedisListInterface redisListInterface = (RedisListInterface) abstractEntity;
-						redisListInterfaceList.add(redisListInterface);
+						retlist.add(toResult(retMap.get(getRedisKey((RedisInterface) abstractEntity))));
 					}
-					ret = redisService.setListToHash(EntityUtils.getRedisListKey((RedisListInterface) entity),
-							redisListInterfaceList);
-					retlist.add((long) (ret == true ? 1 : 0));
+				} else if (entity instanceof RedisListInterface) {
+					retlist = setListToHashBatch(redisService, entityList);
 				}
 			}
 		}
 		return retlist;
 	}
 
-	// 删除实体列表
+	/**
+	 * 删除实体列表 所有实体的删除在同一个pipeline中发送
+	 * 
+	 * @param entityList
+	 * @return 与entityList顺序一致的删除数量
+	 */
 	public static List<Long> deleteEntityList(RedisService redisService, List<AbstractEntity> entityList) {
-		boolean ret = false;
 		List<Long> retlist = new ArrayList<>();
 		if (entityList.size() > 0) {
 			AbstractEntity entity = entityList.get(0);
 			if (entity != null) {
 				if (entity instanceof RedisInterface) {
+					List<String> keys = new ArrayList<>(entityList.size());
 					for (AbstractEntity abstractEntity : entityList) {
-						ret = deleteEntity(redisService, abstractEntity);
-						retlist.add((long) (ret == true ? 1 : 0));
+						keys.add(getRedisKey((RedisInterface) abstractEntity));
 					}
+					retlist = redisService.deleteKeyBatch(keys);
 				} else if (entity instanceof RedisListInterface) {
-					List<String> redisListInterfaceList = new ArrayList<>();
+					List<String> keys = new ArrayList<>(entityList.size());
+					List<String> fields = new ArrayList<>(entityList.size());
 					for (AbstractEntity abstractEntity : entityList) {
 						RedisListInterface redisListInterface = (RedisListInterface) abstractEntity;
-						redisListInterfaceList.add(redisListInterface.getSubUniqueKey());
+						keys.add(getRedisListKey(redisListInterface));
+						fields.add(redisListInterface.getSubUniqueKey());
 					}
-					Long delret = redisService.hdel(EntityUtils.getRedisListKey((RedisListInterface) entity),
-							redisListInterfaceList.toArray(new String[0]));
-					retlist.add(delret);
+					retlist = redisService.hdelBatch(keys, fields);
 				}
 			}
 		}
 		return retlist;
 	}
+
+	/*
+	 * 列表实体按各自的列表key分组后批量写入
+	 */
+	private static List<Long> setListToHashBatch(RedisService redisService, List<AbstractEntity> entityList) {
+		Map<String, List<RedisListInterface>> listMap = new LinkedHashMap<>();
+		for (AbstractEntity abstractEntity : entityList) {
+			RedisListInterface redisListInterface = (RedisListInterface) abstractEntity;
+			String key = getRedisListKey(redisListInterface);
+			List<RedisListInterface> redisListInterfaceList = listMap.get(key);
+			if (redisListInterfaceList == null) {
+				redisListInterfaceList = new ArrayList<>();
+				listMap.put(key, redisListInterfaceList);
+			}
+			redisListInterfaceList.add(redisListInterface);
+		}
+		Map<String, Boolean> retMap = redisService.setListToHashBatch(listMap);
+		List<Long> retlist = new ArrayList<>(entityList.size());
+		for (AbstractEntity abstractEntity : entityList) {
+			retlist.add(toResult(retMap.get(getRedisListKey((RedisListInterface) abstractEntity))));
+		}
+		return retlist;
+	}
+
+	/**
+	 * 带版本号更新变化字段 版本冲突时缓存保持不变, 是否删除缓存由调用方决定
+	 * 
+	 * @param entity
+	 * @return 没有开启版本号, 不是RedisInterface或没有变化字段时返回null
+	 */
+	public static VersionUpdateResult updateChangedFieldEntityWithVersion(RedisService redisService,
+			AbstractEntity entity) {
+		if (entity == null || !redisService.isVersionFlag() || !(entity instanceof RedisInterface)) {
+			return null;
+		}
+		Map<String, Object> changeParamSet = getProxyChangeParamSet(entity);
+		if ((changeParamSet == null) || changeParamSet.isEmpty()) {
+			return null;
+		}
+		return updateChangedFieldWithVersion(redisService, entity, getRedisKey((RedisInterface) entity),
+				changeParamSet);
+	}
+
+	/**
+	 * 写入DB之前检查缓存中的版本号, 基于旧版本的更新不应该再写入DB
+	 * 
+	 * @param entity
+	 * @return 版本冲突时返回false, 没有开启版本号, 不是RedisInterface或没有缓存时返回true
+	 */
+	public static boolean checkVersion(RedisService redisService, AbstractEntity entity) {
+		List<AbstractEntity> entityList = new ArrayList<>(1);
+		entityList.add(entity);
+		return checkVersionList(redisService, entityList)[0];
+	}
+
+	/**
+	 * 批量检查缓存中的版本号 所有读取在同一个pipeline中发送
+	 * 
+	 * @param entityList
+	 * @return 与entityList顺序一致, 版本冲突时为false
+	 */
+	public static boolean[] checkVersionList(RedisService redisService, List<AbstractEntity> entityList) {
+		boolean[] ret = new boolean[entityList.size()];
+		Arrays.fill(ret, true);
+		if (!redisService.isVersionFlag()) {
+			return ret;
+		}
+		List<String> keys = new ArrayList<>(entityList.size());
+		for (AbstractEntity abstractEntity : entityList) {
+			if (!(abstractEntity instanceof RedisInterface)) {
+				return ret;
+			}
+			keys.add(getRedisKey((RedisInterface) abstractEntity));
+		}
+		List<Long> versionList = redisService.getObjectVersionBatch(keys);
+		for (int i = 0; i < entityList.size(); i++) {
+			Long version = versionList.get(i);
+			if (version != null && version != entityList.get(i).getCacheVersion()) {
+				Loggers.redisLogger.warn("EntityUtils version conflict before db key={} version={} currentVersion={}",
+						keys.get(i), entityList.get(i).getCacheVersion(), version);
+				ret[i] = false;
+			}
+		}
+		return ret;
+	}
+
+	/*
+	 * 带版本号更新变化字段, 成功后实体版本号与缓存一致, 版本冲突时缓存保持不变
+	 */
+	private static VersionUpdateResult updateChangedFieldWithVersion(RedisService redisService,
+			AbstractEntity entity, String key, Map<String, Object> changeParamSet) {
+		VersionUpdateResult result = redisService.updateObjectHashMapWithVersion(key, changeParamSet,
+				entity.getCacheVersion());
+		applyVersionResult(entity, key, result);
+		return result;
+	}
+
+	/*
+	 * 批量带版本号更新变化字段 冲突的实体结果为VERSION_CONFLICT
+	 */
+	private static List<Long> updateChangedFieldListWithVersion(RedisService redisService,
+			List<AbstractEntity> entityList, Map<String, Map<String, Object>> changeMap) {
+		Map<String, Long> versionMap = new LinkedHashMap<>();
+		for (AbstractEntity abstractEntity : entityList) {
+			versionMap.put(getRedisKey((RedisInterface) abstractEntity), abstractEntity.getCacheVersion());
+		}
+		Map<String, VersionUpdateResult> retMap = redisService.updateObjectHashMapWithVersionBatch(changeMap,
+				versionMap);
+		List<Long> retlist = new ArrayList<>(entityList.size());
+		for (AbstractEntity abstractEntity : entityList) {
+			String key = getRedisKey((RedisInterface) abstractEntity);
+			VersionUpdateResult result = retMap.get(key);
+			if (result != null && result.isConflict()) {
+				applyVersionResult(abstractEntity, key, result);
+				retlist.add((long) GlobalConstants.RedisVersion.VERSION_CONFLICT);
+				continue;
+			}
+			boolean ret = result != null && applyVersionResult(abstractEntity, key, result);
+			retlist.add(ret ? 1L : 0L);
+		}
+		return retlist;
+	}
+
+	/*
+	 * 处理带版本号更新的结果 冲突时脚本已拒绝写入, 实体保留旧版本号, 需要重新读取后才能再更新
+	 */
+	private static boolean applyVersionResult(AbstractEntity entity, String key, VersionUpdateResult result) {
+		if (result.isSuccess()) {
+			entity.setCacheVersion(result.getStatus());
+			return true;
+		}
+		if (result.isConflict()) {
+			Loggers.redisLogger.warn("EntityUtils version conflict key={} version={} currentVersion={}", key,
+					entity.getCacheVersion(), result.getCurrentVersion());
+		}
+		return false;
+	}
+
+	/*
+	 * 获取代理对象里需要保存到Redis的变化字段
+	 */
+	private static Map<String, Object> getProxyChangeParamSet(AbstractEntity entity) {
+		EntityProxyWrapper entityProxyWrapper = entity.getEntityProxyWrapper();
+		if (entityProxyWrapper != null) {
+			EntityProxy entityProxy = entityProxyWrapper.getEntityProxy();
+			if (entityProxy != null) {
+				return entityProxy.getChangeParamSet(EntitySaveEnum.Save2Redis);
+			}
+		}
+		return null;
+	}
+
+	private static long toResult(Boolean ret) {
+		return (ret != null && ret) ? 1 : 0;
+	}
 }
@@ -1,9 +1,19 @@
 package redis.clients.common.utils;
 
 import java.sql.Timestamp;
-import java.text.DateFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalQuery;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
@@ -20,6 +30,7 @@ public class TimeUtils {
 	static {
 		TimeZone.setDefault(TimeZone.getTimeZone("GMT+8"));
 		TIME_ZONE = TimeZone.getDefault();
+		ZONE_ID = TimeZone.getDefault().toZoneId();
 	}
 
 	/** 毫秒 */
@@ -46,23 +57,36 @@ public class TimeUtils {
 	private static final int DAYOFWEEK_CARDINALITY = 7;
 
 	/** 年月日 时分, 格式如: 2011-01-11 01:10 */
-	private static final DateFormat ymdhmFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+	private static final DateTimeFormatter ymdhmFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 	/** 年月日 时分, 格式如: 2011-01-11 01:10:20 */
-	private static final DateFormat ymdhmsFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+	private static final DateTimeFormatter ymdhmsFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 	/** 年月日，格式如1970-07-10 */
-	private static final DateFormat ymdFormat = new SimpleDateFormat(
-			"yyyy-MM-dd");
+	private static final DateTimeFormatter ymdFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	/** 小时和分钟数，格式如10:20 */
+	private static final DateTimeFormatter hmFormat = DateTimeFormatter.ofPattern("HH:mm");
+	/** 时间戳，格式如20110111011020 */
+	private static final DateTimeFormatter urlTimeStampFormat = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+	/* 解析用的格式, 与SimpleDateFormat一样接受不补0的数字, 超出范围的日期顺延(2017-02-30为2017-03-02) */
+	private static final DateTimeFormatter ymdhmParseFormat = DateTimeFormatter.ofPattern("y-M-d H:m")
+			.withResolverStyle(ResolverStyle.LENIENT);
+	private static final DateTimeFormatter ymdParseFormat = DateTimeFormatter.ofPattern("y-M-d")
+			.withResolverStyle(ResolverStyle.LENIENT);
+	private static final DateTimeFormatter hmParseFormat = DateTimeFormatter.ofPattern("H:m")
+			.withResolverStyle(ResolverStyle.LENIENT);
 	
 	/**
 	 * 默认的日期格式
 	 */
 	public static final String DEFAULT_DATE_FAMAT="yyyy-MM-dd HH:mm:ss";
-	
-	private static final DateFormat hmFormat = new SimpleDateFormat("HH:mm");
-	private static final Calendar calendar = Calendar.getInstance();
+
+	/** 默认日期格式的长度 */
+	private static final int DEFAULT_DATE_LENGTH = DEFAULT_DATE_FAMAT.length();
+
 	public static final TimeZone TIME_ZONE;
 
+	private static final ZoneId ZONE_ID;
+
 	/**
 	 * 判断是否合法的时间格式(HH:mm:ss)
 	 *
@@ -233,8 +257,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static String getUrlTimeStamp(Date date) {
-		DateFormat _format = new SimpleDateFormat("yyyyMMddHHmmss");
-		return _format.format(date);
+		return urlTimeStampFormat.format(toLocalDateTime(date.getTime()));
 	}
 
 	/**
@@ -270,11 +293,8 @@ public class TimeUtils {
 	 * @throws ParseException
 	 */
 	public static long getHMTime(String source) throws ParseException {
-		Date date = hmFormat.parse(source);
-		calendar.setTime(date);
-		int hour = calendar.get(Calendar.HOUR_OF_DAY);
-		int minute = calendar.get(Calendar.MINUTE);
-		return hour * TimeUtils.HOUR + minute * TimeUtils.MIN;
+		LocalTime time = parse(source, hmParseFormat, LocalTime::from);
+		return time.getHour() * TimeUtils.HOUR + time.getMinute() * TimeUtils.MIN;
 	}
 
 	/**
@@ -284,7 +304,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static String formatHMTime(long time) {
-		return hmFormat.format(new Date(time));
+		return hmFormat.format(toLocalDateTime(time));
 	}
 
 	/**
@@ -295,8 +315,8 @@ public class TimeUtils {
 	 * @throws ParseException
 	 */
 	public static long getYMDTime(String source) throws ParseException {
-		Date date = ymdFormat.parse(source);
-		return date.getTime();
+		LocalDate date = parse(source, ymdParseFormat, LocalDate::from);
+		return date.atStartOfDay(ZONE_ID).toInstant().toEpochMilli();
 	}
 
 	/**
@@ -306,7 +326,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static String formatYMDTime(long time) {
-		return ymdFormat.format(time);
+		return ymdFormat.format(toLocalDateTime(time));
 	}
 
 	/**
@@ -317,8 +337,8 @@ public class TimeUtils {
 	 * @throws ParseException
 	 */
 	public static long getYMDHMTime(String source) throws ParseException {
-		Date date = ymdhmFormat.parse(source);
-		return date.getTime();
+		LocalDateTime date = parse(source, ymdhmParseFormat, LocalDateTime::from);
+		return date.atZone(ZONE_ID).toInstant().toEpochMilli();
 	}
 
 	/**
@@ -330,8 +350,7 @@ public class TimeUtils {
 	 */
 	public static Calendar getCalendarByYMDHM(String source) throws ParseException {
 		Calendar calendar = Calendar.getInstance();
-		Date date = ymdhmFormat.parse(source);
-		calendar.setTime(date);
+		calendar.setTimeInMillis(getYMDHMTime(source));
 		return calendar;
 	}
 
@@ -342,7 +361,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static String formatYMDHMTime(long time) {
-		return ymdhmFormat.format(time);
+		return ymdhmFormat.format(toLocalDateTime(time));
 	}
 	
 	/**
@@ -352,7 +371,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static String formatYMDHMSTime(long time) {
-		return ymdhmsFormat.format(time);
+		return formatDefault(time);
 	}
 
 	/**
@@ -389,6 +408,7 @@ public class TimeUtils {
 	 * @return
 	 */
 	public static int getHourTime(long time) {
+		Calendar calendar = Calendar.getInstance();
 		calendar.setTimeInMillis(time);
 		return calendar.get(Calendar.HOUR_OF_DAY);
 	}
@@ -408,6 +428,7 @@ public class TimeUtils {
 	 */
 	public static long getTime(long time, int year, int month, int day,
 			int hour, int minute, int second) {
+		Calendar calendar = Calendar.getInstance();
 		calendar.setTimeInMillis(time);
 		int _unChange = -1;
 		if (year != _unChange) {
@@ -446,6 +467,7 @@ public class TimeUtils {
 	public static long getChangeTime(long originTime, int changeYear,
 			int changeMonth, int changeDay, int changeHour, int changeMinute,
 			int changeSecond) {
+		Calendar calendar = Calendar.getInstance();
 		calendar.setTimeInMillis(originTime);
 		int _unChange = 0;
 		if (changeYear != _unChange) {
@@ -740,8 +762,7 @@ public class TimeUtils {
 	 * @param format
 	 */
 	public static String dateToString(Date date){
-		SimpleDateFormat time = new SimpleDateFormat(DEFAULT_DATE_FAMAT);
-		return time.format(date);
+		return formatDefault(date.getTime());
 	}
 	
 	/**
@@ -763,6 +784,10 @@ public class TimeUtils {
 	 * @param stringValue
 	 */
 	public static Date stringToDate(String stringValue){
+		long time = parseDefault(stringValue);
+		if (time != Long.MIN_VALUE) {
+			return new Date(time);
+		}
 		return stringToDate(stringValue,DEFAULT_DATE_FAMAT);
 	}
 	
@@ -771,7 +796,128 @@ public class TimeUtils {
 	 * @param stringValue
 	 */
 	public static Timestamp stringtoTimestamp(String stringValue){
-		Date date =  stringToDate(stringValue,DEFAULT_DATE_FAMAT);
+		Date date =  stringToDate(stringValue);
 		return new Timestamp(date.getTime());
 	}
+
+	/*
+	 * 按默认格式(yyyy-MM-dd HH:mm:ss)输出, 直接按时区偏移计算年月日时分秒, 不创建格式化对象
+	 */
+	private static String formatDefault(long time) {
+		long localTime = time + TIME_ZONE.getOffset(time);
+		long days = Math.floorDiv(localTime, DAY);
+		int secondOfDay = (int) (Math.floorMod(localTime, DAY) / SECOND);
+		// 公历日期计算(days from civil的逆运算), 以0000-03-01为起点
+		long z = days + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 0 || year > 9999) {
+			return ymdhmsFormat.format(toLocalDateTime(time));
+		}
+		char[] buf = new char[DEFAULT_DATE_LENGTH];
+		write4(buf, 0, (int) year);
+		buf[4] = '-';
+		write2(buf, 5, month);
+		buf[7] = '-';
+		write2(buf, 8, day);
+		buf[10] = ' ';
+		write2(buf, 11, secondOfDay / 3600);
+		buf[13] = ':';
+		write2(buf, 14, secondOfDay / 60 % 60);
+		buf[16] = ':';
+		write2(buf, 17, secondOfDay % 60);
+		return new String(buf);
+	}
+
+	/*
+	 * 解析严格符合默认格式的字符串, 不符合时返回Long.MIN_VALUE, 由调用方按SimpleDateFormat的宽松规则解析
+	 */
+	private static long parseDefault(String value) {
+		if (value == null || value.length() != DEFAULT_DATE_LENGTH || value.charAt(4) != '-' || value.charAt(7) != '-'
+				|| value.charAt(10) != ' ' || value.charAt(13) != ':' || value.charAt(16) != ':') {
+			return Long.MIN_VALUE;
+		}
+		int year = read(value, 0, 4);
+		int month = read(value, 5, 2);
+		int day = read(value, 8, 2);
+		int hour = read(value, 11, 2);
+		int minute = read(value, 14, 2);
+		int second = read(value, 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0
+				|| hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return Long.MIN_VALUE;
+		}
+		// days from civil
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		long days = era * 146097 + dayOfEra - 719468;
+		long localTime = days * DAY + hour * HOUR + minute * MIN + second * SECOND;
+		// 先按标准偏移估算, 再按该时刻的实际偏移(夏令时)修正
+		long time = localTime - TIME_ZONE.getRawOffset();
+		return localTime - TIME_ZONE.getOffset(time);
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static void write2(char[] buf, int index, int value) {
+		buf[index] = (char) ('0' + value / 10);
+		buf[index + 1] = (char) ('0' + value % 10);
+	}
+
+	private static void write4(char[] buf, int index, int value) {
+		write2(buf, index, value / 100);
+		write2(buf, index + 2, value % 100);
+	}
+
+	private static int read(String value, int index, int length) {
+		int result = 0;
+		for (int i = index; i < index + length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	private static LocalDateTime toLocalDateTime(long time) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZONE_ID);
+	}
+
+	/*
+	 * 与SimpleDateFormat.parse一样只解析开头部分, 忽略后面多余的内容(2011-01-11 01:10按年月日解析).
+	 * DateTimeFormatter解析失败时转换为原接口的ParseException
+	 */
+	private static <T> T parse(String source, DateTimeFormatter formatter,
+			TemporalQuery<T> query) throws ParseException {
+		try {
+			return formatter.parse(source, new ParsePosition(0)).query(query);
+		} catch (DateTimeParseException e) {
+			throw new ParseException(e.getMessage(), e.getErrorIndex());
+		} catch (DateTimeException e) {
+			throw new ParseException(e.getMessage(), 0);
+		}
+	}
 }
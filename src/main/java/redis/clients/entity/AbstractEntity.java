@@ -16,6 +16,9 @@ public abstract class AbstractEntity implements IEntity, AsyncSave {
 	// 用于记录数据库封装对象
 	private EntityProxyWrapper entityProxyWrapper;
 
+	// 缓存hash中的版本号, 从缓存读取时赋值, 带版本号更新成功后递增
+	private long cacheVersion;
+
 	@Override
 	public EntityProxyWrapper getEntityProxyWrapper() {
 		return entityProxyWrapper;
@@ -25,4 +28,12 @@ public abstract class AbstractEntity implements IEntity, AsyncSave {
 	public void setEntityProxyWrapper(EntityProxyWrapper entityProxyWrapper) {
 		this.entityProxyWrapper = entityProxyWrapper;
 	}
+
+	public long getCacheVersion() {
+		return cacheVersion;
+	}
+
+	public void setCacheVersion(long cacheVersion) {
+		this.cacheVersion = cacheVersion;
+	}
 }
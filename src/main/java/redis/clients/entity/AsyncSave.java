@@ -5,6 +5,7 @@ import redis.clients.proxy.EntityProxyWrapper;
 /**
  * Created by qq24139297 on 17/3/29. 
  * 异步存储
+ * 实体类标注@AsyncDbSave后, 通过EntityServiceProxy的更新会进入EntityAsyncSaveQueue合并写入DB
  */
 public interface AsyncSave {
 	// 用于记录数据库封装对象
@@ -0,0 +1,350 @@
+package redis.clients.entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.ClassUtils;
+
+import redis.clients.common.annotation.AsyncDbSave;
+import redis.clients.common.constant.GlobalConstants;
+import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.Loggers;
+
+/**
+ * 实体异步存储队列 (write-behind)
+ *
+ * 同一个实体的多次更新按字段合并(后写覆盖先写), 按数量或时间间隔批量通过EntityService.updateEntityMapBatch写入DB.
+ * 合并期间DB中的数据会落后于Redis, 只适用于以缓存为准的实体.
+ * 作为spring bean时随容器启动和关闭(写入剩余更新), 手动创建时EntityServiceProxyFactory创建代理时启动
+ */
+public class EntityAsyncSaveQueue implements InitializingBean, DisposableBean {
+
+	private static final Logger logger = Loggers.asyncLogger;
+
+	private static final Logger errorLogger = Loggers.dbErrorLogger;
+
+	/*
+	 * 等待写入的合并更新
+	 */
+	private static class PendingUpdate {
+		@SuppressWarnings("rawtypes")
+		private final EntityService entityService;
+		private AbstractEntity entity;
+		private final Map<String, Object> changeParamSet = new HashMap<>();
+		private int retryCount;
+		// 实体已删除, 正在写入的更新不再写入或重试
+		private volatile boolean cancelled;
+
+		@SuppressWarnings("rawtypes")
+		PendingUpdate(EntityService entityService, AbstractEntity entity) {
+			this.entityService = entityService;
+			this.entity = entity;
+		}
+	}
+
+	private final ConcurrentHashMap<String, PendingUpdate> pendingMap = new ConcurrentHashMap<>();
+
+	/* flush已取出正在写入的更新 */
+	private final ConcurrentHashMap<String, PendingUpdate> writingMap = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+	private ScheduledExecutorService executorService;
+
+	/**
+	 * 单次批量写入数量, 合并后的实体数达到该值时立即触发写入
+	 */
+	private int batchSize = 500;
+
+	/**
+	 * 定时写入间隔(毫秒)
+	 */
+	private long flushInterval = 1000;
+
+	/**
+	 * 写入失败的重试次数, 超过后丢弃并记录dbError日志
+	 */
+	private int maxRetryCount = 3;
+
+	/**
+	 * 是否需要异步存储
+	 *
+	 * @param entity
+	 * @return
+	 */
+	public static boolean isAsyncSave(AbstractEntity entity) {
+		return entity != null && entity.getClass().isAnnotationPresent(AsyncDbSave.class);
+	}
+
+	/**
+	 * 启动定时写入线程
+	 */
+	public synchronized void start() {
+		if (executorService != null) {
+			return;
+		}
+		executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, GlobalConstants.Thread.ENTITY_ASYNC_SAVE);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executorService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		start();
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	/**
+	 * 停止定时写入线程,并写入所有未完成的更新
+	 */
+	public synchronized void shutdown() {
+		if (executorService != null) {
+			executorService.shutdown();
+			try {
+				executorService.awaitTermination(flushInterval * 2, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executorService = null;
+		}
+		flush();
+		// 冻结或写入失败留在队列中的更新无法再写入
+		for (PendingUpdate pendingUpdate : pendingMap.values()) {
+			errorLogger.error("EntityAsyncSaveQueue shutdown drop update! entity={} changeParamSet={}",
+					pendingUpdate.entity.toString(), pendingUpdate.changeParamSet.toString());
+		}
+	}
+
+	/**
+	 * 放入一次更新的变化字段
+	 *
+	 * @param entityService
+	 *            负责写入DB的实体服务
+	 * @param entity
+	 * @param changeParamSet
+	 *            EntityProxy.getChangeParamSet(Save2DB)
+	 */
+	@SuppressWarnings("rawtypes")
+	public void offer(final EntityService entityService, final AbstractEntity entity,
+			final Map<String, Object> changeParamSet) {
+		if (changeParamSet == null || changeParamSet.isEmpty()) {
+			return;
+		}
+		pendingMap.compute(getPendingKey(entity), (key, pendingUpdate) -> {
+			if (pendingUpdate == null) {
+				pendingUpdate = new PendingUpdate(entityService, entity);
+			}
+			pendingUpdate.entity = entity;
+			pendingUpdate.changeParamSet.putAll(changeParamSet);
+			return pendingUpdate;
+		});
+		if (pendingMap.size() >= batchSize) {
+			ScheduledExecutorService executor = executorService;
+			if (executor != null && !flushing.get()) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						flush();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * 取消实体未写入的更新, 在删除实体时调用
+	 *
+	 * @param entity
+	 */
+	public void cancel(AbstractEntity entity) {
+		String key = getPendingKey(entity);
+		pendingMap.remove(key);
+		PendingUpdate writing = writingMap.get(key);
+		if (writing != null) {
+			writing.cancelled = true;
+		}
+	}
+
+	/**
+	 * 待写入的实体数量
+	 */
+	public int size() {
+		return pendingMap.size();
+	}
+
+	/**
+	 * 将所有合并的更新写入DB
+	 */
+	public void flush() {
+		if (!flushing.compareAndSet(false, true)) {
+			return;
+		}
+		List<PendingUpdate> failedList = new ArrayList<>();
+		List<PendingUpdate> frozenList = new ArrayList<>();
+		try {
+			while (!pendingMap.isEmpty()) {
+				List<PendingUpdate> batch = new ArrayList<>(Math.min(batchSize, pendingMap.size()));
+				Iterator<String> iterator = pendingMap.keySet().iterator();
+				while (iterator.hasNext() && batch.size() < batchSize) {
+					String key = iterator.next();
+					PendingUpdate pendingUpdate = pendingMap.get(key);
+					if (pendingUpdate == null) {
+						continue;
+					}
+					// 先登记再取出, cancel要么在队列中删除它, 要么在writingMap中看到它
+					writingMap.put(key, pendingUpdate);
+					if (pendingMap.remove(key, pendingUpdate)) {
+						batch.add(pendingUpdate);
+					} else {
+						writingMap.remove(key, pendingUpdate);
+					}
+				}
+				if (batch.isEmpty()) {
+					break;
+				}
+				try {
+					writeBatch(batch, failedList, frozenList);
+				} finally {
+					writingMap.clear();
+				}
+			}
+		} catch (Exception e) {
+			logger.error("EntityAsyncSaveQueue.flush Error! Exception err={}", e.toString());
+		} finally {
+			// 失败的更新留到下一次写入, 避免在同一次flush中反复重试
+			for (PendingUpdate failed : failedList) {
+				retry(failed, true);
+			}
+			// 迁移冻结的实体等解冻后再写入, 不计重试次数
+			for (PendingUpdate frozen : frozenList) {
+				retry(frozen, false);
+			}
+			flushing.set(false);
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void writeBatch(List<PendingUpdate> batch, List<PendingUpdate> failedList,
+			List<PendingUpdate> frozenList) {
+		// 同一个EntityService的更新一起写入
+		Map<EntityService, List<PendingUpdate>> serviceMap = new IdentityHashMap<>();
+		for (PendingUpdate pendingUpdate : batch) {
+			if (pendingUpdate.cancelled) {
+				continue;
+			}
+			if (!pendingUpdate.entityService.isWritable(pendingUpdate.entity)) {
+				frozenList.add(pendingUpdate);
+				continue;
+			}
+			List<PendingUpdate> list = serviceMap.get(pendingUpdate.entityService);
+			if (list == null) {
+				list = new ArrayList<>();
+				serviceMap.put(pendingUpdate.entityService, list);
+			}
+			list.add(pendingUpdate);
+		}
+		for (Map.Entry<EntityService, List<PendingUpdate>> entry : serviceMap.entrySet()) {
+			List<PendingUpdate> list = entry.getValue();
+			List<AbstractEntity> entityList = new ArrayList<>(list.size());
+			List<Map<String, Object>> changeList = new ArrayList<>(list.size());
+			for (PendingUpdate pendingUpdate : list) {
+				entityList.add(pendingUpdate.entity);
+				changeList.add(pendingUpdate.changeParamSet);
+			}
+			List<Long> result = null;
+			try {
+				result = entry.getKey().updateEntityMapBatch(entityList, changeList);
+			} catch (Exception e) {
+				logger.error("EntityAsyncSaveQueue.writeBatch Error! size={} Exception err={}", list.size(), e.toString());
+			}
+			for (int i = 0; i < list.size(); i++) {
+				if (result == null || result.get(i) == null || result.get(i) <= 0) {
+					failedList.add(list.get(i));
+				}
+			}
+		}
+	}
+
+	/*
+	 * 写入失败的字段重新放回队列, 队列中已有的新值优先
+	 */
+	private void retry(final PendingUpdate failed, boolean countRetry) {
+		if (failed.cancelled) {
+			return;
+		}
+		if (countRetry && ++failed.retryCount > maxRetryCount) {
+			errorLogger.error("EntityAsyncSaveQueue drop update! entity={} changeParamSet={}", failed.entity.toString(),
+					failed.changeParamSet.toString());
+			return;
+		}
+		pendingMap.compute(getPendingKey(failed.entity), (key, pendingUpdate) -> {
+			if (pendingUpdate == null) {
+				return failed;
+			}
+			for (Map.Entry<String, Object> entry : failed.changeParamSet.entrySet()) {
+				if (!pendingUpdate.changeParamSet.containsKey(entry.getKey())) {
+					pendingUpdate.changeParamSet.put(entry.getKey(), entry.getValue());
+				}
+			}
+			pendingUpdate.retryCount = Math.max(pendingUpdate.retryCount, failed.retryCount);
+			return pendingUpdate;
+		});
+	}
+
+	private String getPendingKey(AbstractEntity entity) {
+		return ClassUtils.getUserClass(entity).getName() + EntityUtils.ENTITY_SPLIT_STRING + entity.getId()
+				+ EntityUtils.ENTITY_SPLIT_STRING + entity.getUid();
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public int getMaxRetryCount() {
+		return maxRetryCount;
+	}
+
+	public void setMaxRetryCount(int maxRetryCount) {
+		this.maxRetryCount = maxRetryCount;
+	}
+}
@@ -4,10 +4,15 @@ import java.util.Map;
 import java.util.List;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 import redis.clients.common.annotation.DbMapper;
 import redis.clients.common.annotation.DbOperation;
 import redis.clients.common.constant.DbOperationEnum;
+import redis.clients.common.metrics.MetricsRecorder;
 import redis.clients.common.utils.Loggers;
 import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
 import redis.clients.entity.AbstractEntity;
@@ -16,8 +21,12 @@ import redis.clients.proxy.EntityProxy;
 import redis.clients.proxy.EntityProxyWrapper;
 import redis.clients.sharding.CustomerContextHolder;
 import redis.clients.sharding.EntityServiceShardingStrategy;
+import redis.clients.sharding.ShardingBatchExecutor;
+import redis.clients.sharding.ShardingFrozenException;
 
 import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,7 +38,7 @@ import com.github.pagehelper.PageRowBounds;
 
 
 /**
- * Created by qq24139297 on 17/3/21. 模版实体数据提服务 批量应该保证它们在同一个数据库中
+ * Created by qq24139297 on 17/3/21. 模版实体数据提服务 批量操作按分库分组, 每个分库独立提交
  */
 public abstract class EntityService<T extends AbstractEntity> implements IEntityService<T> {
 
@@ -44,6 +53,12 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 	@Autowired
 	private EntityServiceShardingStrategy defaultEntityServiceShardingStrategy;
 
+	@Autowired(required = false)
+	private ShardingBatchExecutor shardingBatchExecutor;
+
+	@Autowired(required = false)
+	private MetricsRecorder metricsRecorder;
+
 	private static ThreadLocal<SqlSession> threadLocal = new ThreadLocal<SqlSession>();
 
 	/**
@@ -59,7 +74,8 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		IDBMapper<T> idbMapper = getTemplateMapper(entity);
 		if (idbMapper != null) {
 			long selectId = getShardingId(entity);
-			CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
+			checkWritable(selectId, "insertEntity", entity);
+			selectDB(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
 			// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
 			try {
 				result = idbMapper.insertEntity(entity);
@@ -74,27 +90,13 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 	@Override
 	@DbOperation(operation = DbOperationEnum.insertBatch)
 	public List<Long> insertEntityBatch(List<T> entityList) {
-		List<Long> result = new ArrayList<>();
-		SqlSession sqlSession = getBatchSession();
-		try {
-			for (T entity : entityList) {
-				IDBMapper<T> idbMapper = getBatchTemplateMapper(sqlSession, entity);
-				if(idbMapper!=null) {
-					long selectId = getShardingId(entity);
-					CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
-					// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
-					long insertReuslt = idbMapper.insertEntity(entity);
-					result.add(insertReuslt);
-				}
+		return executeShardingBatch(entityList, "insertEntityBatch", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
+				return idbMapper.insertEntity(entity);
 			}
-			commitBatchSession();
-		} catch (Exception e) {
-			logger.error("EntityService.insertEntityBatch Error! entityList={} Exception err={}" , entityList.toString() , e.toString());
-			rollbackBatchSession();
-		} finally {
-			closeBatchSession();
-		}
-		return result;
+		});
 	}
 	
 	/**
@@ -109,7 +111,7 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		IDBMapper<T> idbMapper = getTemplateMapper(entity);
 		if (idbMapper != null) {
 			long selectId = getShardingId(entity);
-			CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
+			selectDB(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
 			// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
 			String uid = entity.getUid();
 			try {
@@ -133,7 +135,7 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		IDBMapper<T> idbMapper = getTemplateMapper(entity);
 		if (idbMapper != null) {
 			long selectId = getShardingId(entity);
-			CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
+			selectDB(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
 			// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
 			EntityServiceShardingStrategy entityServiceShardingStrategy = getDefaultEntityServiceShardingStrategy();
 			try {
@@ -163,6 +165,71 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 	}
 
 
+	/**
+	 * 流式查询实体列表 通过ResultHandler逐行读取getEntityList的结果, 每读满batchSize个实体交给consumer一次,
+	 * 内存中最多保留batchSize个实体, 不执行count和offset分页. 
+	 * mysql驱动需要在mapper的getEntityList上设置fetchSize="-2147483648"才会逐行从数据库读取
+	 *
+	 * @param entity
+	 * @param batchSize
+	 *            每批实体数量
+	 * @param consumer
+	 *            在查询线程中依次处理每批实体
+	 * @return 读取的实体总数, 失败返回-1
+	 */
+	@DbOperation(operation = DbOperationEnum.queryListStream)
+	public long getEntityListStream(T entity, final int batchSize, final Consumer<List<T>> consumer) {
+		long selectId = getShardingId(entity);
+		return getEntityListStreamByDBKey(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId), entity,
+				batchSize, consumer);
+	}
+
+	/**
+	 * 在指定分库上流式查询实体列表, 不经过缓存, 用于分库数据迁移
+	 *
+	 * @param dbKey
+	 *            数据源key
+	 * @param entity
+	 * @param batchSize
+	 * @param consumer
+	 * @return 读取的实体总数, 失败返回-1
+	 */
+	public long getEntityListStreamByDBKey(String dbKey, T entity, final int batchSize,
+			final Consumer<List<T>> consumer) {
+		DbMapper mapper = entity.getClass().getAnnotation(DbMapper.class);
+		if (mapper == null || sqlSessionTemplate == null) {
+			return -1;
+		}
+		selectDB(dbKey);
+		final long[] count = new long[1];
+		final List<List<T>> batchHolder = new ArrayList<>(1);
+		batchHolder.add(new ArrayList<T>(batchSize));
+		try {
+			sqlSessionTemplate.select(mapper.mapper().getName() + ".getEntityList", entity, new ResultHandler() {
+				@Override
+				@SuppressWarnings("unchecked")
+				public void handleResult(ResultContext resultContext) {
+					List<T> batch = batchHolder.get(0);
+					batch.add((T) resultContext.getResultObject());
+					count[0]++;
+					if (batch.size() >= batchSize) {
+						consumer.accept(batch);
+						batchHolder.set(0, new ArrayList<T>(batchSize));
+					}
+				}
+			});
+			if (!batchHolder.get(0).isEmpty()) {
+				consumer.accept(batchHolder.get(0));
+			}
+		} catch (Exception e) {
+			logger.error("EntityService.getEntityListStream Error! dbKey={} entity={} count={} Exception err={}", dbKey,
+					entity.toString(), count[0], e.toString());
+			return -1;
+		}
+		return count[0];
+	}
+
+
 	/**
 	 * 修改实体
 	 *
@@ -174,7 +241,8 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		IDBMapper<T> idbMapper = getTemplateMapper(entity);
 		if (idbMapper != null) {
 			long selectId = getShardingId(entity);
-			CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
+			checkWritable(selectId, "updateEntity", entity);
+			selectDB(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
 			// int sharding_table_index = getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId);
 			Map<Object, Object> hashMap = new HashMap<>();
 			// hashMap.put("sharding_table_index", sharding_table_index);
@@ -214,60 +282,62 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 	@Override
 	@DbOperation(operation = DbOperationEnum.updateBatch)
 	public List<Long> updateEntityBatch(List<T> entityList) {
-		List<Long> result = new ArrayList<>();
-		SqlSession sqlSession = getBatchSession();
-		try {
-			for (T entity : entityList) {
-				IDBMapper<T> idbMapper = getBatchTemplateMapper(sqlSession, entity);
-				if(idbMapper != null) {
-					long selectId = getShardingId(entity);
-					CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
-					// int sharding_table_index = getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId);
-					// entity.setSharding_table_index(sharding_table_index);					
-					Map<Object, Object> hashMap = new HashMap<>();
-					// hashMap.put("sharding_table_index", sharding_table_index);
-					hashMap.put("id", entity.getId());
-					hashMap.put("uid", entity.getUid());
-					EntityProxyWrapper entityProxyWrapper = entity.getEntityProxyWrapper();
-					// 只有数据变化的时候才会更新
-					if (entityProxyWrapper != null) {
-						EntityProxy entityProxy = entityProxyWrapper.getEntityProxy();
-						if (entityProxy != null && entityProxy.isDirtyFlag()) {
-							Map<String, Object> changeParamSet = entityProxy.getChangeParamSet(EntitySaveEnum.Save2DB);	
-							if (changeParamSet != null && (!changeParamSet.isEmpty())) {
-								hashMap.putAll(changeParamSet);
-								if (hashMap != null && hashMap.size() > 0) {
-									try {
-										idbMapper.updateEntityByMap(hashMap);
-										result.add(1L);
-									} catch (Exception e) {
-										logger.error("EntityService.updateEntityBatch updateEntityByMap Error! entity={} Exception err={}",entity.toString(),e.toString());
-										result.add(0L);
-									} finally {
-									}
-								}
-							}
-						} else {
-							logger.error("updateEntityBatch cancel entityProxy == null! entity.simpleName={} id={}",entity.getClass().getSimpleName(),entity.getId());
-							result.add(0L);
-						}
-					} else {
-						logger.error("updateEntityBatch cancel entityProxyWrapper == null! entity.simpleName={} id={}",entity.getClass().getSimpleName(),entity.getId());
-						result.add(0L);
-					}
+		return executeShardingBatch(entityList, "updateEntityBatch", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				// int sharding_table_index = getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId);
+				// entity.setSharding_table_index(sharding_table_index);
+				EntityProxyWrapper entityProxyWrapper = entity.getEntityProxyWrapper();
+				// 只有数据变化的时候才会更新
+				if (entityProxyWrapper == null) {
+					logger.error("updateEntityBatch cancel entityProxyWrapper == null! entity.simpleName={} id={}",entity.getClass().getSimpleName(),entity.getId());
+					return 0L;
+				}
+				EntityProxy entityProxy = entityProxyWrapper.getEntityProxy();
+				if (entityProxy == null) {
+					logger.error("updateEntityBatch cancel entityProxy == null! entity.simpleName={} id={}",entity.getClass().getSimpleName(),entity.getId());
+					return 0L;
+				}
+				if (!entityProxy.isDirtyFlag()) {
+					return 0L;
 				}
+				Map<String, Object> changeParamSet = entityProxy.getChangeParamSet(EntitySaveEnum.Save2DB);
+				if (changeParamSet == null || changeParamSet.isEmpty()) {
+					return 0L;
+				}
+				Map<Object, Object> hashMap = new HashMap<>();
+				// hashMap.put("sharding_table_index", sharding_table_index);
+				hashMap.put("id", entity.getId());
+				hashMap.put("uid", entity.getUid());
+				hashMap.putAll(changeParamSet);
+				idbMapper.updateEntityByMap(hashMap);
+				return 1L;
 			}
-			commitBatchSession();
-		} catch (Exception e) {
-			logger.error("EntityService.updateEntityBatch Error! entityList={} Exception err={}",entityList.toString(),e.toString());
-			rollbackBatchSession();
-			result.add(0l);
-		} finally {
-			closeBatchSession();
-		}
-		return result;
+		});
 	}
 	
+	/**
+	 * 批量写入已合并的变化字段 按分库分组, 每个分库使用一个batch session提交
+	 * 
+	 * @param entityList
+	 * @param changeList
+	 *            与entityList一一对应的变化字段
+	 * @return 与entityList顺序一致的结果, 1为成功, 0为失败
+	 */
+	public List<Long> updateEntityMapBatch(List<T> entityList, final List<Map<String, Object>> changeList) {
+		return executeShardingBatch(entityList, "updateEntityMapBatch", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				Map<Object, Object> hashMap = new HashMap<>();
+				hashMap.put("id", entity.getId());
+				hashMap.put("uid", entity.getUid());
+				hashMap.putAll(changeList.get(index));
+				idbMapper.updateEntityByMap(hashMap);
+				return 1L;
+			}
+		});
+	}
+
 	/**
 	 * 删除实体
 	 *
@@ -279,7 +349,8 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		IDBMapper<T> idbMapper = getTemplateMapper(entity);
 		if (idbMapper != null) {
 			long selectId = getShardingId(entity);
-			CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
+			checkWritable(selectId, "deleteEntity", entity);
+			selectDB(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
 			// entity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
 			String uid = entity.getUid();
 			try {
@@ -301,30 +372,219 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 	@Override
 	@DbOperation(operation = DbOperationEnum.deleteBatch)
 	public List<Long> deleteEntityBatch(List<T> entityList) {
-		List<Long> result = new ArrayList<>();
-		SqlSession sqlSession = getBatchSession();
+		return executeShardingBatch(entityList, "deleteEntityBatch", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				// iEntity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
+				idbMapper.deleteEntity(entity);
+				return 1L;
+			}
+		});
+	}
+
+	/**
+	 * 在指定分库上批量插入实体, 不经过缓存, 用于分库数据迁移
+	 * 
+	 * @param dbKey
+	 *            数据源key
+	 * @param entityList
+	 * @return 与entityList顺序一致的结果, 提交失败时全部为0
+	 */
+	public List<Long> insertEntityBatchByDBKey(String dbKey, List<T> entityList) {
+		return executeDBKeyBatch(dbKey, entityList, "insertEntityBatchByDBKey", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				return idbMapper.insertEntity(entity);
+			}
+		});
+	}
+
+	/**
+	 * 在指定分库上批量删除实体, 不经过缓存, 用于分库数据迁移
+	 * 
+	 * @param dbKey
+	 *            数据源key
+	 * @param entityList
+	 * @return 与entityList顺序一致的结果, 提交失败时全部为0
+	 */
+	public List<Long> deleteEntityBatchByDBKey(String dbKey, List<T> entityList) {
+		return executeDBKeyBatch(dbKey, entityList, "deleteEntityBatchByDBKey", new ShardingBatchWork<T>() {
+			@Override
+			public long execute(IDBMapper<T> idbMapper, T entity, int index) {
+				idbMapper.deleteEntity(entity);
+				return 1L;
+			}
+		});
+	}
+
+	/*
+	 * 在指定分库上执行批量操作, 不按分库主键分组
+	 */
+	private List<Long> executeDBKeyBatch(String dbKey, List<T> entityList, String name, ShardingBatchWork<T> work) {
+		Long[] result = new Long[entityList.size()];
+		Arrays.fill(result, 0L);
+		List<Integer> indexList = new ArrayList<>(entityList.size());
+		for (int i = 0; i < entityList.size(); i++) {
+			indexList.add(i);
+		}
+		executeShardBatch(entityList, dbKey, indexList, name, work, result);
+		return Arrays.asList(result);
+	}
+
+	/**
+	 * 分库批量操作中对单个实体的处理
+	 */
+	protected interface ShardingBatchWork<T extends AbstractEntity> {
+		/**
+		 * @param idbMapper
+		 *            当前分库batch session的mapper
+		 * @param entity
+		 * @param index
+		 *            实体在entityList中的下标
+		 * @return 写入结果, 分库提交成功后返回给调用方
+		 */
+		long execute(IDBMapper<T> idbMapper, T entity, int index);
+	}
+
+	/**
+	 * 分库批量操作 按分库key分组, 每个分库在自己的线程中设置数据源并使用独立的batch session提交,
+	 * 配置了shardingBatchExecutor时多个分库并发执行
+	 * 
+	 * @param entityList
+	 * @param name
+	 *            日志中的方法名
+	 * @param work
+	 * @return 与entityList顺序一致的结果, 分库提交失败或没有mapper的实体为0
+	 * @throws ShardingFrozenException
+	 *             有实体在迁移期间被冻结, 整批都没有写入
+	 */
+	protected List<Long> executeShardingBatch(final List<T> entityList, final String name,
+			final ShardingBatchWork<T> work) {
+		final Long[] result = new Long[entityList.size()];
+		Arrays.fill(result, 0L);
+		List<Callable<Void>> taskList = new ArrayList<>();
+		Map<String, List<Integer>> shardMap = groupByShardingDBKey(entityList);
+		if (shardMap.size() == 1) {
+			CustomerContextHolder.setUsedDBKey(shardMap.keySet().iterator().next());
+		} else if (shardMap.size() > 1) {
+			CustomerContextHolder.setUsedDBKey(CustomerContextHolder.MULTI_DB_KEY);
+		}
+		for (final Map.Entry<String, List<Integer>> entry : shardMap.entrySet()) {
+			taskList.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					executeShardBatch(entityList, entry.getKey(), entry.getValue(), name, work, result);
+					return null;
+				}
+			});
+		}
+		String customerType = CustomerContextHolder.getCustomerType();
+		try {
+			if (shardingBatchExecutor != null) {
+				shardingBatchExecutor.invokeAll(taskList);
+			} else {
+				for (Callable<Void> task : taskList) {
+					task.call();
+				}
+			}
+		} catch (Exception e) {
+			logger.error("EntityService.{} Error! size={} Exception err={}", name, entityList.size(), e.toString());
+		} finally {
+			CustomerContextHolder.setCustomerType(customerType);
+		}
+		return Arrays.asList(result);
+	}
+
+	/*
+	 * 切换数据源并记录本线程实际使用的数据源, 代理统计db耗时时读取
+	 */
+	private void selectDB(String dbKey) {
+		CustomerContextHolder.setCustomerType(dbKey);
+		CustomerContextHolder.setUsedDBKey(dbKey);
+	}
+
+	/*
+	 * 在一个分库上执行并提交, 提交成功后才写入结果
+	 */
+	private void executeShardBatch(List<T> entityList, String dbKey, List<Integer> indexList, String name,
+			ShardingBatchWork<T> work, Long[] result) {
+		long start = System.nanoTime();
+		boolean success = false;
+		String customerType = CustomerContextHolder.getCustomerType();
+		CustomerContextHolder.setCustomerType(dbKey);
+		SqlSession sqlSession = sqlSessionBatchTemplate.getSqlSessionFactory().openSession(ExecutorType.BATCH, false);
 		try {
-			for (T iEntity : entityList) {
-				IDBMapper<T> idbMapper = getBatchTemplateMapper(sqlSession, iEntity);
+			long[] shardResult = new long[indexList.size()];
+			for (int i = 0; i < indexList.size(); i++) {
+				int index = indexList.get(i);
+				T entity = entityList.get(index);
+				IDBMapper<T> idbMapper = getBatchTemplateMapper(sqlSession, entity);
 				if (idbMapper != null) {
-					long selectId = getShardingId(iEntity);
-					CustomerContextHolder.setCustomerType(getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId));
-					// iEntity.setSharding_table_index(getEntityServiceShardingStrategy().getShardingDBTableIndexByUserId(selectId));
-					idbMapper.deleteEntity(iEntity);
-					result.add(1l);
+					shardResult[i] = work.execute(idbMapper, entity, index);
 				}
 			}
-			commitBatchSession();
+			sqlSession.commit();
+			success = true;
+			for (int i = 0; i < indexList.size(); i++) {
+				result[indexList.get(i)] = shardResult[i];
+			}
 		} catch (Exception e) {
-			logger.error("EntityService.deleteEntityBatch Error! entityList={} Exception err={}",entityList.toString(),e.toString());
-			rollbackBatchSession();
-			result.add(0l);
+			logger.error("EntityService.{} Error! dbKey={} size={} Exception err={}", name, dbKey, indexList.size(),
+					e.toString());
+			sqlSession.rollback();
 		} finally {
-			closeBatchSession();
+			sqlSession.close();
+			CustomerContextHolder.setCustomerType(customerType);
+			if (metricsRecorder != null) {
+				metricsRecorder.recordLatency("db." + name, dbKey, System.nanoTime() - start, success);
+			}
 		}
-		return result;
 	}
 	
+	/**
+	 * 按分库key对实体分组 有实体在迁移期间被冻结时整批都不写入
+	 * 
+	 * @param entityList
+	 * @return 分库key -> 实体在entityList中的下标
+	 * @throws ShardingFrozenException
+	 */
+	protected Map<String, List<Integer>> groupByShardingDBKey(List<T> entityList) {
+		Map<String, List<Integer>> shardMap = new LinkedHashMap<>();
+		for (int i = 0; i < entityList.size(); i++) {
+			long selectId = getShardingId(entityList.get(i));
+			checkWritable(selectId, "groupByShardingDBKey", entityList.get(i));
+			String dbKey = getEntityServiceShardingStrategy().getShardingDBKeyByUserId(selectId);
+			List<Integer> indexList = shardMap.get(dbKey);
+			if (indexList == null) {
+				indexList = new ArrayList<>();
+				shardMap.put(dbKey, indexList);
+			}
+			indexList.add(i);
+		}
+		return shardMap;
+	}
+
+	/**
+	 * 实体当前是否可以写入, 迁移期间被冻结的分桶不可写入
+	 * 
+	 * @param entity
+	 * @return
+	 */
+	public boolean isWritable(T entity) {
+		return getEntityServiceShardingStrategy().isWritable(getShardingId(entity));
+	}
+
+	/*
+	 * 迁移期间被冻结的数据拒绝写入, 抛出异常使代理不再修改缓存, 调用方能感知写入失败
+	 */
+	private void checkWritable(long selectId, String name, T entity) {
+		if (!getEntityServiceShardingStrategy().isWritable(selectId)) {
+			logger.error("EntityService.{} Error! sharding bucket is frozen for migration entity={}", name,
+					entity.toString());
+			throw new ShardingFrozenException("sharding bucket is frozen for migration shardingId=" + selectId);
+		}
+	}
+
 	/**
 	 * 获取分库主键
 	 * 
@@ -493,6 +753,22 @@ public abstract class EntityService<T extends AbstractEntity> implements IEntity
 		this.defaultEntityServiceShardingStrategy = defaultEntityServiceShardingStrategy;
 	}
 
+	public ShardingBatchExecutor getShardingBatchExecutor() {
+		return shardingBatchExecutor;
+	}
+
+	public void setShardingBatchExecutor(ShardingBatchExecutor shardingBatchExecutor) {
+		this.shardingBatchExecutor = shardingBatchExecutor;
+	}
+
+	public MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder;
+	}
+
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
 	public abstract EntityServiceShardingStrategy getEntityServiceShardingStrategy();
 
 	// 获取模版参数类
@@ -1,6 +1,7 @@
 package redis.clients.entity;
 
 import java.util.List;
+import java.util.function.Consumer;
 import redis.clients.entity.AbstractEntity;
 import redis.clients.entity.IEntity;
 
@@ -34,6 +35,17 @@ public interface IEntityService<T extends AbstractEntity> {
 	 */
 	public List<T> getEntityList(T entity);
 
+	/**
+	 * 流式查询实体列表, 按批交给consumer处理
+	 * 
+	 * @param entity
+	 * @param batchSize
+	 *            每批实体数量
+	 * @param consumer
+	 * @return 读取的实体总数, 失败返回-1
+	 */
+	public long getEntityListStream(T entity, int batchSize, Consumer<List<T>> consumer);
+
 	/**
 	 * 更新实体
 	 * 
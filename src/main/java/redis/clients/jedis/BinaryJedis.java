@@ -30,6 +30,7 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
 	public Client client = null;
 	public Transaction transaction = null;
 	public Pipeline pipeline = null;
+	public StreamingPipeline streamingPipeline = null;
 
 	public BinaryJedis() {
 		client = new Client();
@@ -228,6 +229,8 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
 			throw new JedisDataException("Cannot use Jedis when in Multi. Please use Transation or reset jedis state.");
 		} else if (pipeline != null && pipeline.hasPipelinedResponse()) {
 			throw new JedisDataException("Cannot use Jedis when in Pipeline. Please use Pipeline or reset jedis state .");
+		} else if (streamingPipeline != null && !streamingPipeline.isClosed()) {
+			throw new JedisDataException("Cannot use Jedis when in StreamingPipeline. Please close it or reset jedis state .");
 		}
 	}
 	
@@ -302,6 +305,10 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
 				pipeline.clear();
 			}
 
+			if (streamingPipeline != null) {
+				streamingPipeline.close();
+			}
+
 			if (client.isInWatch()) {
 				client.unwatch();
 				String reply = client.getStatusCodeReply();
@@ -314,6 +321,7 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
 
 		transaction = null;
 		pipeline = null;
+		streamingPipeline = null;
 	}
 	
 	@Override
@@ -397,6 +405,21 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
 		pipeline.setClient(client);
 		return pipeline;
 	}
+
+	/**
+	 * Starts a bounded-memory pipeline for bulk loads, replies are delivered to the callback instead of
+	 * Responses. Close it before using this Jedis again.
+	 */
+	public StreamingPipeline streamingPipelined(final PipelineCallback callback) {
+		streamingPipeline = new StreamingPipeline(client, callback);
+		return streamingPipeline;
+	}
+
+	public StreamingPipeline streamingPipelined(final PipelineCallback callback, final int flushCommands,
+			final int maxInFlight) {
+		streamingPipeline = new StreamingPipeline(client, callback, flushCommands, maxInFlight);
+		return streamingPipeline;
+	}
 	
 	@Override
 	public Long getDB() {
@@ -2,16 +2,26 @@ package redis.clients.jedis;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import redis.clients.jedis.exceptions.JedisClusterException;
 import redis.clients.jedis.params.geo.GeoRadiusParam;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 import redis.clients.jedis.params.sortedset.ZIncrByParams;
+import redis.clients.util.JedisClusterCRC16;
 import redis.clients.util.KeyMergeUtil;
 import redis.clients.util.SafeEncoder;
 import redis.clients.util.JedisClusterHashTagUtil;
@@ -30,6 +40,9 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	protected JedisClusterConnectionHandler connectionHandler;
 
+	// runs the per node pipelines of JedisClusterPipeline, created on first use
+	private volatile ExecutorService pipelineExecutor;
+
 	public BinaryJedisCluster(Set<HostAndPort> nodes, int timeout) {
 		this(nodes, timeout, DEFAULT_MAX_REDIRECTIONS, new GenericObjectPoolConfig());
 	}
@@ -67,11 +80,162 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public void close() throws IOException {
+		if (pipelineExecutor != null) {
+			pipelineExecutor.shutdown();
+		}
 		if (connectionHandler != null) {
 			connectionHandler.close();
 		}
 	}
 
+	/**
+	 * Starts a pipeline that groups commands by slot owner and syncs every node in parallel.
+	 */
+	public JedisClusterPipeline pipelined() {
+		return new JedisClusterPipeline(connectionHandler, maxAttempts, getPipelineExecutor());
+	}
+
+	protected static boolean isSameSlot(int keyCount, byte[]... keys) {
+		if (keyCount <= 1) {
+			return true;
+		}
+		int slot = JedisClusterCRC16.getSlot(keys[0]);
+		for (int i = 1; i < keyCount; i++) {
+			if (JedisClusterCRC16.getSlot(keys[i]) != slot) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Key indexes grouped by slot, in first seen order.
+	 */
+	private static Map<Integer, List<Integer>> groupBySlot(byte[][] keys, int step) {
+		Map<Integer, List<Integer>> slots = new LinkedHashMap<Integer, List<Integer>>();
+		for (int i = 0; i < keys.length; i += step) {
+			int slot = JedisClusterCRC16.getSlot(keys[i]);
+			List<Integer> indexes = slots.get(slot);
+			if (indexes == null) {
+				indexes = new ArrayList<Integer>();
+				slots.put(slot, indexes);
+			}
+			indexes.add(i);
+		}
+		return slots;
+	}
+
+	/**
+	 * MGET over keys of several slots: one MGET per slot, pipelined per node and run on the nodes in
+	 * parallel, values are returned in the order of the keys.
+	 */
+	protected List<byte[]> scatterMget(final byte[]... keys) {
+		Map<Integer, List<Integer>> slots = groupBySlot(keys, 1);
+		JedisClusterPipeline pipeline = pipelined();
+		List<Response<List<byte[]>>> responses = new ArrayList<Response<List<byte[]>>>(slots.size());
+		for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+			byte[][] args = new byte[entry.getValue().size()][];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = keys[entry.getValue().get(i)];
+			}
+			responses.add(pipeline.execute(entry.getKey(), BuilderFactory.BYTE_ARRAY_LIST, Protocol.Command.MGET, args));
+		}
+		pipeline.sync();
+		byte[][] values = new byte[keys.length][];
+		int r = 0;
+		for (List<Integer> indexes : slots.values()) {
+			List<byte[]> slotValues = responses.get(r++).get();
+			for (int i = 0; i < indexes.size(); i++) {
+				values[indexes.get(i)] = slotValues.get(i);
+			}
+		}
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * MSET over keys of several slots, one MSET per slot. Not atomic across slots, an error on one
+	 * slot is thrown after the other slots have been written.
+	 */
+	protected String scatterMset(final byte[]... keysvalues) {
+		Map<Integer, List<Integer>> slots = groupBySlot(keysvalues, 2);
+		JedisClusterPipeline pipeline = pipelined();
+		List<Response<String>> responses = new ArrayList<Response<String>>(slots.size());
+		for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+			byte[][] args = new byte[entry.getValue().size() * 2][];
+			int a = 0;
+			for (Integer index : entry.getValue()) {
+				args[a++] = keysvalues[index];
+				args[a++] = keysvalues[index + 1];
+			}
+			responses.add(pipeline.execute(entry.getKey(), BuilderFactory.STRING, Protocol.Command.MSET, args));
+		}
+		pipeline.sync();
+		String reply = null;
+		for (Response<String> response : responses) {
+			reply = response.get();
+		}
+		return reply;
+	}
+
+	/**
+	 * DEL or EXISTS over keys of several slots, one command per slot, returns the sum of the counts.
+	 */
+	protected Long scatterSum(final Protocol.Command command, final byte[]... keys) {
+		Map<Integer, List<Integer>> slots = groupBySlot(keys, 1);
+		JedisClusterPipeline pipeline = pipelined();
+		List<Response<Long>> responses = new ArrayList<Response<Long>>(slots.size());
+		for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+			byte[][] args = new byte[entry.getValue().size()][];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = keys[entry.getValue().get(i)];
+			}
+			responses.add(pipeline.execute(entry.getKey(), BuilderFactory.LONG, command, args));
+		}
+		pipeline.sync();
+		long sum = 0;
+		for (Response<Long> response : responses) {
+			sum += response.get();
+		}
+		return sum;
+	}
+
+	private ExecutorService getPipelineExecutor() {
+		ExecutorService executor = pipelineExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = pipelineExecutor;
+				if (executor == null) {
+					final AtomicInteger threadIndex = new AtomicInteger();
+					int threads = Runtime.getRuntime().availableProcessors();
+					executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+							new LinkedBlockingQueue<Runnable>(1024), new ThreadFactory() {
+								@Override
+								public Thread newThread(Runnable r) {
+									Thread thread = new Thread(r, "jedis-cluster-pipeline-" + threadIndex.incrementAndGet());
+									thread.setDaemon(true);
+									return thread;
+								}
+							}, new ThreadPoolExecutor.CallerRunsPolicy());
+					((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+					pipelineExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Read-from-replica mode: read commands go to the replica chosen by the selector, null turns it
+	 * off. Replica reads may be stale by the replication lag.
+	 */
+	public void setReplicaSelector(ReplicaSelector replicaSelector) {
+		connectionHandler.setReplicaSelector(replicaSelector);
+	}
+
+	public ReplicaSelector getReplicaSelector() {
+		return connectionHandler.getReplicaSelector();
+	}
+
 	public Map<String, JedisPool> getClusterNodes() {
 		return connectionHandler.getNodes();
 	}
@@ -102,7 +266,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] get(final byte[] key) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.get(key);
@@ -112,7 +276,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Boolean exists(final byte[] key) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.exists(key);
@@ -122,7 +286,10 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long exists(final byte[]... keys) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterSum(Protocol.Command.EXISTS, keys);
+		}
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.exists(keys);
@@ -142,7 +309,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public String type(final byte[] key) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.type(key);
@@ -192,7 +359,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long ttl(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.ttl(key);
@@ -222,7 +389,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Boolean getbit(final byte[] key, final long offset) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.getbit(key, offset);
@@ -242,7 +409,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] getrange(final byte[] key, final long startOffset, final long endOffset) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.getrange(key, startOffset, endOffset);
@@ -352,7 +519,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] substr(final byte[] key, final int start, final int end) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.substr(key, start, end);
@@ -372,7 +539,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] hget(final byte[] key, final byte[] field) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.hget(key, field);
@@ -402,7 +569,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
-		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<byte[]> execute(Jedis connection) {
 				return connection.hmget(key, fields);
@@ -432,7 +599,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Boolean hexists(final byte[] key, final byte[] field) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.hexists(key, field);
@@ -452,7 +619,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long hlen(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.hlen(key);
@@ -462,7 +629,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> hkeys(final byte[] key) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.hkeys(key);
@@ -472,7 +639,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Collection<byte[]> hvals(final byte[] key) {
-		return new JedisClusterCommand<Collection<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Collection<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Collection<byte[]> execute(Jedis connection) {
 				return connection.hvals(key);
@@ -482,7 +649,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Map<byte[], byte[]> hgetAll(final byte[] key) {
-		return new JedisClusterCommand<Map<byte[], byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Map<byte[], byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Map<byte[], byte[]> execute(Jedis connection) {
 				return connection.hgetAll(key);
@@ -512,7 +679,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long llen(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.llen(key);
@@ -522,7 +689,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<byte[]> lrange(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<byte[]> execute(Jedis connection) {
 				return connection.lrange(key, start, end);
@@ -542,7 +709,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] lindex(final byte[] key, final long index) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.lindex(key, index);
@@ -602,7 +769,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> smembers(final byte[] key) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.smembers(key);
@@ -642,7 +809,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long scard(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.scard(key);
@@ -652,7 +819,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Boolean sismember(final byte[] key, final byte[] member) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.sismember(key, member);
@@ -662,7 +829,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public byte[] srandmember(final byte[] key) {
-		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<byte[]>(connectionHandler, maxAttempts, true) {
 			@Override
 			public byte[] execute(Jedis connection) {
 				return connection.srandmember(key);
@@ -672,7 +839,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long strlen(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.strlen(key);
@@ -722,7 +889,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrange(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrange(key, start, end);
@@ -762,7 +929,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zrank(final byte[] key, final byte[] member) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zrank(key, member);
@@ -772,7 +939,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zrevrank(final byte[] key, final byte[] member) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zrevrank(key, member);
@@ -782,7 +949,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrevrange(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrange(key, start, end);
@@ -792,7 +959,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrangeWithScores(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeWithScores(key, start, end);
@@ -802,7 +969,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrevrangeWithScores(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeWithScores(key, start, end);
@@ -812,7 +979,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zcard(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcard(key);
@@ -822,7 +989,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Double zscore(final byte[] key, final byte[] member) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.zscore(key, member);
@@ -852,7 +1019,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zcount(final byte[] key, final double min, final double max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcount(key, min, max);
@@ -862,7 +1029,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zcount(final byte[] key, final byte[] min, final byte[] max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcount(key, min, max);
@@ -872,7 +1039,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max);
@@ -882,7 +1049,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final byte[] min, final byte[] max) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max);
@@ -892,7 +1059,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final double max, final double min) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min);
@@ -903,7 +1070,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max, offset, count);
@@ -913,7 +1080,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min);
@@ -924,7 +1091,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrangeByScore(final byte[] key, final byte[] min, final byte[] max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max, offset, count);
@@ -935,7 +1102,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final double max, final double min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min, offset, count);
@@ -945,7 +1112,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max);
@@ -955,7 +1122,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min);
@@ -966,7 +1133,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -977,7 +1144,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min, offset, count);
@@ -987,7 +1154,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max);
@@ -997,7 +1164,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min);
@@ -1008,7 +1175,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -1019,7 +1186,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1030,7 +1197,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1121,7 +1288,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long bitcount(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.bitcount(key);
@@ -1131,7 +1298,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long bitcount(final byte[] key, final long start, final long end) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.bitcount(key, start, end);
@@ -1151,7 +1318,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public long pfcount(final byte[] key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.pfcount(key);
@@ -1161,7 +1328,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<byte[]> srandmember(final byte[] key, final int count) {
-		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<byte[]> execute(Jedis connection) {
 				return connection.srandmember(key, count);
@@ -1171,7 +1338,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long zlexcount(final byte[] key, final byte[] min, final byte[] max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zlexcount(key, min, max);
@@ -1181,7 +1348,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrangeByLex(final byte[] key, final byte[] min, final byte[] max) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByLex(key, min, max);
@@ -1192,7 +1359,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrangeByLex(final byte[] key, final byte[] min, final byte[] max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrangeByLex(key, min, max, offset, count);
@@ -1202,7 +1369,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Set<byte[]> zrevrangeByLex(final byte[] key, final byte[] max, final byte[] min) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByLex(key, max, min);
@@ -1213,7 +1380,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 	@Override
 	public Set<byte[]> zrevrangeByLex(final byte[] key, final byte[] max, final byte[] min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<byte[]> execute(Jedis connection) {
 				return connection.zrevrangeByLex(key, max, min, offset, count);
@@ -1343,6 +1510,9 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long del(final byte[]... keys) {
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterSum(Protocol.Command.DEL, keys);
+		}
 		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
 			@Override
 			public Long execute(Jedis connection) {
@@ -1373,7 +1543,10 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<byte[]> mget(final byte[]... keys) {
-		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterMget(keys);
+		}
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<byte[]> execute(Jedis connection) {
 				return connection.mget(keys);
@@ -1388,6 +1561,9 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 		for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
 			keys[keyIdx] = keysvalues[keyIdx * 2];
 		}
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterMset(keysvalues);
+		}
 
 		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
 			@Override
@@ -1655,7 +1831,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long pfcount(final byte[]... keys) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.pfcount(keys);
@@ -1893,7 +2069,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Double geodist(final byte[] key, final byte[] member1, final byte[] member2) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.geodist(key, member1, member2);
@@ -1903,7 +2079,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Double geodist(final byte[] key, final byte[] member1, final byte[] member2, final GeoUnit unit) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.geodist(key, member1, member2, unit);
@@ -1913,7 +2089,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<byte[]> geohash(final byte[] key, final byte[]... members) {
-		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<byte[]> execute(Jedis connection) {
 				return connection.geohash(key, members);
@@ -1923,7 +2099,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public List<GeoCoordinate> geopos(final byte[] key, final byte[]... members) {
-		return new JedisClusterCommand<List<GeoCoordinate>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<GeoCoordinate>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<GeoCoordinate> execute(Jedis connection) {
 				return connection.geopos(key, members);
@@ -2001,7 +2177,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<Map.Entry<byte[], byte[]>> hscan(final byte[] key, final byte[] cursor) {
-		return new JedisClusterCommand<ScanResult<Map.Entry<byte[], byte[]>>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Map.Entry<byte[], byte[]>>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Map.Entry<byte[], byte[]>> execute(Jedis connection) {
 				return connection.hscan(key, cursor);
@@ -2011,7 +2187,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<Map.Entry<byte[], byte[]>> hscan(final byte[] key, final byte[] cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<Map.Entry<byte[], byte[]>>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Map.Entry<byte[], byte[]>>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Map.Entry<byte[], byte[]>> execute(Jedis connection) {
 				return connection.hscan(key, cursor, params);
@@ -2021,7 +2197,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<byte[]> sscan(final byte[] key, final byte[] cursor) {
-		return new JedisClusterCommand<ScanResult<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<byte[]> execute(Jedis connection) {
 				return connection.sscan(key, cursor);
@@ -2031,7 +2207,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<byte[]> sscan(final byte[] key, final byte[] cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<byte[]>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<byte[]>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<byte[]> execute(Jedis connection) {
 				return connection.sscan(key, cursor, params);
@@ -2041,7 +2217,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<Tuple> zscan(final byte[] key, final byte[] cursor) {
-		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Tuple> execute(Jedis connection) {
 				return connection.zscan(key, cursor);
@@ -2051,7 +2227,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public ScanResult<Tuple> zscan(final byte[] key, final byte[] cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Tuple> execute(Jedis connection) {
 				return connection.zscan(key, cursor, params);
@@ -2071,7 +2247,7 @@ public class BinaryJedisCluster implements BasicCommands, BinaryJedisClusterComm
 
 	@Override
 	public Long hstrlen(final byte[] key, final byte[] field) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.hstrlen(key, field);
@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.Set;
 
 import redis.clients.util.JedisByteHashMap;
+import redis.clients.util.RedisInputStream;
 import redis.clients.util.SafeEncoder;
 
 public final class BuilderFactory {
@@ -473,4 +474,66 @@ public final class BuilderFactory {
 		throw new InstantiationError("Must not instantiate this class");
 	}
 
+
+	public static final StreamingBuilder<String> STREAMING_STRING = new StreamingBuilder<String>() {
+		@Override
+		public String build(RedisInputStream is) {
+			return Protocol.readStringReply(is);
+		}
+
+		@Override
+		public String toString() {
+			return "streaming string";
+		}
+	};
+
+	public static final StreamingBuilder<Double> STREAMING_DOUBLE = new StreamingBuilder<Double>() {
+		@Override
+		public Double build(RedisInputStream is) {
+			String asString = Protocol.readStringReply(is);
+			return asString == null ? null : Double.valueOf(asString);
+		}
+
+		@Override
+		public String toString() {
+			return "streaming double";
+		}
+	};
+
+	public static final StreamingBuilder<List<String>> STREAMING_STRING_LIST = new StreamingBuilder<List<String>>() {
+		@Override
+		public List<String> build(RedisInputStream is) {
+			final int num = Protocol.readMultiBulkHeader(is);
+			if (num == -1) {
+				return Collections.emptyList();
+			}
+			final List<String> result = new ArrayList<String>(num);
+			for (int i = 0; i < num; i++) {
+				result.add(Protocol.readStringReply(is));
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return "streaming List<String>";
+		}
+	};
+
+	public static final StreamingBuilder<Map<String, String>> STREAMING_STRING_MAP = new StreamingBuilder<Map<String, String>>() {
+		@Override
+		public Map<String, String> build(RedisInputStream is) {
+			final int num = Protocol.readMultiBulkHeader(is);
+			final Map<String, String> hash = new HashMap<String, String>(Math.max(num, 0) / 2, 1);
+			for (int i = 0; i < num; i += 2) {
+				hash.put(Protocol.readStringReply(is), Protocol.readStringReply(is));
+			}
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return "streaming Map<String, String>";
+		}
+	};
 }
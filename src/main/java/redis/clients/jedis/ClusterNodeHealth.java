@@ -0,0 +1,162 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per node health of a cluster, fed by the outcome of every {@link JedisClusterCommand}. Drives the
+ * random node choice of {@link JedisSlotBasedConnectionHandler#getConnection()} and whether a
+ * connection error should trigger a slot cache renewal. Nodes are keyed by "host:port".
+ */
+public class ClusterNodeHealth {
+
+	// weight of a new latency sample is 1 / 2^EWMA_SHIFT
+	private static final int EWMA_SHIFT = 3;
+
+	/**
+	 * Consecutive failures after which a node is skipped for random connections
+	 */
+	private int failureThreshold = 3;
+
+	/**
+	 * A skipped node is tried again after this long, and a node is only trusted without PING when it
+	 * succeeded within this long
+	 */
+	private long retryIntervalMillis = 5000;
+
+	/**
+	 * A connection error only renews the slot cache when the node had no success for this long
+	 */
+	private long renewQuietMillis = 2000;
+
+	private final ConcurrentMap<String, NodeStats> stats = new ConcurrentHashMap<String, NodeStats>();
+
+	private static final class NodeStats {
+		private final LongAdder successes = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+		private final AtomicLong latency = new AtomicLong(-1);
+		private volatile long lastSuccessNanos;
+		private volatile long lastFailureNanos;
+		private volatile boolean succeeded;
+	}
+
+	public void recordSuccess(String nodeKey, long nanos) {
+		NodeStats node = getStats(nodeKey);
+		node.successes.increment();
+		if (node.consecutiveFailures.get() != 0) {
+			node.consecutiveFailures.set(0);
+		}
+		node.lastSuccessNanos = System.nanoTime();
+		node.succeeded = true;
+		long current;
+		long updated;
+		do {
+			current = node.latency.get();
+			updated = current < 0 ? nanos : current + ((nanos - current) >> EWMA_SHIFT);
+		} while (!node.latency.compareAndSet(current, updated));
+	}
+
+	public void recordFailure(String nodeKey) {
+		NodeStats node = getStats(nodeKey);
+		node.failures.increment();
+		node.consecutiveFailures.incrementAndGet();
+		node.lastFailureNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return false while the node is failing, until retryIntervalMillis after its last failure
+	 */
+	public boolean isAvailable(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		return node == null || node.consecutiveFailures.get() < failureThreshold
+				|| elapsedMillis(node.lastFailureNanos) >= retryIntervalMillis;
+	}
+
+	/**
+	 * @return true when the last command on the node succeeded within retryIntervalMillis, such a node
+	 *         needs no PING before use
+	 */
+	public boolean isRecentlyHealthy(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		return node != null && node.succeeded && node.consecutiveFailures.get() == 0
+				&& elapsedMillis(node.lastSuccessNanos) < retryIntervalMillis;
+	}
+
+	/**
+	 * A timeout on a node that answered other commands a moment ago is not a topology change, renew
+	 * only when the node has been silent for renewQuietMillis
+	 *
+	 * @param nodeKey
+	 *            null when the failing node is unknown, always renews
+	 */
+	public boolean shouldRenewSlotCache(String nodeKey) {
+		if (nodeKey == null) {
+			return true;
+		}
+		NodeStats node = stats.get(nodeKey);
+		return node == null || !node.succeeded || elapsedMillis(node.lastSuccessNanos) >= renewQuietMillis;
+	}
+
+	/**
+	 * @return moving average latency in nanoseconds, -1 without samples
+	 */
+	public long getLatency(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		return node == null ? -1 : node.latency.get();
+	}
+
+	public long getSuccessCount(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		return node == null ? 0 : node.successes.sum();
+	}
+
+	public long getFailureCount(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		return node == null ? 0 : node.failures.sum();
+	}
+
+	private NodeStats getStats(String nodeKey) {
+		NodeStats node = stats.get(nodeKey);
+		if (node == null) {
+			node = new NodeStats();
+			NodeStats old = stats.putIfAbsent(nodeKey, node);
+			if (old != null) {
+				node = old;
+			}
+		}
+		return node;
+	}
+
+	private static long elapsedMillis(long sinceNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sinceNanos);
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	public void setFailureThreshold(int failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+
+	public long getRetryIntervalMillis() {
+		return retryIntervalMillis;
+	}
+
+	public void setRetryIntervalMillis(long retryIntervalMillis) {
+		this.retryIntervalMillis = retryIntervalMillis;
+	}
+
+	public long getRenewQuietMillis() {
+		return renewQuietMillis;
+	}
+
+	public void setRenewQuietMillis(long renewQuietMillis) {
+		this.renewQuietMillis = renewQuietMillis;
+	}
+}
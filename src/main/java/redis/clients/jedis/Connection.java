@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +22,7 @@ import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.util.RedisInputStream;
 import redis.clients.util.RedisOutputStream;
 import redis.clients.util.SafeEncoder;
+import redis.clients.util.SocketChannelTransport;
 
 public class Connection implements Closeable {
 
@@ -40,6 +42,15 @@ public class Connection implements Closeable {
 	private SSLSocketFactory sslSocketFactory;
 	private SSLParameters sslParameters;
 	private HostnameVerifier hostnameVerifier;
+	// decode GET/HGET/MGET/HMGET/HGETALL replies straight from the input buffer
+	private boolean streamingReplyFlag = false;
+	// use a blocking SocketChannel with a pooled direct write buffer instead of the socket streams
+	private boolean nioTransportFlag = false;
+	private SocketChannelTransport channelTransport;
+	// write ASKING ahead of every command, its reply is consumed ahead of the command's reply
+	private boolean askingFlag = false;
+	// ASKING replies still to be consumed
+	private int pendingAskingReplies = 0;
 
 	public Connection() {
 	}
@@ -89,6 +100,37 @@ public class Connection implements Closeable {
 		this.soTimeout = soTimeout;
 	}
 
+	public boolean isStreamingReplyFlag() {
+		return streamingReplyFlag;
+	}
+
+	public void setStreamingReplyFlag(boolean streamingReplyFlag) {
+		this.streamingReplyFlag = streamingReplyFlag;
+	}
+
+	public boolean isAskingFlag() {
+		return askingFlag;
+	}
+
+	/**
+	 * While set, every command is preceded by an ASKING in the same write, so a command redirected by
+	 * -ASK costs one round trip. Change it only when no reply is pending.
+	 */
+	public void setAskingFlag(boolean askingFlag) {
+		this.askingFlag = askingFlag;
+	}
+
+	public boolean isNioTransportFlag() {
+		return nioTransportFlag;
+	}
+
+	/**
+	 * Selects the SocketChannel transport for the next connect(), ignored for ssl connections
+	 */
+	public void setNioTransportFlag(boolean nioTransportFlag) {
+		this.nioTransportFlag = nioTransportFlag;
+	}
+
 	public boolean setTimeoutInfinite() {
 		try {
 			if (!isConnected()) {
@@ -127,6 +169,10 @@ public class Connection implements Closeable {
 	public boolean sendCommand(final ProtocolCommand cmd, final byte[]... args) {
 		try {
 			if (connect()) {
+				if (askingFlag) {
+					Protocol.sendCommand(outputStream, Command.ASKING, EMPTY_ARGS);
+					pendingAskingReplies++;
+				}
 				Protocol.sendCommand(outputStream, cmd, args);
 				pipelinedCommands++;
 				//logger.info(cmd.name());
@@ -157,6 +203,22 @@ public class Connection implements Closeable {
 		return false;
 	}
 
+	/*
+	 * Writes a command to the current socket without connecting, reconnecting or reading any error
+	 * line, for subclasses whose read side is owned by another thread.
+	 */
+	protected void writeCommand(final ProtocolCommand cmd, final byte[]... args) {
+		if (outputStream == null) {
+			throw new JedisConnectionException("Not connected to " + host + ":" + port);
+		}
+		try {
+			Protocol.sendCommand(outputStream, cmd, args);
+		} catch (JedisConnectionException ex) {
+			broken = true;
+			throw ex;
+		}
+	}
+
 	public String getHost() {
 		return host;
 	}
@@ -177,7 +239,7 @@ public class Connection implements Closeable {
 		boolean ret = true;
 		if (!isConnected()) {
 			try {
-				socket = new Socket();
+				socket = (nioTransportFlag && !ssl) ? SocketChannel.open().socket() : new Socket();
 				socket.setReuseAddress(true);
 				socket.setKeepAlive(true); 
 				// Will monitor the TCP connection is valid
@@ -203,8 +265,15 @@ public class Connection implements Closeable {
 							throw new JedisConnectionException(message);
 						}
 					}
-					outputStream = new RedisOutputStream(socket.getOutputStream());
-					inputStream = new RedisInputStream(socket.getInputStream());
+					if (socket.getChannel() != null) {
+						channelTransport = new SocketChannelTransport(socket.getChannel());
+						outputStream = new RedisOutputStream(channelTransport.getOutputStream());
+						inputStream = new RedisInputStream(channelTransport.getInputStream(),
+								SocketChannelTransport.READ_BUFFER_SIZE);
+					} else {
+						outputStream = new RedisOutputStream(socket.getOutputStream());
+						inputStream = new RedisInputStream(socket.getInputStream());
+					}
 					logger.info(" is success !");
 				}else {
 					ret = false;
@@ -236,6 +305,11 @@ public class Connection implements Closeable {
 				throw new JedisConnectionException(ex);
 			} finally {
 				closeQuietly(socket);
+				pendingAskingReplies = 0;
+				if (channelTransport != null) {
+					channelTransport.close();
+					channelTransport = null;
+				}
 				return true;
 			}
 		}
@@ -343,6 +417,23 @@ public class Connection implements Closeable {
      return responses;
     }
   
+	/**
+	 * Reads the next reply with a {@link StreamingBuilder}, decoding directly from the input buffer.
+	 */
+	public <T> T getStreamingReply(final StreamingBuilder<T> builder) {
+		flush();
+		pipelinedCommands--;
+		try {
+			if (pendingAskingReplies > 0) {
+				readAskingReply();
+			}
+			return builder.build(inputStream);
+		} catch (JedisConnectionException exc) {
+			broken = true;
+			throw exc;
+		}
+	}
+
 	public Object getOne() {
 		flush();
 		pipelinedCommands--;
@@ -353,6 +444,13 @@ public class Connection implements Closeable {
 		return broken;
 	}
 
+	/*
+	 * Marks the connection unusable, its pool destroys it instead of handing it out again
+	 */
+	void markBroken() {
+		broken = true;
+	}
+
 	protected void flush() {
 		try {
 			outputStream.flush();
@@ -364,6 +462,9 @@ public class Connection implements Closeable {
 
 	protected Object readProtocolWithCheckingBroken() {
 		try {
+			if (pendingAskingReplies > 0) {
+				readAskingReply();
+			}
 			return Protocol.read(inputStream);
 		} catch (JedisConnectionException exc) {
 			broken = true;
@@ -371,6 +472,19 @@ public class Connection implements Closeable {
 		}
 	}
 
+	/*
+	 * Consumes the reply of the ASKING written ahead of the next command. A failed ASKING leaves the
+	 * command's reply unread, so the connection can't be used any more.
+	 */
+	private void readAskingReply() {
+		pendingAskingReplies--;
+		try {
+			Protocol.read(inputStream);
+		} catch (JedisDataException e) {
+			throw new JedisConnectionException("ASKING failed: " + e.getMessage(), e);
+		}
+	}
+
 	public static void closeQuietly(Socket sock) {
 		// It's same thing as Apache Commons - IOUtils.closeQuietly()
 		if (sock != null) {
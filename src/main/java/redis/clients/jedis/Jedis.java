@@ -190,7 +190,7 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
 	public String get(final String key) {
 		checkIsInMultiOrPipeline(key);
 		client.sendCommand(Protocol.Command.GET, key);
-		return client.getBulkReply();
+		return getStringReply();
 	}
 
 	/**
@@ -502,7 +502,7 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
 	public List<String> mget(final String... keys) {
 		checkIsInMultiOrPipeline(keys);
 		client.mget(keys);
-		return client.getMultiBulkReply();
+		return getStringListReply();
 	}
 
 	/**
@@ -819,7 +819,7 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
 	public String hget(final String key, final String field) {
 		checkIsInMultiOrPipeline(key);
 		client.hget(key, field);
-		return client.getBulkReply();
+		return getStringReply();
 	}
 
 	/**
@@ -879,7 +879,7 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
 	public List<String> hmget(final String key, final String... fields) {
 		checkIsInMultiOrPipeline(key);
 		client.hmget(key, fields);
-		return client.getMultiBulkReply();
+		return getStringListReply();
 	}
 
 	/**
@@ -1025,9 +1025,30 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
 	public Map<String, String> hgetAll(final String key) {
 		checkIsInMultiOrPipeline(key);
 		client.hgetAll(key);
+		if (client.isStreamingReplyFlag()) {
+			return client.getStreamingReply(BuilderFactory.STREAMING_STRING_MAP);
+		}
 		return BuilderFactory.STRING_MAP.build(client.getBinaryMultiBulkReply());
 	}
 
+	/*
+	 * Bulk reply as String, nil is returned as "" like Connection.getBulkReply
+	 */
+	private String getStringReply() {
+		if (client.isStreamingReplyFlag()) {
+			String reply = client.getStreamingReply(BuilderFactory.STREAMING_STRING);
+			return reply == null ? "" : reply;
+		}
+		return client.getBulkReply();
+	}
+
+	private List<String> getStringListReply() {
+		if (client.isStreamingReplyFlag()) {
+			return client.getStreamingReply(BuilderFactory.STREAMING_STRING_LIST);
+		}
+		return client.getMultiBulkReply();
+	}
+
 	/**
 	 * Add the string value to the head (LPUSH) or tail (RPUSH) of the list stored
 	 * at key. If the key does not exist an empty list is created just before the
@@ -1,5 +1,6 @@
 package redis.clients.jedis;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import redis.clients.jedis.BinaryClient.LIST_POSITION;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 import redis.clients.jedis.params.sortedset.ZIncrByParams;
 import redis.clients.jedis.params.geo.GeoRadiusParam;
+import redis.clients.util.JedisClusterCRC16;
 import redis.clients.util.JedisClusterHashTagUtil;
 import redis.clients.util.KeyMergeUtil;
 import redis.clients.util.SafeEncoder;
@@ -19,6 +21,19 @@ import redis.clients.util.SafeEncoder;
 public class JedisCluster extends BinaryJedisCluster
 		implements JedisCommands, MultiKeyJedisClusterCommands, JedisClusterScriptingCommands {
 
+	protected static boolean isSameSlot(int keyCount, String... keys) {
+		if (keyCount <= 1) {
+			return true;
+		}
+		int slot = JedisClusterCRC16.getSlot(keys[0]);
+		for (int i = 1; i < keyCount; i++) {
+			if (JedisClusterCRC16.getSlot(keys[i]) != slot) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public static enum Reset {
 		SOFT, HARD
 	}
@@ -124,7 +139,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String get(final String key) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.get(key);
@@ -134,7 +149,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Boolean exists(final String key) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.exists(key);
@@ -144,7 +159,10 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long exists(final String... keys) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterSum(Protocol.Command.EXISTS, SafeEncoder.encodeMany(keys));
+		}
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.exists(keys);
@@ -164,7 +182,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String type(final String key) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.type(key);
@@ -214,7 +232,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long ttl(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.ttl(key);
@@ -224,7 +242,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long pttl(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.pttl(key);
@@ -254,7 +272,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Boolean getbit(final String key, final long offset) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.getbit(key, offset);
@@ -274,7 +292,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String getrange(final String key, final long startOffset, final long endOffset) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.getrange(key, startOffset, endOffset);
@@ -384,7 +402,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String substr(final String key, final int start, final int end) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.substr(key, start, end);
@@ -404,7 +422,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String hget(final String key, final String field) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.hget(key, field);
@@ -434,7 +452,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> hmget(final String key, final String... fields) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.hmget(key, fields);
@@ -464,7 +482,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Boolean hexists(final String key, final String field) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.hexists(key, field);
@@ -484,7 +502,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long hlen(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.hlen(key);
@@ -494,7 +512,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> hkeys(final String key) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.hkeys(key);
@@ -504,7 +522,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> hvals(final String key) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.hvals(key);
@@ -514,7 +532,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Map<String, String> hgetAll(final String key) {
-		return new JedisClusterCommand<Map<String, String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Map<String, String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Map<String, String> execute(Jedis connection) {
 				return connection.hgetAll(key);
@@ -544,7 +562,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long llen(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.llen(key);
@@ -554,7 +572,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> lrange(final String key, final long start, final long end) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.lrange(key, start, end);
@@ -574,7 +592,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String lindex(final String key, final long index) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.lindex(key, index);
@@ -634,7 +652,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> smembers(final String key) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.smembers(key);
@@ -674,7 +692,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long scard(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.scard(key);
@@ -684,7 +702,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Boolean sismember(final String key, final String member) {
-		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Boolean>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Boolean execute(Jedis connection) {
 				return connection.sismember(key, member);
@@ -694,7 +712,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public String srandmember(final String key) {
-		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<String>(connectionHandler, maxAttempts, true) {
 			@Override
 			public String execute(Jedis connection) {
 				return connection.srandmember(key);
@@ -704,7 +722,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> srandmember(final String key, final int count) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.srandmember(key, count);
@@ -714,7 +732,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long strlen(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.strlen(key);
@@ -764,7 +782,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrange(final String key, final long start, final long end) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrange(key, start, end);
@@ -804,7 +822,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zrank(final String key, final String member) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zrank(key, member);
@@ -814,7 +832,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zrevrank(final String key, final String member) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zrevrank(key, member);
@@ -824,7 +842,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrevrange(final String key, final long start, final long end) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrange(key, start, end);
@@ -834,7 +852,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrangeWithScores(final String key, final long start, final long end) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeWithScores(key, start, end);
@@ -844,7 +862,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeWithScores(key, start, end);
@@ -854,7 +872,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zcard(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcard(key);
@@ -864,7 +882,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Double zscore(final String key, final String member) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.zscore(key, member);
@@ -894,7 +912,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zcount(final String key, final double min, final double max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcount(key, min, max);
@@ -904,7 +922,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zcount(final String key, final String min, final String max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zcount(key, min, max);
@@ -914,7 +932,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrangeByScore(final String key, final double min, final double max) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max);
@@ -924,7 +942,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrangeByScore(final String key, final String min, final String max) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max);
@@ -934,7 +952,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min);
@@ -945,7 +963,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max, offset, count);
@@ -955,7 +973,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min);
@@ -966,7 +984,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrangeByScore(final String key, final String min, final String max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByScore(key, min, max, offset, count);
@@ -977,7 +995,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min, offset, count);
@@ -987,7 +1005,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max);
@@ -997,7 +1015,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min);
@@ -1008,7 +1026,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -1019,7 +1037,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByScore(key, max, min, offset, count);
@@ -1029,7 +1047,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max);
@@ -1039,7 +1057,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min);
@@ -1050,7 +1068,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrangeByScoreWithScores(key, min, max, offset, count);
@@ -1061,7 +1079,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1072,7 +1090,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<Tuple> execute(Jedis connection) {
 				return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
@@ -1112,7 +1130,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long zlexcount(final String key, final String min, final String max) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.zlexcount(key, min, max);
@@ -1122,7 +1140,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrangeByLex(final String key, final String min, final String max) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByLex(key, min, max);
@@ -1133,7 +1151,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrangeByLex(final String key, final String min, final String max, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrangeByLex(key, min, max, offset, count);
@@ -1143,7 +1161,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Set<String> zrevrangeByLex(final String key, final String max, final String min) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByLex(key, max, min);
@@ -1154,7 +1172,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Override
 	public Set<String> zrevrangeByLex(final String key, final String max, final String min, final int offset,
 			final int count) {
-		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Set<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Set<String> execute(Jedis connection) {
 				return connection.zrevrangeByLex(key, max, min, offset, count);
@@ -1225,7 +1243,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long bitcount(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.bitcount(key);
@@ -1235,7 +1253,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long bitcount(final String key, final long start, final long end) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.bitcount(key, start, end);
@@ -1289,7 +1307,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<Entry<String, String>> hscan(final String key, final String cursor) {
-		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Entry<String, String>> execute(Jedis connection) {
 				return connection.hscan(key, cursor);
@@ -1299,7 +1317,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<Entry<String, String>> hscan(final String key, final String cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Entry<String, String>> execute(Jedis connection) {
 				return connection.hscan(key, cursor, params);
@@ -1309,7 +1327,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<String> sscan(final String key, final String cursor) {
-		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<String> execute(Jedis connection) {
 				return connection.sscan(key, cursor);
@@ -1319,7 +1337,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<String> sscan(final String key, final String cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<String> execute(Jedis connection) {
 				return connection.sscan(key, cursor, params);
@@ -1329,7 +1347,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<Tuple> zscan(final String key, final String cursor) {
-		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Tuple> execute(Jedis connection) {
 				return connection.zscan(key, cursor);
@@ -1339,7 +1357,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public ScanResult<Tuple> zscan(final String key, final String cursor, final ScanParams params) {
-		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Tuple> execute(Jedis connection) {
 				return connection.zscan(key, cursor, params);
@@ -1359,7 +1377,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public long pfcount(final String key) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.pfcount(key);
@@ -1389,6 +1407,9 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long del(final String... keys) {
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterSum(Protocol.Command.DEL, SafeEncoder.encodeMany(keys));
+		}
 		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
 			@Override
 			public Long execute(Jedis connection) {
@@ -1420,7 +1441,15 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> mget(final String... keys) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		if (!isSameSlot(keys.length, keys)) {
+			List<byte[]> values = scatterMget(SafeEncoder.encodeMany(keys));
+			List<String> result = new ArrayList<String>(values.size());
+			for (byte[] value : values) {
+				result.add(value == null ? null : SafeEncoder.encode(value));
+			}
+			return result;
+		}
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.mget(keys);
@@ -1435,6 +1464,9 @@ public class JedisCluster extends BinaryJedisCluster
 		for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
 			keys[keyIdx] = keysvalues[keyIdx * 2];
 		}
+		if (!isSameSlot(keys.length, keys)) {
+			return scatterMset(SafeEncoder.encodeMany(keysvalues));
+		}
 
 		return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
 			@Override
@@ -1702,7 +1734,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public long pfcount(final String... keys) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.pfcount(keys);
@@ -1867,7 +1899,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Deprecated
 	@Override
 	public ScanResult<Entry<String, String>> hscan(final String key, final int cursor) {
-		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Entry<String, String>>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Entry<String, String>> execute(Jedis connection) {
 				return connection.hscan(key, cursor);
@@ -1884,7 +1916,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Deprecated
 	@Override
 	public ScanResult<String> sscan(final String key, final int cursor) {
-		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<String> execute(Jedis connection) {
 				return connection.sscan(key, cursor);
@@ -1901,7 +1933,7 @@ public class JedisCluster extends BinaryJedisCluster
 	@Deprecated
 	@Override
 	public ScanResult<Tuple> zscan(final String key, final int cursor) {
-		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<ScanResult<Tuple>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public ScanResult<Tuple> execute(Jedis connection) {
 				return connection.zscan(key, cursor);
@@ -1931,7 +1963,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Double geodist(final String key, final String member1, final String member2) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.geodist(key, member1, member2);
@@ -1941,7 +1973,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Double geodist(final String key, final String member1, final String member2, final GeoUnit unit) {
-		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Double>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Double execute(Jedis connection) {
 				return connection.geodist(key, member1, member2, unit);
@@ -1951,7 +1983,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<String> geohash(final String key, final String... members) {
-		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<String> execute(Jedis connection) {
 				return connection.geohash(key, members);
@@ -1961,7 +1993,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public List<GeoCoordinate> geopos(final String key, final String... members) {
-		return new JedisClusterCommand<List<GeoCoordinate>>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<List<GeoCoordinate>>(connectionHandler, maxAttempts, true) {
 			@Override
 			public List<GeoCoordinate> execute(Jedis connection) {
 				return connection.geopos(key, members);
@@ -2025,7 +2057,7 @@ public class JedisCluster extends BinaryJedisCluster
 
 	@Override
 	public Long hstrlen(final String key, final String field) {
-		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
+		return new JedisClusterCommand<Long>(connectionHandler, maxAttempts, true) {
 			@Override
 			public Long execute(Jedis connection) {
 				return connection.hstrlen(key, field);
@@ -14,11 +14,20 @@ public abstract class JedisClusterCommand<T> {
 
 	private JedisClusterConnectionHandler connectionHandler;
 	private int maxAttempts;
+	// read commands may be served by a replica
+	private boolean readOnly;
+	// set after a replica failed, the retries of this command read from the master
+	private boolean readFromMaster;
 	private ThreadLocal<Jedis> askConnection = new ThreadLocal<Jedis>();
 
 	public JedisClusterCommand(JedisClusterConnectionHandler connectionHandler, int maxAttempts) {
+		this(connectionHandler, maxAttempts, false);
+	}
+
+	public JedisClusterCommand(JedisClusterConnectionHandler connectionHandler, int maxAttempts, boolean readOnly) {
 		this.connectionHandler = connectionHandler;
 		this.maxAttempts = maxAttempts;
+		this.readOnly = readOnly;
 	}
 
 	public abstract T execute(Jedis connection);
@@ -102,26 +111,47 @@ public abstract class JedisClusterCommand<T> {
 		try {
 
 			if (asking) {
-				// TODO: Pipeline asking with the original command to make it
-				// faster....
+				// ASKING is written ahead of each command of execute() (WATCH included) in the same
+				// round trip, its reply is checked before the command's reply
 				connection = askConnection.get();
-				connection.asking();
+				connection.getClient().setAskingFlag(true);
 
-				// if asking success, reset asking flag
 				asking = false;
 			} else {
 				if (tryRandomNode) {
 					connection = connectionHandler.getConnection();
+				} else if (readOnly && !readFromMaster && connectionHandler.getReplicaSelector() != null) {
+					connection = connectionHandler.getReadConnectionFromSlot(JedisClusterCRC16.getSlot(key));
 				} else {
 					connection = connectionHandler.getConnectionFromSlot(JedisClusterCRC16.getSlot(key));
 				}
 			}
 
-			return execute(connection);
+			long start = System.nanoTime();
+			T result = execute(connection);
+			long nanos = System.nanoTime() - start;
+			String nodeKey = JedisClusterInfoCache.getNodeKey(connection);
+			connectionHandler.getNodeHealth().recordSuccess(nodeKey, nanos);
+			ReplicaSelector selector = readOnly ? connectionHandler.getReplicaSelector() : null;
+			if (selector != null) {
+				selector.recordLatency(nodeKey, nanos);
+			}
+			return result;
 
 		} catch (JedisNoReachableClusterNodeException jnrcne) {
 			throw jnrcne;
 		} catch (JedisConnectionException jce) {
+			// a failed connect is recorded by the connection handler, for masters and replicas, and a
+			// replica that can't be connected already fell back to the master there
+			String nodeKey = null;
+			if (connection != null) {
+				nodeKey = JedisClusterInfoCache.getNodeKey(connection);
+				connectionHandler.getNodeHealth().recordFailure(nodeKey);
+				if (readOnly) {
+					// don't retry on the same replica
+					readFromMaster = true;
+				}
+			}
 			// release current connection before recursion
 			releaseConnection(connection);
 			connection = null;
@@ -132,10 +162,10 @@ public abstract class JedisClusterCommand<T> {
 				// or we can stuck with cluster state without one node in opposite case.
 				// But now if maxAttempts = 1 or 2 we will do it too often. For each time-outed
 				// request.
-				// TODO make tracking of successful/unsuccessful operations for node - do
-				// renewing only
-				// if there were no successful responses from this node last few seconds
-				this.connectionHandler.renewSlotCache();
+				// renewing only if there were no successful responses from this node last few seconds
+				if (connectionHandler.getNodeHealth().shouldRenewSlotCache(nodeKey)) {
+					this.connectionHandler.renewSlotCache();
+				}
 
 				// no more redirections left, throw original exception, not
 				// JedisClusterMaxRedirectionsException, because it's not MOVED situation
@@ -147,8 +177,9 @@ public abstract class JedisClusterCommand<T> {
 			// if MOVED redirection occurred,
 			if (jre instanceof JedisMovedDataException) {
 				// it rebuilds cluster's slot cache
-				// recommended by Redis cluster specification
-				this.connectionHandler.renewSlotCache(connection);
+				// recommended by Redis cluster specification, the moved slot is patched at once and
+				// the rebuild runs in the background
+				this.connectionHandler.renewSlotCacheAsync(jre.getSlot(), jre.getTargetNode());
 			}
 
 			// release current connection before recursion or renewing
@@ -171,6 +202,7 @@ public abstract class JedisClusterCommand<T> {
 
 	private void releaseConnection(Jedis connection) {
 		if (connection != null) {
+			connection.getClient().setAskingFlag(false);
 			connection.close();
 		}
 	}
@@ -1,14 +1,31 @@
 package redis.clients.jedis;
 
 import java.io.Closeable;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import redis.clients.common.utils.Loggers;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
 public abstract class JedisClusterConnectionHandler implements Closeable {
+	protected static Logger logger = Loggers.jedisLogger;
 	protected final JedisClusterInfoCache cache;
+	// null keeps every read on the masters
+	private volatile ReplicaSelector replicaSelector;
+	protected final ClusterNodeHealth nodeHealth = new ClusterNodeHealth();
+	// background CLUSTER SLOTS refresh after MOVED, created on first use
+	private volatile ExecutorService slotRefresher;
+	private final AtomicBoolean slotRefreshPending = new AtomicBoolean(false);
 
 	public JedisClusterConnectionHandler(Set<HostAndPort> nodes, final GenericObjectPoolConfig poolConfig,
 			int connectionTimeout, int soTimeout, String password) {
@@ -25,6 +42,98 @@ public abstract class JedisClusterConnectionHandler implements Closeable {
 
 	abstract Jedis getConnectionFromSlot(int slot);
 
+	/**
+	 * Connection for a read command, from the replica chosen by the ReplicaSelector when replica reads
+	 * are enabled and the slot has replicas, otherwise from the slot's master. Replicas that
+	 * ClusterNodeHealth reports as failing are not offered to the selector, and a replica that can't
+	 * be connected is recorded as failed and the read falls back to the master.
+	 */
+	Jedis getReadConnectionFromSlot(int slot) {
+		ReplicaSelector selector = replicaSelector;
+		if (selector != null) {
+			JedisClusterInfoCache.SlotReplicas replicas = cache.getSlotReplicas(slot);
+			if (replicas != null) {
+				replicas = availableReplicas(replicas);
+			}
+			if (replicas != null) {
+				int index = selector.select(slot, replicas.nodeKeys);
+				if (index >= 0) {
+					try {
+						return replicas.pools[index].getResource();
+					} catch (JedisConnectionException e) {
+						nodeHealth.recordFailure(replicas.nodeKeys[index]);
+						logger.warn("JedisCluster replica connection failed node={}, reading from master err={}",
+								replicas.nodeKeys[index], e.toString());
+					}
+				}
+			}
+		}
+		return getConnectionFromSlot(slot);
+	}
+
+	/*
+	 * The slot's replicas without the failing ones, null when none is left
+	 */
+	private JedisClusterInfoCache.SlotReplicas availableReplicas(JedisClusterInfoCache.SlotReplicas replicas) {
+		int count = replicas.nodeKeys.length;
+		boolean[] availableFlags = null;
+		int available = count;
+		for (int i = 0; i < count; i++) {
+			if (!nodeHealth.isAvailable(replicas.nodeKeys[i])) {
+				if (availableFlags == null) {
+					availableFlags = new boolean[count];
+					Arrays.fill(availableFlags, true);
+				}
+				availableFlags[i] = false;
+				available--;
+			}
+		}
+		if (availableFlags == null) {
+			return replicas;
+		}
+		if (available == 0) {
+			return null;
+		}
+		String[] nodeKeys = new String[available];
+		JedisPool[] pools = new JedisPool[available];
+		int j = 0;
+		for (int i = 0; i < count; i++) {
+			if (availableFlags[i]) {
+				nodeKeys[j] = replicas.nodeKeys[i];
+				pools[j] = replicas.pools[i];
+				j++;
+			}
+		}
+		return new JedisClusterInfoCache.SlotReplicas(nodeKeys, pools);
+	}
+
+	public ClusterNodeHealth getNodeHealth() {
+		return nodeHealth;
+	}
+
+	public ReplicaSelector getReplicaSelector() {
+		return replicaSelector;
+	}
+
+	/**
+	 * Enables reads from replicas, null sends all reads to the masters again. Replica reads may be
+	 * stale by the replication lag. The replica pools are built by a slot cache renewal when replica
+	 * reads are enabled and destroyed when they are disabled, reads go to the masters until then.
+	 */
+	public void setReplicaSelector(ReplicaSelector replicaSelector) {
+		boolean enable = replicaSelector != null && !cache.isReplicaReadFlag();
+		if (replicaSelector == null) {
+			this.replicaSelector = null;
+			cache.setReplicaReadFlag(false);
+			return;
+		}
+		cache.setReplicaReadFlag(true);
+		this.replicaSelector = replicaSelector;
+		if (enable) {
+			renewSlotCache();
+		}
+	}
+
 	public Jedis getConnectionFromNode(HostAndPort node) {
 		return cache.setupNodeIfNotExist(node).getResource();
 	}
@@ -64,8 +173,64 @@ public abstract class JedisClusterConnectionHandler implements Closeable {
 		cache.renewClusterSlots(jedis);
 	}
 
+	/**
+	 * Handles a MOVED redirection without blocking the caller: the moved slot is pointed at its new
+	 * owner at once and a full slot cache renewal is scheduled in the background. Renewals requested
+	 * before the scheduled one starts are coalesced into it.
+	 */
+	public void renewSlotCacheAsync(int movedSlot, HostAndPort targetNode) {
+		cache.assignSlotToNode(movedSlot, targetNode);
+		if (!slotRefreshPending.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			getSlotRefresher().execute(new Runnable() {
+				@Override
+				public void run() {
+					// cleared before the refresh, a MOVED seen meanwhile schedules one more
+					slotRefreshPending.set(false);
+					try {
+						renewSlotCache();
+					} catch (RuntimeException e) {
+						logger.error("JedisCluster slot cache renew error err={}", e.toString());
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// closed
+			slotRefreshPending.set(false);
+		}
+	}
+
+	private ExecutorService getSlotRefresher() {
+		ExecutorService executor = slotRefresher;
+		if (executor == null) {
+			synchronized (this) {
+				executor = slotRefresher;
+				if (executor == null) {
+					executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+							new ThreadFactory() {
+								@Override
+								public Thread newThread(Runnable r) {
+									Thread thread = new Thread(r, "jedis-cluster-slot-refresh");
+									thread.setDaemon(true);
+									return thread;
+								}
+							});
+					((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+					slotRefresher = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
 	@Override
 	public void close() {
+		ExecutorService executor = slotRefresher;
+		if (executor != null) {
+			executor.shutdownNow();
+		}
 		cache.reset();
 	}
 }
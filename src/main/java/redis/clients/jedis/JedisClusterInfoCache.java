@@ -1,10 +1,12 @@
 package redis.clients.jedis;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -20,12 +22,23 @@ import redis.clients.util.SafeEncoder;
 
 public class JedisClusterInfoCache {
 	private final Map<String, JedisPool> nodes = new HashMap<String, JedisPool>();
-	private final Map<Integer, JedisPool> slots = new HashMap<Integer, JedisPool>();
+	// slot -> owner, an immutable snapshot replaced as a whole under the write lock and read without locking
+	private volatile JedisPool[] slots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+	// READONLY pools of replica nodes, used by the read-from-replica mode
+	private final Map<String, JedisPool> replicaNodes = new HashMap<String, JedisPool>();
+	// slot -> replicas, published together with slots, null for slots without replicas
+	private volatile SlotReplicas[] replicaSlots = new SlotReplicas[BinaryJedisCluster.HASHSLOTS];
+	// replica pools are only built while the read-from-replica mode is enabled
+	private volatile boolean replicaReadFlag;
 
 	private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
 	private final Lock r = rwl.readLock();
 	private final Lock w = rwl.writeLock();
-	private volatile boolean rediscovering;
+	private final AtomicBoolean rediscovering = new AtomicBoolean(false);
+	// bumped by every MOVED patch, a renewal keeps the slots patched after its CLUSTER SLOTS was sent
+	private volatile long patchSeq;
+	// slot -> patchSeq of its last MOVED patch, guarded by the write lock
+	private final long[] slotPatchSeq = new long[BinaryJedisCluster.HASHSLOTS];
 	private final GenericObjectPoolConfig poolConfig;
 
 	private int connectionTimeout;
@@ -35,6 +48,19 @@ public class JedisClusterInfoCache {
 
 	private static final int MASTER_NODE_INDEX = 2;
 
+	/**
+	 * Replicas of a slot range, shared by all slots of the range
+	 */
+	static final class SlotReplicas {
+		final String[] nodeKeys;
+		final JedisPool[] pools;
+
+		SlotReplicas(String[] nodeKeys, JedisPool[] pools) {
+			this.nodeKeys = nodeKeys;
+			this.pools = pools;
+		}
+	}
+
 	public JedisClusterInfoCache(final GenericObjectPoolConfig poolConfig, int timeout) {
 		this(poolConfig, timeout, timeout, null, null);
 	}
@@ -54,6 +80,8 @@ public class JedisClusterInfoCache {
 		try {
 			reset();
 			List<Object> slots = jedis.clusterSlots();
+			JedisPool[] newSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+			SlotReplicas[] newReplicaSlots = new SlotReplicas[BinaryJedisCluster.HASHSLOTS];
 
 			for (Object slotInfoObj : slots) {
 				List<Object> slotInfo = (List<Object>) slotInfoObj;
@@ -62,8 +90,6 @@ public class JedisClusterInfoCache {
 					continue;
 				}
 
-				List<Integer> slotNums = getAssignedSlotArray(slotInfo);
-
 				// hostInfos
 				int size = slotInfo.size();
 				for (int i = MASTER_NODE_INDEX; i < size; i++) {
@@ -73,76 +99,179 @@ public class JedisClusterInfoCache {
 					}
 
 					HostAndPort targetNode = generateHostAndPort(hostInfos);
-					setupNodeIfNotExist(targetNode);
+					JedisPool targetPool = setupNodeIfNotExist(targetNode);
 					if (i == MASTER_NODE_INDEX) {
-						assignSlotsToNode(slotNums, targetNode);
+						fillSlots(newSlots, slotInfo, targetPool);
 					}
 				}
+				fillSlots(newReplicaSlots, slotInfo, buildReplicas(slotInfo));
 			}
+			this.slots = newSlots;
+			this.replicaSlots = newReplicaSlots;
 		} finally {
 			w.unlock();
 		}
 	}
 
+	/**
+	 * Reloads the slot table. CLUSTER SLOTS and any connect timeout run without the lock, so MOVED
+	 * handlers patching slots meanwhile are never blocked, the lock is only held to publish the new
+	 * table. Slots patched after CLUSTER SLOTS was sent keep their patch, the reply may predate it.
+	 */
 	public void renewClusterSlots(Jedis jedis) {
 		// If rediscovering is already in process - no need to start one more same
 		// rediscovering, just return
-		if (!rediscovering) {
-			try {
-				w.lock();
-				rediscovering = true;
-
-				if (jedis != null) {
-					try {
-						discoverClusterSlots(jedis);
-						return;
-					} catch (JedisException e) {
-						// try nodes from all pools
-					}
+		if (!rediscovering.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long startSeq = patchSeq;
+			List<Object> slotsReply = null;
+			if (jedis != null) {
+				try {
+					slotsReply = jedis.clusterSlots();
+				} catch (JedisException e) {
+					// try nodes from all pools
 				}
-
+			}
+			if (slotsReply == null) {
 				for (JedisPool jp : getShuffledNodesPool()) {
+					Jedis node = null;
 					try {
-						jedis = jp.getResource();
-						discoverClusterSlots(jedis);
-						return;
+						node = jp.getResource();
+						slotsReply = node.clusterSlots();
+						break;
 					} catch (JedisConnectionException e) {
 						// try next nodes
 					} finally {
-						if (jedis != null) {
-							jedis.close();
+						if (node != null) {
+							node.close();
 						}
 					}
 				}
-			} finally {
-				rediscovering = false;
-				w.unlock();
 			}
+			if (slotsReply != null) {
+				discoverClusterSlots(slotsReply, startSeq);
+			}
+		} finally {
+			rediscovering.set(false);
 		}
 	}
 
-	private void discoverClusterSlots(Jedis jedis) {
-		List<Object> slots = jedis.clusterSlots();
-		this.slots.clear();
+	private void discoverClusterSlots(List<Object> slotsReply, long startSeq) {
+		// built aside and published at once, readers never see a half filled table
+		JedisPool[] newSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+		SlotReplicas[] newReplicaSlots = new SlotReplicas[BinaryJedisCluster.HASHSLOTS];
 
-		for (Object slotInfoObj : slots) {
+		for (Object slotInfoObj : slotsReply) {
 			List<Object> slotInfo = (List<Object>) slotInfoObj;
 
 			if (slotInfo.size() <= MASTER_NODE_INDEX) {
 				continue;
 			}
 
-			List<Integer> slotNums = getAssignedSlotArray(slotInfo);
-
 			// hostInfos
 			List<Object> hostInfos = (List<Object>) slotInfo.get(MASTER_NODE_INDEX);
 			if (hostInfos.isEmpty()) {
 				continue;
 			}
 
-			// at this time, we just use master, discard slave information
 			HostAndPort targetNode = generateHostAndPort(hostInfos);
-			assignSlotsToNode(slotNums, targetNode);
+			fillSlots(newSlots, slotInfo, setupNodeIfNotExist(targetNode));
+			fillSlots(newReplicaSlots, slotInfo, buildReplicas(slotInfo));
+		}
+		w.lock();
+		try {
+			if (patchSeq != startSeq) {
+				JedisPool[] current = slots;
+				for (int slot = 0; slot < newSlots.length; slot++) {
+					if (slotPatchSeq[slot] > startSeq) {
+						newSlots[slot] = current[slot];
+					}
+				}
+			}
+			this.slots = newSlots;
+			this.replicaSlots = newReplicaSlots;
+		} finally {
+			w.unlock();
+		}
+	}
+
+	/*
+	 * Replicas listed after the master in a CLUSTER SLOTS entry, null when there are none or the
+	 * read-from-replica mode is disabled
+	 */
+	private SlotReplicas buildReplicas(List<Object> slotInfo) {
+		if (!replicaReadFlag) {
+			return null;
+		}
+		List<String> nodeKeys = new ArrayList<String>();
+		List<JedisPool> pools = new ArrayList<JedisPool>();
+		for (int i = MASTER_NODE_INDEX + 1; i < slotInfo.size(); i++) {
+			List<Object> hostInfos = (List<Object>) slotInfo.get(i);
+			if (hostInfos.isEmpty()) {
+				continue;
+			}
+			HostAndPort replica = generateHostAndPort(hostInfos);
+			nodeKeys.add(getNodeKey(replica));
+			pools.add(setupReplicaNodeIfNotExist(replica));
+		}
+		if (pools.isEmpty()) {
+			return null;
+		}
+		return new SlotReplicas(nodeKeys.toArray(new String[nodeKeys.size()]),
+				pools.toArray(new JedisPool[pools.size()]));
+	}
+
+	public boolean isReplicaReadFlag() {
+		return replicaReadFlag;
+	}
+
+	/**
+	 * Enables building the READONLY replica pools on the next slot discovery. Disabling destroys
+	 * the replica pools at once.
+	 */
+	public void setReplicaReadFlag(boolean replicaReadFlag) {
+		this.replicaReadFlag = replicaReadFlag;
+		if (replicaReadFlag) {
+			return;
+		}
+		w.lock();
+		try {
+			for (JedisPool pool : replicaNodes.values()) {
+				try {
+					pool.destroy();
+				} catch (Exception e) {
+					// pass
+				}
+			}
+			replicaNodes.clear();
+			replicaSlots = new SlotReplicas[BinaryJedisCluster.HASHSLOTS];
+		} finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Pool of a replica node whose connections are switched to READONLY, so it serves reads of the
+	 * slots of its master
+	 */
+	public JedisPool setupReplicaNodeIfNotExist(HostAndPort node) {
+		w.lock();
+		try {
+			String nodeKey = getNodeKey(node);
+			JedisPool existingPool = replicaNodes.get(nodeKey);
+			if (existingPool != null)
+				return existingPool;
+
+			JedisFactory factory = new JedisFactory(node.getHost(), node.getPort(), connectionTimeout, soTimeout,
+					password, 0, clientName, false, null, null, null);
+			factory.setReadOnlyFlag(true);
+			JedisPool nodePool = new JedisPool(poolConfig, factory);
+			replicaNodes.put(nodeKey, nodePool);
+			return nodePool;
+		} finally {
+			w.unlock();
 		}
 	}
 
@@ -206,7 +335,14 @@ public class JedisClusterInfoCache {
 		w.lock();
 		try {
 			JedisPool targetPool = setupNodeIfNotExist(targetNode);
-			slots.put(slot, targetPool);
+			if (slots[slot] == targetPool) {
+				// every thread hitting a migrated slot reports the same MOVED
+				return;
+			}
+			JedisPool[] newSlots = slots.clone();
+			newSlots[slot] = targetPool;
+			slotPatchSeq[slot] = ++patchSeq;
+			slots = newSlots;
 		} finally {
 			w.unlock();
 		}
@@ -216,9 +352,13 @@ public class JedisClusterInfoCache {
 		w.lock();
 		try {
 			JedisPool targetPool = setupNodeIfNotExist(targetNode);
+			JedisPool[] newSlots = slots.clone();
+			long seq = ++patchSeq;
 			for (Integer slot : targetSlots) {
-				slots.put(slot, targetPool);
+				newSlots[slot] = targetPool;
+				slotPatchSeq[slot] = seq;
 			}
+			slots = newSlots;
 		} finally {
 			w.unlock();
 		}
@@ -233,10 +373,34 @@ public class JedisClusterInfoCache {
 		}
 	}
 
+	/**
+	 * Lock free, reads the current slot table snapshot
+	 */
 	public JedisPool getSlotPool(int slot) {
+		return slots[slot];
+	}
+
+	/*
+	 * Lock free like getSlotPool, null when the slot has no known replica
+	 */
+	SlotReplicas getSlotReplicas(int slot) {
+		return replicaSlots[slot];
+	}
+
+	/**
+	 * Reverse lookup of a master pool, for the rare paths that only know the pool
+	 *
+	 * @return "host:port", null for an unknown pool
+	 */
+	public String findNodeKey(JedisPool pool) {
 		r.lock();
 		try {
-			return slots.get(slot);
+			for (Map.Entry<String, JedisPool> entry : nodes.entrySet()) {
+				if (entry.getValue() == pool) {
+					return entry.getKey();
+				}
+			}
+			return null;
 		} finally {
 			r.unlock();
 		}
@@ -277,8 +441,17 @@ public class JedisClusterInfoCache {
 					// pass
 				}
 			}
+			for (JedisPool pool : replicaNodes.values()) {
+				try {
+					pool.destroy();
+				} catch (Exception e) {
+					// pass
+				}
+			}
 			nodes.clear();
-			slots.clear();
+			replicaNodes.clear();
+			slots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+			replicaSlots = new SlotReplicas[BinaryJedisCluster.HASHSLOTS];
 		} finally {
 			w.unlock();
 		}
@@ -296,11 +469,7 @@ public class JedisClusterInfoCache {
 		return getNodeKey(jedis.getClient());
 	}
 
-	private List<Integer> getAssignedSlotArray(List<Object> slotInfo) {
-		List<Integer> slotNums = new ArrayList<Integer>();
-		for (int slot = ((Long) slotInfo.get(0)).intValue(); slot <= ((Long) slotInfo.get(1)).intValue(); slot++) {
-			slotNums.add(slot);
-		}
-		return slotNums;
+	private void fillSlots(Object[] newSlots, List<Object> slotInfo, Object target) {
+		Arrays.fill(newSlots, ((Long) slotInfo.get(0)).intValue(), ((Long) slotInfo.get(1)).intValue() + 1, target);
 	}
 }
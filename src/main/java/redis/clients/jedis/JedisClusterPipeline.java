@@ -0,0 +1,290 @@
+package redis.clients.jedis;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.util.JedisClusterCRC16;
+
+/**
+ * Pipeline over Redis Cluster. Commands are recorded with their slot, on {@link #sync()} they are
+ * grouped by the slot owner from {@link JedisClusterInfoCache} and every node gets one pipeline, run
+ * in parallel when an executor is available. Commands answered with MOVED are resent after the slot
+ * cache is renewed, ASK is resent to the target node behind a pipelined ASKING, and the commands of a
+ * node that fails with a connection error are retried on the renewed owner, up to maxAttempts rounds.
+ * The returned Responses follow submission order. Only single key commands are supported.
+ */
+public class JedisClusterPipeline extends PipelineBase {
+
+	private final JedisClusterConnectionHandler connectionHandler;
+	private final int maxAttempts;
+	private final ExecutorService executor;
+	private final CommandRecorder recorder = new CommandRecorder();
+	private final List<ClusterCommand> commands = new ArrayList<ClusterCommand>();
+	private int currentSlot;
+
+	/*
+	 * Client that records the encoded command instead of writing it to a socket.
+	 */
+	private static final class CommandRecorder extends Client {
+		private ProtocolCommand command;
+		private byte[][] args;
+
+		@Override
+		public boolean sendCommand(final ProtocolCommand cmd, final byte[]... args) {
+			this.command = cmd;
+			this.args = args;
+			return true;
+		}
+	}
+
+	private static final class ClusterCommand {
+		private final int slot;
+		private final ProtocolCommand command;
+		private final byte[][] args;
+		private final Response<?> response;
+		// target node of an ASK redirection, sent once with ASKING
+		private HostAndPort askNode;
+
+		private ClusterCommand(int slot, ProtocolCommand command, byte[][] args, Response<?> response) {
+			this.slot = slot;
+			this.command = command;
+			this.args = args;
+			this.response = response;
+		}
+	}
+
+	/**
+	 * @param executor
+	 *            runs the node pipelines in parallel, null to run them one by one in the caller
+	 */
+	public JedisClusterPipeline(final JedisClusterConnectionHandler connectionHandler, final int maxAttempts,
+			final ExecutorService executor) {
+		this.connectionHandler = connectionHandler;
+		this.maxAttempts = maxAttempts;
+		this.executor = executor;
+	}
+
+	@Override
+	protected Client getClient(String key) {
+		currentSlot = JedisClusterCRC16.getSlot(key);
+		return recorder;
+	}
+
+	@Override
+	protected Client getClient(byte[] key) {
+		currentSlot = JedisClusterCRC16.getSlot(key);
+		return recorder;
+	}
+
+	@Override
+	protected <T> Response<T> getResponse(Builder<T> builder) {
+		Response<T> response = execute(currentSlot, builder, recorder.command, recorder.args);
+		recorder.command = null;
+		recorder.args = null;
+		return response;
+	}
+
+	/**
+	 * Records a raw command, all of its keys must hash to the given slot.
+	 */
+	public <T> Response<T> execute(final int slot, final Builder<T> builder, final ProtocolCommand cmd,
+			final byte[]... args) {
+		Response<T> response = new Response<T>(builder);
+		commands.add(new ClusterCommand(slot, cmd, args, response));
+		return response;
+	}
+
+	/**
+	 * Sends every recorded command and sets its Response. Throws the last JedisConnectionException when
+	 * a node is still unreachable after maxAttempts rounds, the Responses of the other nodes are set.
+	 */
+	public void sync() {
+		List<ClusterCommand> remaining = new ArrayList<ClusterCommand>(commands);
+		commands.clear();
+		JedisConnectionException connectionError = null;
+		for (int attempt = 0; attempt < maxAttempts && !remaining.isEmpty(); attempt++) {
+			Map<JedisPool, List<ClusterCommand>> groups = groupByNode(remaining);
+			List<ClusterCommand> retry = new ArrayList<ClusterCommand>();
+			boolean renew = false;
+			List<List<Object>> repliesList = runGroups(groups);
+			int g = 0;
+			for (List<ClusterCommand> group : groups.values()) {
+				List<Object> replies = repliesList.get(g++);
+				if (replies == null) {
+					// node unreachable, retry its commands on the renewed owner
+					connectionError = new JedisConnectionException("Failed to pipeline to cluster node");
+					for (ClusterCommand command : group) {
+						command.askNode = null;
+					}
+					retry.addAll(group);
+					renew = true;
+					continue;
+				}
+				for (int i = 0; i < group.size(); i++) {
+					ClusterCommand command = group.get(i);
+					Object reply = replies.get(i);
+					command.askNode = null;
+					if (reply instanceof JedisMovedDataException) {
+						renew = true;
+						retry.add(command);
+					} else if (reply instanceof JedisAskDataException) {
+						command.askNode = ((JedisAskDataException) reply).getTargetNode();
+						retry.add(command);
+					} else {
+						command.response.set(reply);
+					}
+				}
+			}
+			if (renew) {
+				connectionHandler.renewSlotCache();
+			}
+			remaining = retry;
+		}
+		if (!remaining.isEmpty()) {
+			if (connectionError != null) {
+				throw connectionError;
+			}
+			for (ClusterCommand command : remaining) {
+				command.response.set(new JedisClusterMaxRedirectionsException("Too many Cluster redirections?"));
+			}
+		}
+	}
+
+	/**
+	 * Syncs and returns every reply in submission order, error replies are returned as exceptions.
+	 */
+	public List<Object> syncAndReturnAll() {
+		List<Response<?>> responses = new ArrayList<Response<?>>(commands.size());
+		for (ClusterCommand command : commands) {
+			responses.add(command.response);
+		}
+		sync();
+		List<Object> result = new ArrayList<Object>(responses.size());
+		for (Response<?> response : responses) {
+			try {
+				result.add(response.get());
+			} catch (JedisDataException e) {
+				result.add(e);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Groups the commands by slot owner, an ASK redirected command goes to its target node. The null
+	 * key collects slots without a known owner, they are sent to a random node to learn the owner.
+	 */
+	private Map<JedisPool, List<ClusterCommand>> groupByNode(List<ClusterCommand> remaining) {
+		Map<JedisPool, List<ClusterCommand>> groups = new IdentityHashMap<JedisPool, List<ClusterCommand>>();
+		for (ClusterCommand command : remaining) {
+			JedisPool pool = command.askNode != null ? connectionHandler.cache.setupNodeIfNotExist(command.askNode)
+					: connectionHandler.cache.getSlotPool(command.slot);
+			List<ClusterCommand> group = groups.get(pool);
+			if (group == null) {
+				group = new ArrayList<ClusterCommand>();
+				groups.put(pool, group);
+			}
+			group.add(command);
+		}
+		return groups;
+	}
+
+	/*
+	 * Runs one pipeline per node, a null entry marks a node that failed with a connection error.
+	 */
+	private List<List<Object>> runGroups(Map<JedisPool, List<ClusterCommand>> groups) {
+		List<Callable<List<Object>>> tasks = new ArrayList<Callable<List<Object>>>(groups.size());
+		for (final Map.Entry<JedisPool, List<ClusterCommand>> entry : groups.entrySet()) {
+			tasks.add(new Callable<List<Object>>() {
+				@Override
+				public List<Object> call() {
+					return runGroup(entry.getKey(), entry.getValue());
+				}
+			});
+		}
+		List<List<Object>> result = new ArrayList<List<Object>>(tasks.size());
+		if (executor == null || tasks.size() <= 1) {
+			for (Callable<List<Object>> task : tasks) {
+				result.add(callQuietly(task));
+			}
+			return result;
+		}
+		List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>(tasks.size() - 1);
+		for (int i = 1; i < tasks.size(); i++) {
+			futures.add(executor.submit(tasks.get(i)));
+		}
+		result.add(callQuietly(tasks.get(0)));
+		for (Future<List<Object>> future : futures) {
+			try {
+				result.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisConnectionException(e);
+			} catch (ExecutionException e) {
+				logger.error("JedisClusterPipeline node pipeline error err={}", e.getCause().toString());
+				result.add(null);
+			}
+		}
+		return result;
+	}
+
+	private List<Object> callQuietly(Callable<List<Object>> task) {
+		try {
+			return task.call();
+		} catch (Exception e) {
+			logger.error("JedisClusterPipeline node pipeline error err={}", e.toString());
+			return null;
+		}
+	}
+
+	/*
+	 * Sends the node's commands in one pipeline and returns their replies, ASKING replies are skipped.
+	 */
+	private List<Object> runGroup(JedisPool pool, List<ClusterCommand> group) {
+		Jedis jedis = null;
+		try {
+			jedis = pool != null ? pool.getResource() : connectionHandler.getConnection();
+			Client client = jedis.getClient();
+			int asking = 0;
+			for (ClusterCommand command : group) {
+				if (command.askNode != null) {
+					client.sendCommand(Command.ASKING);
+					asking++;
+				}
+				client.sendCommand(command.command, command.args);
+			}
+			if (client.isBroken()) {
+				throw new JedisConnectionException("Broken connection to " + JedisClusterInfoCache.getNodeKey(client));
+			}
+			List<Object> all = client.getMany(group.size() + asking);
+			if (asking == 0) {
+				return all;
+			}
+			List<Object> replies = new ArrayList<Object>(group.size());
+			int index = 0;
+			for (ClusterCommand command : group) {
+				if (command.askNode != null) {
+					index++;
+				}
+				replies.add(all.get(index++));
+			}
+			return replies;
+		} finally {
+			if (jedis != null) {
+				jedis.close();
+			}
+		}
+	}
+}
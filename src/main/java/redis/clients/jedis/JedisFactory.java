@@ -31,6 +31,10 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
 	private final SSLSocketFactory sslSocketFactory;
 	private SSLParameters sslParameters;
 	private HostnameVerifier hostnameVerifier;
+	private boolean streamingReplyFlag = false;
+	private boolean nioTransportFlag = false;
+	// send READONLY on every new connection, for cluster replica reads
+	private boolean readOnlyFlag = false;
 
 	public JedisFactory(final String host, final int port, final int connectionTimeout, final int soTimeout,
 			final String password, final int database, final String clientName, final boolean ssl,
@@ -72,6 +76,18 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
 		this.hostAndPort.set(hostAndPort);
 	}
 
+	public void setStreamingReplyFlag(boolean streamingReplyFlag) {
+		this.streamingReplyFlag = streamingReplyFlag;
+	}
+
+	public void setNioTransportFlag(boolean nioTransportFlag) {
+		this.nioTransportFlag = nioTransportFlag;
+	}
+
+	public void setReadOnlyFlag(boolean readOnlyFlag) {
+		this.readOnlyFlag = readOnlyFlag;
+	}
+
 	@Override
 	public void activateObject(PooledObject<Jedis> pooledJedis) throws Exception {
 		final BinaryJedis jedis = pooledJedis.getObject();
@@ -103,6 +119,8 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
 		final HostAndPort hostAndPort = this.hostAndPort.get();
 		final Jedis jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), connectionTimeout, soTimeout,
 				password, database, ssl, sslSocketFactory, sslParameters, hostnameVerifier);
+		jedis.getClient().setStreamingReplyFlag(streamingReplyFlag);
+		jedis.getClient().setNioTransportFlag(nioTransportFlag);
 
 		try {
 			jedis.connect();
@@ -118,6 +136,9 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
 					logger.info("reply={}",reply);
 				}
 			}
+			if (readOnlyFlag) {
+				jedis.readonly();
+			}
 		} catch (JedisException je) {
 			jedis.close();
 			throw je;
@@ -5,6 +5,7 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocketFactory;
 
+import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
@@ -180,6 +181,10 @@ public class JedisPool extends Pool<Jedis> {
 				ssl, sslSocketFactory, sslParameters, hostnameVerifier));
 	}
 
+	public JedisPool(final GenericObjectPoolConfig poolConfig, final JedisFactory factory) {
+		super(poolConfig, factory);
+	}
+
 	public JedisPool(final GenericObjectPoolConfig poolConfig, final URI uri) {
 		this(poolConfig, uri, Protocol.DEFAULT_TIMEOUT);
 	}
@@ -212,6 +217,15 @@ public class JedisPool extends Pool<Jedis> {
 						hostnameVerifier));
 	}
 
+	@Override
+	public void initPool(final GenericObjectPoolConfig poolConfig, PooledObjectFactory<Jedis> factory) {
+		if (poolConfig instanceof JedisPoolConfig && factory instanceof JedisFactory) {
+			((JedisFactory) factory).setStreamingReplyFlag(((JedisPoolConfig) poolConfig).isStreamingReplyFlag());
+			((JedisFactory) factory).setNioTransportFlag(((JedisPoolConfig) poolConfig).isNioTransportFlag());
+		}
+		super.initPool(poolConfig, factory);
+	}
+
 	@Override
 	public Jedis getResource() {
 		Jedis jedis = super.getResource();
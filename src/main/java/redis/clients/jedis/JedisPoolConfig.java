@@ -3,6 +3,11 @@ package redis.clients.jedis;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
 public class JedisPoolConfig extends GenericObjectPoolConfig {
+	// decode string replies straight from the input buffer, see Connection#getStreamingReply
+	private boolean streamingReplyFlag = false;
+	// talk to redis over a SocketChannel with pooled direct buffers, see SocketChannelTransport
+	private boolean nioTransportFlag = false;
+
 	public JedisPoolConfig() {
 		// defaults to make your life with connection pool easier :)
 		setTestWhileIdle(true);
@@ -10,4 +15,20 @@ public class JedisPoolConfig extends GenericObjectPoolConfig {
 		setTimeBetweenEvictionRunsMillis(30000);
 		setNumTestsPerEvictionRun(-1);
 	}
+
+	public boolean isStreamingReplyFlag() {
+		return streamingReplyFlag;
+	}
+
+	public void setStreamingReplyFlag(boolean streamingReplyFlag) {
+		this.streamingReplyFlag = streamingReplyFlag;
+	}
+
+	public boolean isNioTransportFlag() {
+		return nioTransportFlag;
+	}
+
+	public void setNioTransportFlag(boolean nioTransportFlag) {
+		this.nioTransportFlag = nioTransportFlag;
+	}
 }
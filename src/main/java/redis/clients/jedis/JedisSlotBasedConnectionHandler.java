@@ -1,10 +1,14 @@
 package redis.clients.jedis;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import redis.clients.common.utils.Loggers;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.exceptions.JedisNoReachableClusterNodeException;
 
@@ -36,33 +40,100 @@ public class JedisSlotBasedConnectionHandler extends JedisClusterConnectionHandl
 		// getRandomConnection always return valid connection (able to
 		// ping-pong)
 		// or exception if all connections are invalid
+		// Nodes that answered a command a moment ago are used without PING, the faster of two random
+		// ones is taken. Other nodes are PINGed as before, nodes in failure backoff come last.
 
-		List<JedisPool> pools = cache.getShuffledNodesPool();
+		Map<String, JedisPool> nodes = cache.getNodes();
+		List<String> nodeKeys = new ArrayList<String>(nodes.keySet());
+		Collections.shuffle(nodeKeys);
 
-		for (JedisPool pool : pools) {
-			Jedis jedis = null;
+		String best = null;
+		for (String nodeKey : nodeKeys) {
+			if (!nodeHealth.isRecentlyHealthy(nodeKey)) {
+				continue;
+			}
+			if (best == null) {
+				best = nodeKey;
+			} else {
+				if (nodeHealth.getLatency(nodeKey) < nodeHealth.getLatency(best)) {
+					best = nodeKey;
+				}
+				break;
+			}
+		}
+		if (best != null) {
 			try {
-				jedis = pool.getResource();
+				return nodes.get(best).getResource();
+			} catch (JedisException ex) {
+				nodeHealth.recordFailure(best);
+			}
+		}
 
-				if (jedis == null) {
-					continue;
-				}
+		for (String nodeKey : nodeKeys) {
+			if (nodeKey.equals(best) || !nodeHealth.isAvailable(nodeKey)) {
+				continue;
+			}
+			Jedis jedis = getPingedConnection(nodeKey, nodes.get(nodeKey));
+			if (jedis != null) {
+				return jedis;
+			}
+		}
+		for (String nodeKey : nodeKeys) {
+			if (nodeKey.equals(best) || nodeHealth.isAvailable(nodeKey)) {
+				continue;
+			}
+			Jedis jedis = getPingedConnection(nodeKey, nodes.get(nodeKey));
+			if (jedis != null) {
+				return jedis;
+			}
+		}
 
-				String result = jedis.ping();
+		throw new JedisNoReachableClusterNodeException("No reachable node in cluster");
+	}
 
-				if (result.equalsIgnoreCase("pong")) {
-					return jedis;
-				}
+	/*
+	 * Connection that answered PING, null when the node is unreachable
+	 */
+	private Jedis getPingedConnection(String nodeKey, JedisPool pool) {
+		Jedis jedis = null;
+		try {
+			long start = System.nanoTime();
+			jedis = pool.getResource();
+
+			if (jedis == null) {
+				return null;
+			}
+
+			String result = jedis.ping();
+
+			if (result.equalsIgnoreCase("pong")) {
+				nodeHealth.recordSuccess(nodeKey, System.nanoTime() - start);
+				return jedis;
+			}
 
+			jedis.close();
+		} catch (JedisException ex) {
+			nodeHealth.recordFailure(nodeKey);
+			if (jedis != null) {
 				jedis.close();
-			} catch (JedisException ex) {
-				if (jedis != null) {
-					jedis.close();
-				}
 			}
 		}
+		return null;
+	}
 
-		throw new JedisNoReachableClusterNodeException("No reachable node in cluster");
+	/*
+	 * getResource that reports a failed connect to the node health
+	 */
+	private Jedis getResource(JedisPool pool) {
+		try {
+			return pool.getResource();
+		} catch (JedisConnectionException ex) {
+			String nodeKey = cache.findNodeKey(pool);
+			if (nodeKey != null) {
+				nodeHealth.recordFailure(nodeKey);
+			}
+			throw ex;
+		}
 	}
 
 	@Override
@@ -70,14 +141,14 @@ public class JedisSlotBasedConnectionHandler extends JedisClusterConnectionHandl
 		JedisPool connectionPool = cache.getSlotPool(slot);
 		if (connectionPool != null) {
 			// It can't guaranteed to get valid connection because of node assignment
-			return connectionPool.getResource();
+			return getResource(connectionPool);
 		} else {
 			renewSlotCache(); 
 			// It's abnormal situation for cluster mode, that we have just nothing for slot,
 			// try to rediscover state
 			connectionPool = cache.getSlotPool(slot);
 			if (connectionPool != null) {
-				return connectionPool.getResource();
+				return getResource(connectionPool);
 			} else {
 				// no choice, fallback to new connection to random node
 				return getConnection();
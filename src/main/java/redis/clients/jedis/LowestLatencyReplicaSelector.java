@@ -0,0 +1,91 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends reads to the replica with the lowest moving average latency. A node without samples scores
+ * the average of the sampled candidates, so it is neither always preferred nor starved, and one read
+ * in exploreInterval goes to a random replica so a node that recovered from a slow period is noticed
+ * again.
+ */
+public class LowestLatencyReplicaSelector implements ReplicaSelector {
+
+	// weight of a new sample is 1 / 2^EWMA_SHIFT
+	private static final int EWMA_SHIFT = 3;
+
+	private final ConcurrentMap<String, AtomicLong> latencies = new ConcurrentHashMap<String, AtomicLong>();
+
+	private int exploreInterval = 64;
+
+	@Override
+	public int select(int slot, String[] replicaKeys) {
+		if (replicaKeys.length == 1) {
+			return 0;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextInt(exploreInterval) == 0) {
+			return random.nextInt(replicaKeys.length);
+		}
+		long[] values = new long[replicaKeys.length];
+		long sum = 0;
+		int sampled = 0;
+		for (int i = 0; i < replicaKeys.length; i++) {
+			values[i] = getLatency(replicaKeys[i]);
+			if (values[i] >= 0) {
+				sum += values[i];
+				sampled++;
+			}
+		}
+		if (sampled == 0) {
+			return random.nextInt(replicaKeys.length);
+		}
+		long neutral = sum / sampled;
+		int best = 0;
+		long bestLatency = Long.MAX_VALUE;
+		for (int i = 0; i < values.length; i++) {
+			long value = values[i] < 0 ? neutral : values[i];
+			if (value < bestLatency) {
+				best = i;
+				bestLatency = value;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public void recordLatency(String nodeKey, long nanos) {
+		AtomicLong latency = latencies.get(nodeKey);
+		if (latency == null) {
+			AtomicLong created = new AtomicLong(nanos);
+			latency = latencies.putIfAbsent(nodeKey, created);
+			if (latency == null) {
+				return;
+			}
+		}
+		long current;
+		long updated;
+		do {
+			current = latency.get();
+			updated = current + ((nanos - current) >> EWMA_SHIFT);
+		} while (!latency.compareAndSet(current, updated));
+	}
+
+	/**
+	 * @return moving average latency of the node in nanoseconds, -1 without samples
+	 */
+	public long getLatency(String nodeKey) {
+		AtomicLong latency = latencies.get(nodeKey);
+		return latency == null ? -1 : latency.get();
+	}
+
+	public int getExploreInterval() {
+		return exploreInterval;
+	}
+
+	public void setExploreInterval(int exploreInterval) {
+		this.exploreInterval = exploreInterval;
+	}
+}
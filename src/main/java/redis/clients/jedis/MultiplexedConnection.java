@@ -0,0 +1,195 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * A connection shared by many threads. Callers enqueue commands on a lock-free queue and get a
+ * CompletableFuture back; whichever caller wins the writer flag drains the queue and flushes once, so
+ * commands submitted concurrently are pipelined automatically. A daemon reader thread matches replies
+ * to the in-flight commands in order and completes their futures on the reader thread.
+ *
+ * The reader blocks with an infinite socket timeout, use CompletableFuture#get(long, TimeUnit) for
+ * per command timeouts. Always uses the Socket transport, the SocketChannel transport cannot be read
+ * and written from two threads.
+ */
+public class MultiplexedConnection extends Connection {
+
+	private final ConcurrentLinkedQueue<PendingCommand<?>> submitted = new ConcurrentLinkedQueue<PendingCommand<?>>();
+	private final ConcurrentLinkedQueue<PendingCommand<?>> inflight = new ConcurrentLinkedQueue<PendingCommand<?>>();
+	private final AtomicBoolean writing = new AtomicBoolean();
+	private volatile boolean closed = false;
+	private Thread reader;
+
+	private static final class PendingCommand<T> {
+		private final ProtocolCommand command;
+		private final byte[][] args;
+		private final Builder<T> builder;
+		private final CompletableFuture<T> future = new CompletableFuture<T>();
+
+		private PendingCommand(ProtocolCommand command, byte[][] args, Builder<T> builder) {
+			this.command = command;
+			this.args = args;
+			this.builder = builder;
+		}
+
+		private void complete(Object reply) {
+			try {
+				future.complete(builder.build(reply));
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+
+	public MultiplexedConnection(final String host, final int port) {
+		super(host, port);
+	}
+
+	/**
+	 * Connects, authenticates and selects the database synchronously, then starts the reader thread.
+	 *
+	 * @param password
+	 *            null or empty for no AUTH
+	 * @param database
+	 *            database to SELECT, 0 to skip
+	 */
+	public synchronized void start(final String password, final int database) {
+		setNioTransportFlag(false);
+		if (!connect()) {
+			throw new JedisConnectionException("Failed connecting to host " + getHost() + ":" + getPort());
+		}
+		if (password != null && password.length() > 0) {
+			sendCommand(Command.AUTH, password);
+			getStatusCodeReply();
+		}
+		if (database != 0) {
+			sendCommand(Command.SELECT, String.valueOf(database));
+			getStatusCodeReply();
+		}
+		setTimeoutInfinite();
+		reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readLoop();
+			}
+		}, "jedis-multiplexed-" + getHost() + ":" + getPort());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Submits a command, the future completes with the reply decoded by the builder, or exceptionally
+	 * with JedisDataException for an error reply and JedisConnectionException when the connection
+	 * fails.
+	 */
+	public <T> CompletableFuture<T> execute(final Builder<T> builder, final ProtocolCommand cmd,
+			final byte[]... args) {
+		PendingCommand<T> pending = new PendingCommand<T>(cmd, args, builder);
+		if (closed) {
+			pending.future.completeExceptionally(new JedisConnectionException("Multiplexed connection is closed"));
+			return pending.future;
+		}
+		submitted.offer(pending);
+		drain();
+		if (closed) {
+			// closed while we were queueing, make sure nothing is left behind
+			failAll(new JedisConnectionException("Multiplexed connection is closed"));
+		}
+		return pending.future;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		closeQuietly(getSocket());
+		failAll(new JedisConnectionException("Multiplexed connection is closed"));
+	}
+
+	/*
+	 * Writes every queued command with a single flush. Commands are added to the in-flight queue
+	 * before they are written so the reader always finds the owner of a reply. Writes go straight to
+	 * the socket: once the connection failed it is never reconnected here, because a silent reconnect
+	 * would skip AUTH/SELECT and leave the futures without a reader.
+	 */
+	private void drain() {
+		while (!submitted.isEmpty() && writing.compareAndSet(false, true)) {
+			try {
+				if (closed) {
+					failAll(new JedisConnectionException("Multiplexed connection is closed"));
+					return;
+				}
+				PendingCommand<?> pending;
+				while ((pending = submitted.poll()) != null) {
+					inflight.offer(pending);
+					writeCommand(pending.command, pending.args);
+				}
+				flush();
+				resetPipelinedCount();
+			} catch (JedisConnectionException e) {
+				fail(e);
+				return;
+			} finally {
+				writing.set(false);
+			}
+		}
+	}
+
+	private void readLoop() {
+		while (!closed) {
+			Object reply;
+			try {
+				reply = readProtocolWithCheckingBroken();
+			} catch (JedisDataException e) {
+				PendingCommand<?> pending = inflight.poll();
+				if (pending != null) {
+					pending.future.completeExceptionally(e);
+				}
+				continue;
+			} catch (RuntimeException e) {
+				if (!closed) {
+					logger.error("MultiplexedConnection read error host={} port={} err={}", getHost(), getPort(),
+							e.toString());
+					fail(e);
+				}
+				return;
+			}
+			PendingCommand<?> pending = inflight.poll();
+			if (pending != null) {
+				pending.complete(reply);
+			}
+		}
+	}
+
+	/*
+	 * Closes the socket without flushing, the writer may be filling the output buffer on another
+	 * thread.
+	 */
+	private void fail(Throwable cause) {
+		closed = true;
+		closeQuietly(getSocket());
+		failAll(cause);
+	}
+
+	private void failAll(Throwable cause) {
+		PendingCommand<?> pending;
+		while ((pending = inflight.poll()) != null) {
+			pending.future.completeExceptionally(cause);
+		}
+		while ((pending = submitted.poll()) != null) {
+			pending.future.completeExceptionally(cause);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Asynchronous client that spreads commands from any number of threads over a few
+ * {@link MultiplexedConnection}s instead of borrowing an exclusive connection per call. Commands are
+ * encoded with {@link Protocol} and decoded with {@link BuilderFactory}, so nil replies are null here
+ * (unlike Jedis#get which returns ""). A connection that failed is replaced on the next call.
+ */
+public class MultiplexedJedis implements Closeable {
+
+	private final String host;
+	private final int port;
+	private final int connectionTimeout;
+	private final String password;
+	private final int database;
+	private final AtomicReferenceArray<MultiplexedConnection> connections;
+	private final AtomicInteger next = new AtomicInteger();
+	private volatile boolean closed = false;
+
+	public MultiplexedJedis(final String host, final int port) {
+		this(host, port, Protocol.DEFAULT_TIMEOUT, null, Protocol.DEFAULT_DATABASE, 1);
+	}
+
+	/**
+	 * @param connectionCount
+	 *            number of shared connections, a handful is enough for thousands of threads
+	 */
+	public MultiplexedJedis(final String host, final int port, final int connectionTimeout, final String password,
+			final int database, final int connectionCount) {
+		if (connectionCount <= 0) {
+			throw new IllegalArgumentException("connectionCount must be positive");
+		}
+		this.host = host;
+		this.port = port;
+		this.connectionTimeout = connectionTimeout;
+		this.password = password;
+		this.database = database;
+		this.connections = new AtomicReferenceArray<MultiplexedConnection>(connectionCount);
+	}
+
+	/**
+	 * Sends any command on the next connection in round robin order.
+	 */
+	public <T> CompletableFuture<T> execute(final Builder<T> builder, final ProtocolCommand cmd,
+			final byte[]... args) {
+		MultiplexedConnection connection;
+		try {
+			connection = getConnection();
+		} catch (JedisConnectionException e) {
+			CompletableFuture<T> future = new CompletableFuture<T>();
+			future.completeExceptionally(e);
+			return future;
+		}
+		return connection.execute(builder, cmd, args);
+	}
+
+	public CompletableFuture<String> ping() {
+		return execute(BuilderFactory.STRING, Command.PING);
+	}
+
+	public CompletableFuture<String> get(final String key) {
+		return execute(BuilderFactory.STRING, Command.GET, SafeEncoder.encode(key));
+	}
+
+	public CompletableFuture<String> set(final String key, final String value) {
+		return execute(BuilderFactory.STRING, Command.SET, SafeEncoder.encode(key), SafeEncoder.encode(value));
+	}
+
+	public CompletableFuture<String> setex(final String key, final int seconds, final String value) {
+		return execute(BuilderFactory.STRING, Command.SETEX, SafeEncoder.encode(key), Protocol.toByteArray(seconds),
+				SafeEncoder.encode(value));
+	}
+
+	public CompletableFuture<Long> del(final String... keys) {
+		return execute(BuilderFactory.LONG, Command.DEL, SafeEncoder.encodeMany(keys));
+	}
+
+	public CompletableFuture<Boolean> exists(final String key) {
+		return execute(BuilderFactory.BOOLEAN, Command.EXISTS, SafeEncoder.encode(key));
+	}
+
+	public CompletableFuture<Long> expire(final String key, final int seconds) {
+		return execute(BuilderFactory.LONG, Command.EXPIRE, SafeEncoder.encode(key), Protocol.toByteArray(seconds));
+	}
+
+	public CompletableFuture<Long> incrBy(final String key, final long integer) {
+		return execute(BuilderFactory.LONG, Command.INCRBY, SafeEncoder.encode(key), Protocol.toByteArray(integer));
+	}
+
+	public CompletableFuture<List<String>> mget(final String... keys) {
+		return execute(BuilderFactory.STRING_LIST, Command.MGET, SafeEncoder.encodeMany(keys));
+	}
+
+	public CompletableFuture<String> hget(final String key, final String field) {
+		return execute(BuilderFactory.STRING, Command.HGET, SafeEncoder.encode(key), SafeEncoder.encode(field));
+	}
+
+	public CompletableFuture<Long> hset(final String key, final String field, final String value) {
+		return execute(BuilderFactory.LONG, Command.HSET, SafeEncoder.encode(key), SafeEncoder.encode(field),
+				SafeEncoder.encode(value));
+	}
+
+	public CompletableFuture<String> hmset(final String key, final Map<String, String> hash) {
+		final byte[][] args = new byte[hash.size() * 2 + 1][];
+		int i = 0;
+		args[i++] = SafeEncoder.encode(key);
+		for (Map.Entry<String, String> entry : hash.entrySet()) {
+			args[i++] = SafeEncoder.encode(entry.getKey());
+			args[i++] = SafeEncoder.encode(entry.getValue());
+		}
+		return execute(BuilderFactory.STRING, Command.HMSET, args);
+	}
+
+	public CompletableFuture<List<String>> hmget(final String key, final String... fields) {
+		final byte[][] args = new byte[fields.length + 1][];
+		args[0] = SafeEncoder.encode(key);
+		for (int i = 0; i < fields.length; i++) {
+			args[i + 1] = SafeEncoder.encode(fields[i]);
+		}
+		return execute(BuilderFactory.STRING_LIST, Command.HMGET, args);
+	}
+
+	public CompletableFuture<Map<String, String>> hgetAll(final String key) {
+		return execute(BuilderFactory.STRING_MAP, Command.HGETALL, SafeEncoder.encode(key));
+	}
+
+	public CompletableFuture<Long> hdel(final String key, final String... fields) {
+		final byte[][] args = new byte[fields.length + 1][];
+		args[0] = SafeEncoder.encode(key);
+		for (int i = 0; i < fields.length; i++) {
+			args[i + 1] = SafeEncoder.encode(fields[i]);
+		}
+		return execute(BuilderFactory.LONG, Command.HDEL, args);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (int i = 0; i < connections.length(); i++) {
+			MultiplexedConnection connection = connections.getAndSet(i, null);
+			if (connection != null) {
+				connection.close();
+			}
+		}
+	}
+
+	/*
+	 * Picks the next connection, opening it (or replacing a failed one) on first use.
+	 */
+	private MultiplexedConnection getConnection() {
+		if (closed) {
+			throw new JedisConnectionException("MultiplexedJedis is closed");
+		}
+		int index = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length();
+		MultiplexedConnection connection = connections.get(index);
+		if (connection != null && !connection.isClosed()) {
+			return connection;
+		}
+		synchronized (this) {
+			connection = connections.get(index);
+			if (connection == null || connection.isClosed()) {
+				connection = new MultiplexedConnection(host, port);
+				connection.setConnectionTimeout(connectionTimeout);
+				try {
+					connection.start(password, database);
+				} catch (RuntimeException e) {
+					connection.close();
+					throw e;
+				}
+				connections.set(index, connection);
+			}
+		}
+		return connection;
+	}
+}
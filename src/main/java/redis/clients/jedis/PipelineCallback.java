@@ -0,0 +1,20 @@
+package redis.clients.jedis;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Receives the replies of a {@link StreamingPipeline} in command order, on the pipeline's reader
+ * thread. Implementations must be fast or hand work off, a slow callback stalls the in-flight window.
+ */
+public interface PipelineCallback {
+
+	/**
+	 * @param index
+	 *            0-based sequence number of the command in the pipeline
+	 * @param response
+	 *            the reply decoded with the command's builder
+	 */
+	void onResponse(long index, Object response);
+
+	void onError(long index, JedisDataException error);
+}
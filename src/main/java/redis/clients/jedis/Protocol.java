@@ -213,6 +213,64 @@ public final class Protocol {
 		return process(is);
 	}
 
+	/**
+	 * Reads a bulk, status or integer reply as a String straight from the input buffer, without
+	 * allocating the intermediate byte[]. Used by {@link StreamingBuilder}s.
+	 *
+	 * @return null for a nil bulk reply
+	 */
+	public static String readStringReply(final RedisInputStream is) {
+		final byte b = is.readByte();
+		if (b == DOLLAR_BYTE) {
+			final int len = is.readIntCrLf();
+			return len == -1 ? null : is.readBulkString(len);
+		} else if (b == PLUS_BYTE) {
+			return is.readLine();
+		} else if (b == COLON_BYTE) {
+			return String.valueOf(is.readLongCrLf());
+		} else if (b == MINUS_BYTE) {
+			processError(is);
+			return null;
+		}
+		throw new JedisConnectionException("Unexpected reply for string: " + (char) b);
+	}
+
+	/**
+	 * Reads an integer reply, or a bulk reply holding a decimal integer, without boxing.
+	 *
+	 * @return defaultValue for a nil bulk reply
+	 */
+	public static long readLongReply(final RedisInputStream is, final long defaultValue) {
+		final byte b = is.readByte();
+		if (b == COLON_BYTE) {
+			return is.readLongCrLf();
+		} else if (b == DOLLAR_BYTE) {
+			final int len = is.readIntCrLf();
+			return len == -1 ? defaultValue : is.readBulkLong(len);
+		} else if (b == MINUS_BYTE) {
+			processError(is);
+			return defaultValue;
+		}
+		throw new JedisConnectionException("Unexpected reply for integer: " + (char) b);
+	}
+
+	/**
+	 * Reads the header of a multi bulk reply. The caller then reads exactly that many elements, e.g.
+	 * with {@link #readStringReply(RedisInputStream)}.
+	 *
+	 * @return the number of elements, -1 for a nil multi bulk reply
+	 */
+	public static int readMultiBulkHeader(final RedisInputStream is) {
+		final byte b = is.readByte();
+		if (b == ASTERISK_BYTE) {
+			return is.readIntCrLf();
+		} else if (b == MINUS_BYTE) {
+			processError(is);
+			return -1;
+		}
+		throw new JedisConnectionException("Unexpected reply for multi bulk: " + (char) b);
+	}
+
 	public static final byte[] toByteArray(final boolean value) {
 		return value ? BYTES_TRUE : BYTES_FALSE;
 	}
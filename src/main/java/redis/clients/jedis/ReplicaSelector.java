@@ -0,0 +1,24 @@
+package redis.clients.jedis;
+
+/**
+ * Chooses the replica that serves a read in the JedisCluster read-from-replica mode, see
+ * {@link JedisClusterConnectionHandler#setReplicaSelector(ReplicaSelector)}. Called concurrently for
+ * every read command, implementations must be thread safe and cheap.
+ */
+public interface ReplicaSelector {
+
+	/**
+	 * @param slot
+	 *            slot of the command key
+	 * @param replicaKeys
+	 *            "host:port" of the slot's replicas, never empty, replicas that ClusterNodeHealth
+	 *            reports as failing are left out
+	 * @return index into replicaKeys, or -1 to read from the master
+	 */
+	int select(int slot, String[] replicaKeys);
+
+	/**
+	 * Latency of a read served by the node, for selectors that prefer fast nodes.
+	 */
+	void recordLatency(String nodeKey, long nanos);
+}
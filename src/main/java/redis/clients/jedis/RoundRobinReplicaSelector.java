@@ -0,0 +1,32 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads reads evenly over the replicas of a slot, optionally with the master in the rotation.
+ */
+public class RoundRobinReplicaSelector implements ReplicaSelector {
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final boolean includeMaster;
+
+	public RoundRobinReplicaSelector() {
+		this(false);
+	}
+
+	public RoundRobinReplicaSelector(boolean includeMaster) {
+		this.includeMaster = includeMaster;
+	}
+
+	@Override
+	public int select(int slot, String[] replicaKeys) {
+		int count = includeMaster ? replicaKeys.length + 1 : replicaKeys.length;
+		int index = (next.getAndIncrement() & Integer.MAX_VALUE) % count;
+		return index == replicaKeys.length ? -1 : index;
+	}
+
+	@Override
+	public void recordLatency(String nodeKey, long nanos) {
+	}
+}
@@ -0,0 +1,14 @@
+package redis.clients.jedis;
+
+import redis.clients.util.RedisInputStream;
+
+/**
+ * Builds a reply directly from the connection's input buffer instead of from the byte[] / List
+ * tree produced by {@link Protocol#read(RedisInputStream)}. Implementations must consume exactly
+ * one complete reply, using the Protocol.readXxx helpers.
+ *
+ * @see Connection#getStreamingReply(StreamingBuilder)
+ */
+public abstract class StreamingBuilder<T> {
+	public abstract T build(RedisInputStream is);
+}
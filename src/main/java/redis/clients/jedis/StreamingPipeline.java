@@ -0,0 +1,203 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Pipeline for bulk loads that never holds more than a bounded number of replies. Commands are
+ * flushed every flushCommands commands (RedisOutputStream also writes through whenever its 8K buffer
+ * fills), a reader thread decodes the replies of flushed commands while the caller keeps writing, and
+ * every reply goes to the {@link PipelineCallback} instead of a retained Response. The caller blocks
+ * once maxInFlight flushed commands are waiting for replies, which also bounds the redis output buffer.
+ *
+ * The Responses returned by the command methods are never set, read results in the callback. MULTI is
+ * not supported. Call {@link #sync()} to wait for all replies and {@link #close()} when done. Like
+ * MultiplexedConnection it reads and writes from two threads, so the SocketChannel transport is
+ * rejected.
+ */
+public class StreamingPipeline extends MultiKeyPipelineBase implements Closeable {
+
+	public static final int DEFAULT_FLUSH_COMMANDS = 1000;
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 10000;
+
+	private static final Object STOP = new Object();
+
+	private final PipelineCallback callback;
+	private final int flushCommands;
+	// builders of flushed commands (plus sync latches) in command order, its capacity is the window
+	private final BlockingQueue<Object> inflight;
+	// builders of written but not yet flushed commands
+	private final List<Builder<?>> unflushed;
+	private final Thread reader;
+	private volatile RuntimeException failure;
+	private boolean closed = false;
+
+	public StreamingPipeline(final Client client, final PipelineCallback callback) {
+		this(client, callback, DEFAULT_FLUSH_COMMANDS, DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	public StreamingPipeline(final Client client, final PipelineCallback callback, final int flushCommands,
+			final int maxInFlight) {
+		if (flushCommands <= 0 || maxInFlight <= 0) {
+			throw new IllegalArgumentException("flushCommands and maxInFlight must be positive");
+		}
+		if (client.isNioTransportFlag()) {
+			throw new IllegalArgumentException("StreamingPipeline does not support the SocketChannel transport");
+		}
+		this.client = client;
+		this.callback = callback;
+		this.flushCommands = flushCommands;
+		this.inflight = new ArrayBlockingQueue<Object>(maxInFlight);
+		this.unflushed = new ArrayList<Builder<?>>(flushCommands);
+		this.reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readLoop();
+			}
+		}, "jedis-streaming-pipeline-" + client.getHost() + ":" + client.getPort());
+		this.reader.setDaemon(true);
+		this.reader.start();
+	}
+
+	@Override
+	protected Client getClient(String key) {
+		return client;
+	}
+
+	@Override
+	protected Client getClient(byte[] key) {
+		return client;
+	}
+
+	@Override
+	protected <T> Response<T> getResponse(Builder<T> builder) {
+		checkFailure();
+		unflushed.add(builder);
+		if (unflushed.size() >= flushCommands) {
+			flush();
+		}
+		return new Response<T>(builder);
+	}
+
+	/**
+	 * Flushes the buffered commands and waits until every reply has been passed to the callback.
+	 */
+	public void sync() {
+		checkFailure();
+		flush();
+		CountDownLatch latch = new CountDownLatch(1);
+		enqueue(latch);
+		try {
+			while (!latch.await(100, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisConnectionException(e);
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Syncs and stops the reader thread. The connection stays open and can be used by Jedis again,
+	 * unless the reader failed: the unread replies would be taken for the replies of later commands,
+	 * so the connection is then marked broken and closed.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (failure == null) {
+				sync();
+			}
+		} finally {
+			if (failure == null) {
+				enqueue(STOP);
+			} else {
+				inflight.clear();
+				inflight.offer(STOP);
+				client.markBroken();
+				try {
+					client.disconnect();
+				} catch (JedisConnectionException e) {
+					// already broken
+				}
+			}
+			client.resetPipelinedCount();
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	private void flush() {
+		if (unflushed.isEmpty()) {
+			return;
+		}
+		client.flush();
+		for (Builder<?> builder : unflushed) {
+			enqueue(builder);
+		}
+		unflushed.clear();
+	}
+
+	private void enqueue(Object item) {
+		try {
+			while (!inflight.offer(item, 100, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisConnectionException(e);
+		}
+	}
+
+	private void checkFailure() {
+		RuntimeException e = failure;
+		if (e != null) {
+			throw e;
+		}
+	}
+
+	private void readLoop() {
+		long index = 0;
+		try {
+			while (true) {
+				Object item = inflight.take();
+				if (item == STOP) {
+					return;
+				}
+				if (item instanceof CountDownLatch) {
+					((CountDownLatch) item).countDown();
+					continue;
+				}
+				Builder<?> builder = (Builder<?>) item;
+				try {
+					Object reply = client.readProtocolWithCheckingBroken();
+					callback.onResponse(index, reply == null ? null : builder.build(reply));
+				} catch (JedisDataException e) {
+					callback.onError(index, e);
+				}
+				index++;
+			}
+		} catch (InterruptedException e) {
+			failure = new JedisConnectionException(e);
+		} catch (RuntimeException e) {
+			logger.error("StreamingPipeline read error index={} err={}", index, e.toString());
+			failure = e;
+		}
+	}
+}
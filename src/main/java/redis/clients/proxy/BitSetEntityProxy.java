@@ -0,0 +1,227 @@
+package redis.clients.proxy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.cglib.proxy.NoOp;
+
+import redis.clients.common.annotation.MethodSaveProxy;
+import redis.clients.common.utils.EntityFieldCodec;
+import redis.clients.common.utils.EntityFieldCodec.FieldAccessor;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+import redis.clients.common.utils.Loggers;
+import redis.clients.entity.AbstractEntity;
+import redis.clients.entity.IEntity;
+
+/**
+ * 按位记录变化字段的实体代理
+ *
+ * 每个实体类只生成一次代理类, 只拦截@MethodSaveProxy的setter, 其他方法直接调用父类.
+ * 变化字段按类内下标记录在long数组中, 新值保存在对应下标的数组里, 旧值通过缓存的MethodHandle从代理对象读取.
+ * 与EntityProxy一样不是线程安全的, 同一个实体不要在多个线程中同时修改
+ */
+public class BitSetEntityProxy<T extends IEntity> extends EntityProxy<T> {
+
+	private static final Logger logger = Loggers.dbProxyLogger;
+
+	/* 不拦截的方法 */
+	private static final int NO_OP_CALLBACK = 0;
+
+	/* 拦截的setter */
+	private static final int TRACK_CALLBACK = 1;
+
+	private static final CallbackFilter TRACK_FILTER = new CallbackFilter() {
+		@Override
+		public int accept(Method method) {
+			return method.getAnnotation(MethodSaveProxy.class) != null ? TRACK_CALLBACK : NO_OP_CALLBACK;
+		}
+	};
+
+	private static final ConcurrentMap<Class<?>, ProxyClass> proxyClasses = new ConcurrentHashMap<>();
+
+	/**
+	 * 实体类对应的代理类和变化字段信息, 每个类只构建一次
+	 */
+	static final class ProxyClass {
+		private final Class<?> entityClass;
+		// 用于创建代理实例, 不重新生成类
+		private final Factory factory;
+		private final Map<Method, Integer> methodIndexMap = new HashMap<>();
+		private final List<String> fieldNames = new ArrayList<>();
+		private final List<FieldAccessor> accessors = new ArrayList<>();
+		// 按EntitySaveEnum.ordinal()保存需要保存的字段的变化下标, 不记录变化的字段为-1
+		private final int[][] saveIndexes;
+		private final String[][] saveNames;
+
+		ProxyClass(Class<?> entityClass) {
+			this.entityClass = entityClass;
+			EntityFieldCodec codec = EntityFieldCodec.getCodec(entityClass);
+			Map<String, Integer> nameIndexMap = new HashMap<>();
+			for (Method method : entityClass.getMethods()) {
+				MethodSaveProxy methodSaveProxy = method.getAnnotation(MethodSaveProxy.class);
+				if (methodSaveProxy == null) {
+					continue;
+				}
+				String fieldName = methodSaveProxy.proxy();
+				Integer index = nameIndexMap.get(fieldName);
+				if (index == null) {
+					index = fieldNames.size();
+					nameIndexMap.put(fieldName, index);
+					fieldNames.add(fieldName);
+					accessors.add(codec.getAccessor(fieldName));
+				}
+				methodIndexMap.put(method, index);
+			}
+			EntitySaveEnum[] types = EntitySaveEnum.values();
+			saveIndexes = new int[types.length][];
+			saveNames = new String[types.length][];
+			for (EntitySaveEnum type : types) {
+				Field[] fields = codec.getCacheFields(type);
+				int[] indexes = new int[fields.length];
+				String[] names = new String[fields.length];
+				for (int i = 0; i < fields.length; i++) {
+					Integer index = nameIndexMap.get(fields[i].getName());
+					indexes[i] = index == null ? -1 : index;
+					names[i] = fields[i].getName();
+				}
+				saveIndexes[type.ordinal()] = indexes;
+				saveNames[type.ordinal()] = names;
+			}
+
+			Enhancer enhancer = new Enhancer();
+			enhancer.setSuperclass(entityClass);
+			enhancer.setCallbackFilter(TRACK_FILTER);
+			enhancer.setCallbackTypes(new Class[] { NoOp.class, BitSetEntityProxy.class });
+			Class<?> proxyClass = enhancer.createClass();
+			Enhancer.registerCallbacks(proxyClass, new Callback[] { NoOp.INSTANCE, new BitSetEntityProxy<>(null, this) });
+			try {
+				this.factory = (Factory) proxyClass.newInstance();
+			} catch (Exception e) {
+				throw new IllegalStateException("BitSetEntityProxy Failed to create proxy class " + entityClass, e);
+			} finally {
+				Enhancer.registerCallbacks(proxyClass, null);
+			}
+		}
+
+		int size() {
+			return fieldNames.size();
+		}
+	}
+
+	private final ProxyClass proxyClass;
+
+	// 变化字段的位
+	private final long[] dirtyBits;
+
+	// 变化字段的新值, 与ProxyClass.fieldNames下标一致
+	private final Object[] values;
+
+	private BitSetEntityProxy(T entity, ProxyClass proxyClass) {
+		super(entity, null);
+		this.proxyClass = proxyClass;
+		this.dirtyBits = new long[(proxyClass.size() + 63) >>> 6];
+		this.values = new Object[proxyClass.size()];
+	}
+
+	/**
+	 * 创建代理实体 复制entity的所有字段到代理对象, 之后通过@MethodSaveProxy的setter修改的字段会被记录
+	 *
+	 * @param entity
+	 * @return 代理实体, 已设置EntityProxyWrapper
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends IEntity> E createProxyEntity(E entity) throws Exception {
+		ProxyClass proxyClass = getProxyClass(entity.getClass());
+		BitSetEntityProxy<E> entityProxy = new BitSetEntityProxy<>(entity, proxyClass);
+		E proxyEntity = (E) proxyClass.factory.newInstance(new Callback[] { NoOp.INSTANCE, entityProxy });
+		EntityFieldCodec.getCodec(proxyClass.entityClass).copyFields(entity, proxyEntity);
+		entityProxy.setCollectFlag(true);
+		((AbstractEntity) proxyEntity).setEntityProxyWrapper(new EntityProxyWrapper<>(entityProxy));
+		return proxyEntity;
+	}
+
+	private static ProxyClass getProxyClass(Class<?> clazz) {
+		ProxyClass proxyClass = proxyClasses.get(clazz);
+		if (proxyClass == null) {
+			proxyClass = new ProxyClass(clazz);
+			ProxyClass old = proxyClasses.putIfAbsent(clazz, proxyClass);
+			if (old != null) {
+				proxyClass = old;
+			}
+		}
+		return proxyClass;
+	}
+
+	@Override
+	public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+		if (!isCollectFlag()) {
+			return methodProxy.invokeSuper(obj, args);
+		}
+		Integer index = proxyClass.methodIndexMap.get(method);
+		if (index == null) {
+			return methodProxy.invokeSuper(obj, args);
+		}
+		FieldAccessor accessor = proxyClass.accessors.get(index);
+		Object oldObject = accessor != null ? accessor.get(obj) : null;
+		Object newObject = args[0];
+		Object result = methodProxy.invokeSuper(obj, args);
+		if ((oldObject == null) || (!oldObject.equals(newObject))) {
+			dirtyBits[index >>> 6] |= 1L << index;
+			values[index] = newObject;
+			setDirtyFlag(true);
+			if (logger.isDebugEnabled()) {
+				logger.debug("{} 更新替换前为{} 更新替换后为{}", proxyClass.fieldNames.get(index), oldObject, newObject);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Object> getChangeParamSet(EntitySaveEnum type) {
+		Map<String, Object> map = new HashMap<>();
+		if (!isDirtyFlag()) {
+			return map;
+		}
+		int[] indexes = proxyClass.saveIndexes[type.ordinal()];
+		String[] names = proxyClass.saveNames[type.ordinal()];
+		for (int i = 0; i < indexes.length; i++) {
+			int index = indexes[i];
+			if (index >= 0 && (dirtyBits[index >>> 6] & (1L << index)) != 0) {
+				map.put(names[i], values[index]);
+			}
+		}
+		return map;
+	}
+
+	@Override
+	public void setChangeParamSet(Map<String, Object> changeParamSet) {
+		for (int i = 0; i < dirtyBits.length; i++) {
+			dirtyBits[i] = 0;
+		}
+		for (int i = 0; i < values.length; i++) {
+			values[i] = null;
+		}
+		if (changeParamSet != null) {
+			for (Map.Entry<String, Object> entry : changeParamSet.entrySet()) {
+				int index = proxyClass.fieldNames.indexOf(entry.getKey());
+				if (index >= 0) {
+					dirtyBits[index >>> 6] |= 1L << index;
+					values[index] = entry.getValue();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,403 @@
+package redis.clients.proxy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import redis.clients.common.constant.GlobalConstants;
+import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+import redis.clients.common.utils.Loggers;
+import redis.clients.common.utils.ObjectUtils;
+import redis.clients.entity.AbstractEntity;
+import redis.clients.entity.IEntity;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.redis.RedisService;
+
+/**
+ * 实体本地缓存(L1)
+ *
+ * 按EntityUtils.getRedisKey缓存RedisInterface实体的字段值, 命中时不访问Redis, 每次命中都还原一个新的实体对象.
+ * 缓存按key分为多段, 每段独立加锁并淘汰段内最久未访问的实体, 命中时只锁key所在的段, 超过有效期的实体在访问时删除.
+ * 通过EntityServiceProxy的写操作会清除本地缓存, 并通过Redis发布订阅通知其他JVM清除.
+ * staleMillis大于0时, 过期后的一段时间内仍可通过getStale读取旧值, 由调用方在后台刷新.
+ * 作为spring bean时随容器启动和停止订阅线程, 手动创建时EntityServiceProxyFactory创建代理时启动
+ */
+public class EntityNearCache implements InitializingBean, DisposableBean {
+
+	private static final Logger logger = Loggers.redisLogger;
+
+	/** 默认的失效通知频道 */
+	public static final String DEFAULT_CHANNEL = "entity_near_cache_invalidate";
+
+	/** 一条通知里多个key的分隔符 */
+	private static final String KEY_SPLIT = "\n";
+
+	/** 缓存分段数 */
+	private static final int SEGMENTS = 64;
+
+	/** 订阅断开后重连的间隔(毫秒) */
+	private static final long RESUBSCRIBE_INTERVAL = 1000;
+
+	private static class CacheEntry {
+		private final Map<String, String> fieldMap;
+		private final long expireTime;
+		private final long staleTime;
+
+		CacheEntry(Map<String, String> fieldMap, long expireTime, long staleTime) {
+			this.fieldMap = fieldMap;
+			this.expireTime = expireTime;
+			this.staleTime = staleTime;
+		}
+	}
+
+	/*
+	 * 按访问顺序排列的一段缓存, 读写都在段上加锁
+	 */
+	private final class Segment extends LinkedHashMap<String, CacheEntry> {
+		private static final long serialVersionUID = 1L;
+
+		/*
+		 * 每次清除时递增, 加载期间key被清除过的数据不再放入缓存, 避免旧值覆盖
+		 */
+		private volatile long invalidateMark;
+
+		Segment() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			return size() > segmentMaxSize;
+		}
+	}
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	/** 每段的最大实体数量 */
+	private volatile int segmentMaxSize;
+
+	private RedisService redisService;
+
+	/** 最大缓存实体数量 */
+	private int maxSize = 10000;
+
+	/** 有效期(毫秒) */
+	private long expireMillis = 60000;
+
+	/** 过期后仍可读取旧值的时间(毫秒), 0为不使用 */
+	private long staleMillis = 0;
+
+	/** 失效通知频道 */
+	private String channel = DEFAULT_CHANNEL;
+
+	private volatile boolean running;
+
+	private volatile JedisPubSub jedisPubSub;
+
+	private Thread subscribeThread;
+
+	public EntityNearCache() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+		setMaxSize(maxSize);
+	}
+
+	public EntityNearCache(RedisService redisService) {
+		this();
+		this.redisService = redisService;
+	}
+
+	/**
+	 * 从本地缓存还原实体
+	 *
+	 * @param key
+	 * @param clazz
+	 * @return 不存在或已过期时返回null
+	 */
+	public <T> T get(String key, Class<?> clazz) {
+		return get(key, clazz, false);
+	}
+
+	/**
+	 * 从本地缓存还原已过期但仍在staleMillis内的实体
+	 *
+	 * @param key
+	 * @param clazz
+	 * @return 不存在、未过期或超出staleMillis时返回null
+	 */
+	public <T> T getStale(String key, Class<?> clazz) {
+		return get(key, clazz, true);
+	}
+
+	private <T> T get(String key, Class<?> clazz, boolean stale) {
+		CacheEntry entry;
+		long now = System.currentTimeMillis();
+		Segment segment = segment(key);
+		synchronized (segment) {
+			entry = segment.get(key);
+			if (entry != null) {
+				if (entry.staleTime <= now) {
+					segment.remove(key);
+					entry = null;
+				} else if ((entry.expireTime <= now) != stale) {
+					entry = null;
+				}
+			}
+		}
+		if (entry == null) {
+			return null;
+		}
+		return ObjectUtils.getObjFromMap(entry.fieldMap, clazz);
+	}
+
+	/**
+	 * 在加载数据前获取key的失效标记
+	 *
+	 * @param key
+	 * @return
+	 */
+	public long getInvalidateMark(String key) {
+		return segment(key).invalidateMark;
+	}
+
+	/**
+	 * 放入本地缓存
+	 *
+	 * @param key
+	 * @param entity
+	 * @param invalidateMark
+	 *            加载前通过getInvalidateMark获取的标记, 期间key被清除过则不放入
+	 */
+	public void put(String key, IEntity entity, long invalidateMark) {
+		if (entity == null) {
+			return;
+		}
+		Map<String, String> fieldMap = EntityUtils.getCacheValueMap(entity, EntitySaveEnum.Save2Redis);
+		if (entity instanceof AbstractEntity) {
+			// 保留缓存版本号, 本地命中的实体也能带版本号更新
+			fieldMap.put(GlobalConstants.RedisVersion.VERSION_FIELD,
+					String.valueOf(((AbstractEntity) entity).getCacheVersion()));
+		}
+		long expireTime = System.currentTimeMillis() + expireMillis;
+		CacheEntry entry = new CacheEntry(fieldMap, expireTime, expireTime + staleMillis);
+		Segment segment = segment(key);
+		synchronized (segment) {
+			if (segment.invalidateMark == invalidateMark) {
+				segment.put(key, entry);
+			}
+		}
+	}
+
+	/**
+	 * 清除本地缓存并通知其他JVM
+	 *
+	 * @param key
+	 */
+	public void invalidate(String key) {
+		invalidateLocal(key);
+		publish(key);
+	}
+
+	/**
+	 * 批量清除本地缓存并通知其他JVM, 只发送一条通知
+	 *
+	 * @param keys
+	 */
+	public void invalidate(List<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (String key : keys) {
+			invalidateLocal(key);
+			if (sb.length() > 0) {
+				sb.append(KEY_SPLIT);
+			}
+			sb.append(key);
+		}
+		publish(sb.toString());
+	}
+
+	/**
+	 * 只清除本JVM的缓存
+	 *
+	 * @param key
+	 */
+	public void invalidateLocal(String key) {
+		Segment segment = segment(key);
+		synchronized (segment) {
+			segment.invalidateMark++;
+			segment.remove(key);
+		}
+	}
+
+	/**
+	 * 清空本JVM的缓存
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.invalidateMark++;
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * 删除已过期的实体
+	 */
+	public void evictExpired() {
+		long now = System.currentTimeMillis();
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				Iterator<CacheEntry> iterator = segment.values().iterator();
+				while (iterator.hasNext()) {
+					if (iterator.next().staleTime <= now) {
+						iterator.remove();
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		start();
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	/**
+	 * 启动订阅线程, 接收其他JVM的失效通知
+	 */
+	public synchronized void start() {
+		if (running || redisService == null) {
+			return;
+		}
+		running = true;
+		subscribeThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				subscribeLoop();
+			}
+		}, GlobalConstants.Thread.ENTITY_NEAR_CACHE_SUBSCRIBE);
+		subscribeThread.setDaemon(true);
+		subscribeThread.start();
+	}
+
+	/**
+	 * 停止订阅并清空缓存
+	 */
+	public synchronized void shutdown() {
+		running = false;
+		JedisPubSub pubSub = jedisPubSub;
+		if (pubSub != null && pubSub.isSubscribed()) {
+			pubSub.unsubscribe();
+		}
+		if (subscribeThread != null) {
+			subscribeThread.interrupt();
+			subscribeThread = null;
+		}
+		clear();
+	}
+
+	private void subscribeLoop() {
+		while (running) {
+			jedisPubSub = new JedisPubSub() {
+				@Override
+				public void onMessage(String channel, String message) {
+					for (String key : message.split(KEY_SPLIT)) {
+						invalidateLocal(key);
+					}
+				}
+			};
+			redisService.subscribe(jedisPubSub, channel);
+			// 订阅断开期间可能丢失通知, 清空本地缓存
+			clear();
+			if (running) {
+				logger.error("EntityNearCache subscribe channel={} disconnected, resubscribe after {}ms", channel,
+						RESUBSCRIBE_INTERVAL);
+				try {
+					Thread.sleep(RESUBSCRIBE_INTERVAL);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void publish(String message) {
+		if (redisService != null) {
+			redisService.publish(channel, message);
+		}
+	}
+
+	private Segment segment(String key) {
+		int h = key.hashCode();
+		// 打散hashCode的高位, 相近的key也能分到不同的段
+		h ^= (h >>> 16);
+		return segments[(h & 0x7fffffff) % SEGMENTS];
+	}
+
+	public RedisService getRedisService() {
+		return redisService;
+	}
+
+	public void setRedisService(RedisService redisService) {
+		this.redisService = redisService;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		this.segmentMaxSize = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+	}
+
+	public long getExpireMillis() {
+		return expireMillis;
+	}
+
+	public void setExpireMillis(long expireMillis) {
+		this.expireMillis = expireMillis;
+	}
+
+	public long getStaleMillis() {
+		return staleMillis;
+	}
+
+	public void setStaleMillis(long staleMillis) {
+		this.staleMillis = staleMillis;
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	public void setChannel(String channel) {
+		this.channel = channel;
+	}
+}
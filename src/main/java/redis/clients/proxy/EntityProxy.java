@@ -10,7 +10,7 @@ import org.springframework.cglib.proxy.MethodInterceptor;
 import org.springframework.cglib.proxy.MethodProxy;
 
 import redis.clients.common.utils.Loggers;
-import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.EntityFieldCodec;
 import redis.clients.common.utils.ObjectUtils;
 import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
 import redis.clients.common.annotation.MethodSaveProxy;
@@ -39,6 +39,14 @@ public class EntityProxy<T extends IEntity> implements MethodInterceptor {
 		this.entity = entity;
 	}
 
+	/**
+	 * 子类自己记录变化字段时使用, 不创建changeParamSet
+	 */
+	protected EntityProxy(T entity, Map<String, Object> changeParamSet) {
+		this.changeParamSet = changeParamSet;
+		this.entity = entity;
+	}
+
 	// 实现MethodInterceptor接口方法
 	@Override
 	public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
@@ -96,7 +104,7 @@ public class EntityProxy<T extends IEntity> implements MethodInterceptor {
 		Map<String, Object> map = new HashMap<>();
 		Field[] fields = null;
 		if (changeParamSet != null && (!changeParamSet.isEmpty())) {
-			fields = EntityUtils.getAllCacheFields(this.getEntity(), type);
+			fields = EntityFieldCodec.getCodec(this.getEntity().getClass()).getCacheFields(type);
 			for (Field field : fields) {
 				String key = field.getName();
 				if (key == null || key.isEmpty()) {
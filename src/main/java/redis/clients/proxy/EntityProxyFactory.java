@@ -13,6 +13,11 @@ import redis.clients.entity.IEntity;
 @Service
 public class EntityProxyFactory {
 
+	/**
+	 * 是否使用BitSetEntityProxy, 每个实体类只生成一次代理类并按位记录变化字段
+	 */
+	private boolean bitSetProxyFlag = false;
+
 	private EntityProxy createProxy(IEntity entity) {
 		return new EntityProxy(entity);
 	}
@@ -34,6 +39,9 @@ public class EntityProxyFactory {
 
 	@SuppressWarnings("unchecked")
 	public <T extends IEntity> T createProxyEntity(T entity) throws Exception {
+		if (bitSetProxyFlag) {
+			return BitSetEntityProxy.createProxyEntity(entity);
+		}
 		EntityProxy entityProxy = createProxy(entity);
 		if (entityProxy != null) {
 			EntityProxyWrapper entityProxyWrapper = new EntityProxyWrapper(entityProxy);			
@@ -50,4 +58,12 @@ public class EntityProxyFactory {
 		}
 		return null;
 	}
+
+	public boolean isBitSetProxyFlag() {
+		return bitSetProxyFlag;
+	}
+
+	public void setBitSetProxyFlag(boolean bitSetProxyFlag) {
+		this.bitSetProxyFlag = bitSetProxyFlag;
+	}
 }
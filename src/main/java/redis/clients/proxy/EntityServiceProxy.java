@@ -1,21 +1,31 @@
 package redis.clients.proxy;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.lang.reflect.Method;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cglib.proxy.MethodInterceptor;
 import org.springframework.cglib.proxy.MethodProxy;
+import redis.clients.common.metrics.MetricsRecorder;
 import redis.clients.common.utils.Loggers;
 import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
 import redis.clients.common.annotation.DbOperation;
 import redis.clients.common.constant.DbOperationEnum;
+import redis.clients.common.constant.GlobalConstants;
 import redis.clients.entity.AbstractEntity;
+import redis.clients.entity.EntityAsyncSaveQueue;
 import redis.clients.entity.EntityService;
+import redis.clients.proxy.EntitySingleFlight.EntityLoader;
 import redis.clients.redis.RedisInterface;
 import redis.clients.redis.RedisListInterface;
 import redis.clients.redis.RedisService;
+import redis.clients.redis.VersionUpdateResult;
+import redis.clients.sharding.CustomerContextHolder;
 
 /**
  * Created by qq24139297 on 2017/3/23. 实体存储服务代理 同步存储
@@ -32,11 +42,29 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 
 	private boolean useRedisFlag;
 
+	// 异步存储队列, 为null时所有更新同步写入db
+	private EntityAsyncSaveQueue entityAsyncSaveQueue;
+
+	// 本地缓存, 为null时查询直接访问redis
+	private EntityNearCache entityNearCache;
+
+	// 缓存未命中时合并并发的db查询, 为null时每个请求各自查询db
+	private EntitySingleFlight entitySingleFlight;
+
+	// 统计, 为null时不统计
+	private MetricsRecorder metricsRecorder;
+
 	public EntityServiceProxy(RedisService redisService, boolean useRedisFlag) {
 		this.redisService = redisService;
 		this.useRedisFlag = useRedisFlag;
 	}
 
+	public EntityServiceProxy(RedisService redisService, boolean useRedisFlag,
+			EntityAsyncSaveQueue entityAsyncSaveQueue) {
+		this(redisService, useRedisFlag);
+		this.entityAsyncSaveQueue = entityAsyncSaveQueue;
+	}
+
 	@Override
 	public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
 		Object result = null;
@@ -58,7 +86,7 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 			DbOperationEnum dbOperationEnum = dbOperation.operation();
 			switch (dbOperationEnum) {
 			case insert:
-				result = methodProxy.invokeSuper(obj, args);
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				abstractEntity = (AbstractEntity) args[0];
 				if(abstractEntity != null) {
 					ret = EntityUtils.updateAllFieldEntity(redisService, abstractEntity);
@@ -66,7 +94,7 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 				}
 				break;
 			case insertBatch:
-				result = methodProxy.invokeSuper(obj, args);
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				entityList = (List<AbstractEntity>) args[0];
 				if(entityList != null) {
 					retlist = EntityUtils.updateAllFieldEntityList(redisService, entityList);
@@ -77,16 +105,36 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 				}
 				break;
 			case update:
-				result = methodProxy.invokeSuper(obj, args);
 				abstractEntity = (AbstractEntity) args[0];
+				if (isAsyncSave(abstractEntity)) {
+					result = asyncUpdateEntity((EntityService) obj, abstractEntity);
+					break;
+				}
+				if (isVersionUpdate(abstractEntity)) {
+					result = updateWithVersion(obj, args, methodProxy, dbOperationEnum, abstractEntity);
+					break;
+				}
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				if(abstractEntity != null) {
 					ret = EntityUtils.updateChangedFieldEntity(redisService, abstractEntity);
 					result = ret ? true:result;
 				}
 				break;
 			case updateBatch:
-				result = methodProxy.invokeSuper(obj, args);
 				entityList = (List<AbstractEntity>) args[0];
+				if (entityList != null && !entityList.isEmpty() && isAsyncSave(entityList.get(0))) {
+					retlist = new ArrayList<>();
+					for (AbstractEntity entity : entityList) {
+						retlist.add(asyncUpdateEntity((EntityService) obj, entity) ? 1L : 0L);
+					}
+					result = retlist;
+					break;
+				}
+				if (entityList != null && !entityList.isEmpty() && isVersionUpdate(entityList.get(0))) {
+					result = updateBatchWithVersion(obj, args, methodProxy, dbOperationEnum, entityList);
+					break;
+				}
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				if(entityList != null) {
 					retlist = EntityUtils.updateChangedFieldEntityList(redisService, entityList);
 					if (((retlist != null)&&(retlist.size() > 0))
@@ -96,16 +144,26 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 				}
 				break;
 			case delete:
-				result = methodProxy.invokeSuper(obj, args);
 				abstractEntity = (AbstractEntity) args[0];
+				if (isAsyncSave(abstractEntity)) {
+					entityAsyncSaveQueue.cancel(abstractEntity);
+				}
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				if(abstractEntity != null) {
 					ret = EntityUtils.deleteEntity(redisService, abstractEntity);
 					result = ret ? true:result;
 				}
 				break;
 			case deleteBatch:
-				result = methodProxy.invokeSuper(obj, args);
 				entityList = (List<AbstractEntity>) args[0];
+				if (entityList != null) {
+					for (AbstractEntity entity : entityList) {
+						if (isAsyncSave(entity)) {
+							entityAsyncSaveQueue.cancel(entity);
+						}
+					}
+				}
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				if(entityList != null) {
 					retlist = EntityUtils.deleteEntityList(redisService, entityList);
 					if (((retlist != null)&&(retlist.size() > 0))
@@ -116,15 +174,40 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 				break;
 			case query:
 				abstractEntity = (AbstractEntity) args[0];
+				String nearCacheKey = null;
+				long invalidateMark = 0;
+				String loadKey = null;
+				EntityLoader cacheReader = null;
 				if (abstractEntity != null) {
+					final Class<?> clazz = abstractEntity.getClass();
 					if (abstractEntity instanceof RedisInterface) {
 						RedisInterface redisInterface = (RedisInterface) abstractEntity;
-						result = redisService.getObjectFromHash(EntityUtils.getRedisKey(redisInterface),
-								abstractEntity.getClass());
+						final String redisKey = EntityUtils.getRedisKey(redisInterface);
+						if (entityNearCache != null) {
+							result = entityNearCache.get(redisKey, clazz);
+							recordCache("nearCache", result != null);
+							if (result != null) {
+								break;
+							}
+							result = getStaleNearCache(obj, args, methodProxy, redisKey, clazz);
+							if (result != null) {
+								break;
+							}
+							nearCacheKey = redisKey;
+							invalidateMark = entityNearCache.getInvalidateMark(redisKey);
+						}
+						result = redisService.getObjectFromHash(redisKey, clazz);
+						recordCache("redis.query", result != null);
+						loadKey = redisKey;
+						cacheReader = () -> redisService.getObjectFromHash(redisKey, clazz);
 					} else if (abstractEntity instanceof RedisListInterface) {
 						RedisListInterface redisInterface = (RedisListInterface) abstractEntity;
-						result = redisService.getObjectFromList(EntityUtils.getRedisListKey(redisInterface),
-								redisInterface.getSubUniqueKey(), abstractEntity.getClass());
+						final String redisListKey = EntityUtils.getRedisListKey(redisInterface);
+						final String subUniqueKey = redisInterface.getSubUniqueKey();
+						result = redisService.getObjectFromList(redisListKey, subUniqueKey, clazz);
+						recordCache("redis.query", result != null);
+						loadKey = redisListKey + EntityUtils.ENTITY_SPLIT_STRING + subUniqueKey;
+						cacheReader = () -> redisService.getObjectFromList(redisListKey, subUniqueKey, clazz);
 					} else {
 						proxyLogger.error(
 								"EntityServiceProxy query interface error! " 
@@ -133,20 +216,27 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 					}
 				}
 				if (result == null) {
-					result = methodProxy.invokeSuper(obj, args);
-					if (result != null) {
-						abstractEntity = (AbstractEntity) result;
-						ret = EntityUtils.updateAllFieldEntity(redisService, abstractEntity);
-					}
+					result = loadEntity(obj, args, methodProxy, loadKey, cacheReader);
 				}
+				// 只缓存与查询key一致的实体, 保证写操作能按实体key清除
+				putNearCache(nearCacheKey, result, invalidateMark);
 				break;
 			case queryList:
 				abstractEntity = (AbstractEntity) args[0];
+				String listKey = null;
+				EntityLoader listReader = null;
 				if (abstractEntity != null) {
 					if (abstractEntity instanceof RedisListInterface) {
 						RedisListInterface redisInterface = (RedisListInterface) abstractEntity;
-						result = redisService.getListFromHash(EntityUtils.getRedisListKey(redisInterface),
-								abstractEntity.getClass());
+						final String redisListKey = EntityUtils.getRedisListKey(redisInterface);
+						final Class<?> clazz = abstractEntity.getClass();
+						result = redisService.getListFromHash(redisListKey, clazz);
+						recordCache("redis.queryList", result != null && !((List<?>) result).isEmpty());
+						listKey = redisListKey;
+						listReader = () -> {
+							List<?> list = redisService.getListFromHash(redisListKey, clazz);
+							return list == null || list.isEmpty() ? null : list;
+						};
 						// if (result != null) {
 						// result = filterEntity((List<IEntity>) result, abstractEntity);
 						// }
@@ -158,19 +248,319 @@ public class EntityServiceProxy<T extends EntityService> implements MethodInterc
 					//}
 				}
 				if (result == null) {
-					result = methodProxy.invokeSuper(obj, args);
-					if (result != null) {
-						retlist = EntityUtils.updateAllFieldEntityList(redisService, (List<AbstractEntity>) result);
-					}
+					result = loadEntityList(obj, args, methodProxy, listKey, listReader);
+				}
+				break;
+			case queryListStream:
+				// 每批实体先写入缓存再交给调用方. 列表实体的一个列表key可能跨多批, 写入部分列表会被当作完整列表读取, 所以只缓存RedisInterface实体
+				final Consumer<List<AbstractEntity>> consumer = (Consumer<List<AbstractEntity>>) args[2];
+				if (consumer != null) {
+					args[2] = (Consumer<List<AbstractEntity>>) list -> {
+						if (!list.isEmpty() && list.get(0) instanceof RedisInterface) {
+							EntityUtils.updateAllFieldEntityList(redisService, list);
+						}
+						consumer.accept(list);
+					};
 				}
+				result = invokeDb(obj, args, methodProxy, dbOperationEnum);
 				break;
 				default:
 					break;
 			}
+			if (entityNearCache != null) {
+				invalidateNearCache(dbOperationEnum, args[0]);
+			}
 		}
 		return result;
 	}
 
+	/*
+	 * 执行被代理的db操作, 记录耗时和EntityService实际使用的数据源
+	 */
+	private Object invokeDb(Object obj, Object[] args, MethodProxy methodProxy, DbOperationEnum dbOperationEnum)
+			throws Throwable {
+		if (metricsRecorder == null) {
+			return methodProxy.invokeSuper(obj, args);
+		}
+		long start = System.nanoTime();
+		boolean success = false;
+		CustomerContextHolder.setUsedDBKey(null);
+		try {
+			Object result = methodProxy.invokeSuper(obj, args);
+			success = true;
+			return result;
+		} finally {
+			String dbKey = CustomerContextHolder.getUsedDBKey();
+			metricsRecorder.recordLatency("db." + dbOperationEnum.name(),
+					dbKey != null ? dbKey : CustomerContextHolder.getCustomerType(), System.nanoTime() - start, success);
+		}
+	}
+
+	private void recordCache(String name, boolean hit) {
+		if (metricsRecorder != null) {
+			metricsRecorder.recordCache(name, hit);
+		}
+	}
+
+	/**
+	 * 缓存未命中时查询db并写入缓存, 配置了entitySingleFlight时同一个key只查询一次
+	 * 
+	 * @param obj
+	 * @param args
+	 * @param methodProxy
+	 * @param loadKey
+	 *            缓存key, 为null时直接查询db
+	 * @param cacheReader
+	 *            等待其他线程加载后从缓存读取
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object loadEntity(final Object obj, final Object[] args, final MethodProxy methodProxy, String loadKey,
+			EntityLoader cacheReader) throws Throwable {
+		EntityLoader dbLoader = () -> {
+			Object result = invokeDb(obj, args, methodProxy, DbOperationEnum.query);
+			if (result != null) {
+				EntityUtils.updateAllFieldEntity(redisService, (AbstractEntity) result);
+			}
+			return result;
+		};
+		if (entitySingleFlight == null || loadKey == null) {
+			return dbLoader.load();
+		}
+		return entitySingleFlight.load(loadKey, dbLoader, cacheReader);
+	}
+
+	/**
+	 * 列表缓存未命中时查询db并写入缓存, 配置了entitySingleFlight时同一个列表key只查询一次
+	 */
+	@SuppressWarnings("unchecked")
+	private Object loadEntityList(final Object obj, final Object[] args, final MethodProxy methodProxy,
+			String listKey, EntityLoader listReader) throws Throwable {
+		EntityLoader dbLoader = () -> {
+			Object result = invokeDb(obj, args, methodProxy, DbOperationEnum.queryList);
+			if (result != null) {
+				EntityUtils.updateAllFieldEntityList(redisService, (List<AbstractEntity>) result);
+			}
+			return result;
+		};
+		if (entitySingleFlight == null || listKey == null) {
+			return dbLoader.load();
+		}
+		return entitySingleFlight.load(listKey, dbLoader, listReader);
+	}
+
+	/**
+	 * 读取本地缓存中已过期但仍可使用的实体, 同时在后台刷新
+	 * 
+	 * @return 没有旧值或无法后台刷新时返回null
+	 */
+	private Object getStaleNearCache(final Object obj, final Object[] args, final MethodProxy methodProxy,
+			final String redisKey, final Class<?> clazz) {
+		if (entitySingleFlight == null || entityNearCache.getStaleMillis() <= 0) {
+			return null;
+		}
+		Object stale = entityNearCache.getStale(redisKey, clazz);
+		if (stale == null) {
+			return null;
+		}
+		final long invalidateMark = entityNearCache.getInvalidateMark(redisKey);
+		boolean refresh = entitySingleFlight.refreshAsync(redisKey, () -> {
+			EntityLoader cacheReader = () -> redisService.getObjectFromHash(redisKey, clazz);
+			Object result = cacheReader.load();
+			if (result == null) {
+				result = loadEntity(obj, args, methodProxy, redisKey, cacheReader);
+			}
+			putNearCache(redisKey, result, invalidateMark);
+			return result;
+		});
+		return refresh ? stale : null;
+	}
+
+	private void putNearCache(String nearCacheKey, Object result, long invalidateMark) {
+		if (nearCacheKey != null && result instanceof RedisInterface
+				&& nearCacheKey.equals(EntityUtils.getRedisKey((RedisInterface) result))) {
+			entityNearCache.put(nearCacheKey, (AbstractEntity) result, invalidateMark);
+		}
+	}
+
+	/**
+	 * 写操作后清除本地缓存, 并通知其他JVM
+	 * 
+	 * @param dbOperationEnum
+	 * @param arg
+	 */
+	@SuppressWarnings("unchecked")
+	private void invalidateNearCache(DbOperationEnum dbOperationEnum, Object arg) {
+		switch (dbOperationEnum) {
+		case insert:
+		case update:
+		case delete:
+			if (arg instanceof RedisInterface) {
+				entityNearCache.invalidate(EntityUtils.getRedisKey((RedisInterface) arg));
+			}
+			break;
+		case insertBatch:
+		case updateBatch:
+		case deleteBatch:
+			if (arg != null) {
+				List<String> keys = new ArrayList<>();
+				for (AbstractEntity entity : (List<AbstractEntity>) arg) {
+					if (entity instanceof RedisInterface) {
+						keys.add(EntityUtils.getRedisKey((RedisInterface) entity));
+					}
+				}
+				entityNearCache.invalidate(keys);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private boolean isAsyncSave(AbstractEntity abstractEntity) {
+		return entityAsyncSaveQueue != null && EntityAsyncSaveQueue.isAsyncSave(abstractEntity);
+	}
+
+	private boolean isVersionUpdate(AbstractEntity abstractEntity) {
+		return redisService.isVersionFlag() && abstractEntity instanceof RedisInterface;
+	}
+
+	/**
+	 * 带版本号更新 写入DB之前检查缓存版本号, 冲突时不写入DB. DB写入后缓存版本冲突(并发更新)时删除缓存, 由下次读取从DB重新加载
+	 * 
+	 * @return 版本冲突时返回false
+	 */
+	private Object updateWithVersion(Object obj, Object[] args, MethodProxy methodProxy,
+			DbOperationEnum dbOperationEnum, AbstractEntity abstractEntity) throws Throwable {
+		if (!EntityUtils.checkVersion(redisService, abstractEntity)) {
+			return false;
+		}
+		Object result = invokeDb(obj, args, methodProxy, dbOperationEnum);
+		VersionUpdateResult versionResult = EntityUtils.updateChangedFieldEntityWithVersion(redisService,
+				abstractEntity);
+		if (versionResult == null) {
+			return result;
+		}
+		if (versionResult.isConflict()) {
+			redisService.deleteKey(EntityUtils.getRedisKey((RedisInterface) abstractEntity));
+			return false;
+		}
+		return versionResult.isSuccess() ? true : result;
+	}
+
+	/**
+	 * 批量带版本号更新 只把版本号一致的实体写入DB, 冲突的实体结果为0, DB写入后才冲突的实体删除缓存
+	 * 
+	 * @return 与entityList顺序一致的结果
+	 */
+	@SuppressWarnings("unchecked")
+	private Object updateBatchWithVersion(Object obj, Object[] args, MethodProxy methodProxy,
+			DbOperationEnum dbOperationEnum, List<AbstractEntity> entityList) throws Throwable {
+		boolean[] checked = EntityUtils.checkVersionList(redisService, entityList);
+		List<AbstractEntity> updateList = new ArrayList<>(entityList.size());
+		for (int i = 0; i < entityList.size(); i++) {
+			if (checked[i]) {
+				updateList.add(entityList.get(i));
+			}
+		}
+		List<Long> retlist = new ArrayList<>(Collections.nCopies(entityList.size(), 0L));
+		if (updateList.isEmpty()) {
+			return retlist;
+		}
+		Object[] updateArgs = args.clone();
+		updateArgs[0] = updateList;
+		List<Long> dbList = (List<Long>) invokeDb(obj, updateArgs, methodProxy, dbOperationEnum);
+		List<Long> cacheList = EntityUtils.updateChangedFieldEntityList(redisService, updateList);
+		boolean useDb = dbList != null && !dbList.isEmpty();
+		List<String> conflictKeys = new ArrayList<>();
+		int index = 0;
+		for (int i = 0; i < entityList.size(); i++) {
+			if (!checked[i]) {
+				continue;
+			}
+			long cacheRet = index < cacheList.size() ? cacheList.get(index) : 0L;
+			if (cacheRet == GlobalConstants.RedisVersion.VERSION_CONFLICT) {
+				conflictKeys.add(EntityUtils.getRedisKey((RedisInterface) entityList.get(i)));
+			} else if (useDb) {
+				retlist.set(i, index < dbList.size() ? dbList.get(index) : 0L);
+			} else {
+				retlist.set(i, cacheRet);
+			}
+			index++;
+		}
+		if (!conflictKeys.isEmpty()) {
+			redisService.deleteKeyBatch(conflictKeys);
+		}
+		return retlist;
+	}
+
+	/**
+	 * 异步更新 立即更新缓存, db需要更新的字段放入异步存储队列
+	 * 
+	 * @param entityService
+	 * @param abstractEntity
+	 * @return
+	 */
+	private boolean asyncUpdateEntity(EntityService entityService, AbstractEntity abstractEntity) {
+		EntityProxyWrapper entityProxyWrapper = abstractEntity.getEntityProxyWrapper();
+		if (entityProxyWrapper == null || entityProxyWrapper.getEntityProxy() == null) {
+			proxyLogger.error("EntityServiceProxy asyncUpdateEntity Error! entityProxyWrapper is NULL! entity={}",
+					abstractEntity.toString());
+			return false;
+		}
+		EntityProxy entityProxy = entityProxyWrapper.getEntityProxy();
+		if (!entityProxy.isDirtyFlag()) {
+			return false;
+		}
+		Map<String, Object> changeParamSet = entityProxy.getChangeParamSet(EntitySaveEnum.Save2DB);
+		if (isVersionUpdate(abstractEntity)) {
+			// 先做带版本号的缓存更新, 冲突的更新不放入队列. 缓存里是另一个还在队列中的更新, 不能删除
+			VersionUpdateResult versionResult = EntityUtils.updateChangedFieldEntityWithVersion(redisService,
+					abstractEntity);
+			if (versionResult != null && versionResult.isConflict()) {
+				return false;
+			}
+			entityAsyncSaveQueue.offer(entityService, abstractEntity, changeParamSet);
+			return (versionResult != null && versionResult.isSuccess())
+					|| (changeParamSet != null && !changeParamSet.isEmpty());
+		}
+		entityAsyncSaveQueue.offer(entityService, abstractEntity, changeParamSet);
+		boolean ret = EntityUtils.updateChangedFieldEntity(redisService, abstractEntity);
+		return ret || (changeParamSet != null && !changeParamSet.isEmpty());
+	}
+
+	public EntityAsyncSaveQueue getEntityAsyncSaveQueue() {
+		return entityAsyncSaveQueue;
+	}
+
+	public void setEntityAsyncSaveQueue(EntityAsyncSaveQueue entityAsyncSaveQueue) {
+		this.entityAsyncSaveQueue = entityAsyncSaveQueue;
+	}
+
+	public EntityNearCache getEntityNearCache() {
+		return entityNearCache;
+	}
+
+	public void setEntityNearCache(EntityNearCache entityNearCache) {
+		this.entityNearCache = entityNearCache;
+	}
+
+	public MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder;
+	}
+
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	public EntitySingleFlight getEntitySingleFlight() {
+		return entitySingleFlight;
+	}
+
+	public void setEntitySingleFlight(EntitySingleFlight entitySingleFlight) {
+		this.entitySingleFlight = entitySingleFlight;
+	}
+
 	/**
 	 * 根据封装的条件判断查找出相同的对象
 	 * 
@@ -4,7 +4,9 @@ import org.apache.commons.beanutils.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cglib.proxy.Enhancer;
 import org.springframework.stereotype.Service;
+import redis.clients.common.metrics.MetricsRecorder;
 import redis.clients.redis.RedisService;
+import redis.clients.entity.EntityAsyncSaveQueue;
 import redis.clients.entity.EntityService;
 
 /**
@@ -19,8 +21,35 @@ public class EntityServiceProxyFactory {
 	@Autowired(required = false)
 	private boolean useRedisFlag = true;
 
+	@Autowired(required = false)
+	private EntityAsyncSaveQueue entityAsyncSaveQueue;
+
+	@Autowired(required = false)
+	private EntityNearCache entityNearCache;
+
+	@Autowired(required = false)
+	private EntitySingleFlight entitySingleFlight;
+
+	@Autowired(required = false)
+	private MetricsRecorder metricsRecorder;
+
 	private EntityServiceProxy createProxy(EntityService EntityService) {
-		return new EntityServiceProxy<>(redisService, useRedisFlag);
+		if (entityAsyncSaveQueue != null) {
+			// 手动创建的队列没有经过spring生命周期, 重复调用无影响
+			entityAsyncSaveQueue.start();
+		}
+		if (entityNearCache != null) {
+			if (entityNearCache.getRedisService() == null) {
+				entityNearCache.setRedisService(redisService);
+			}
+			// 订阅其他JVM的失效通知, 重复调用无影响
+			entityNearCache.start();
+		}
+		EntityServiceProxy entityServiceProxy = new EntityServiceProxy<>(redisService, useRedisFlag, entityAsyncSaveQueue);
+		entityServiceProxy.setEntityNearCache(entityNearCache);
+		entityServiceProxy.setEntitySingleFlight(entitySingleFlight);
+		entityServiceProxy.setMetricsRecorder(metricsRecorder);
+		return entityServiceProxy;
 	}
 
 	private <T extends EntityService> T createProxyService(T entityService, EntityServiceProxy entityServiceProxy) {
@@ -45,4 +74,36 @@ public class EntityServiceProxyFactory {
 	public void setRedisService(RedisService redisService) {
 		this.redisService = redisService;
 	}
+
+	public EntityAsyncSaveQueue getEntityAsyncSaveQueue() {
+		return entityAsyncSaveQueue;
+	}
+
+	public void setEntityAsyncSaveQueue(EntityAsyncSaveQueue entityAsyncSaveQueue) {
+		this.entityAsyncSaveQueue = entityAsyncSaveQueue;
+	}
+
+	public EntityNearCache getEntityNearCache() {
+		return entityNearCache;
+	}
+
+	public void setEntityNearCache(EntityNearCache entityNearCache) {
+		this.entityNearCache = entityNearCache;
+	}
+
+	public EntitySingleFlight getEntitySingleFlight() {
+		return entitySingleFlight;
+	}
+
+	public void setEntitySingleFlight(EntitySingleFlight entitySingleFlight) {
+		this.entitySingleFlight = entitySingleFlight;
+	}
+
+	public MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder;
+	}
+
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
 }
@@ -0,0 +1,309 @@
+package redis.clients.proxy;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+
+import redis.clients.common.constant.GlobalConstants;
+import redis.clients.common.utils.Loggers;
+import redis.clients.redis.RedisService;
+
+/**
+ * 缓存未命中时的单次加载 (single-flight)
+ *
+ * 同一个key同时只有一个线程查询db, 其余线程等待加载完成后从缓存读取.
+ * 开启leaseFlag后通过redis SET NX PX租约保证多个JVM中也只有一个节点查询db, 加载完成后租约被替换为完成标记(数据不存在时为空标记),
+ * 未拿到租约的节点轮询租约直到出现完成标记或超时.
+ * 启动后可通过refreshAsync在后台刷新过期数据(stale-while-revalidate), 同一个key同时只刷新一次
+ */
+public class EntitySingleFlight {
+
+	private static final Logger logger = Loggers.dbServiceProxyLogger;
+
+	/** 租约key前缀 */
+	private static final String LEASE_KEY_PREFIX = "sf#";
+
+	/** 加载完成且数据存在的标记, 租约key的值被替换为该标记 */
+	private static final String LEASE_DONE = "sf#done";
+
+	/** 加载完成但数据不存在的标记, 等待的节点直接返回null, 不必等到超时 */
+	private static final String LEASE_EMPTY = "sf#empty";
+
+	/**
+	 * 加载数据
+	 */
+	public interface EntityLoader {
+		Object load() throws Throwable;
+	}
+
+	private final ConcurrentHashMap<String, CompletableFuture<Object>> flightMap = new ConcurrentHashMap<>();
+
+	/* 正在后台刷新的key */
+	private final Set<String> refreshKeys = ConcurrentHashMap.newKeySet();
+
+	/** 本JVM唯一标识, 作为租约的值 */
+	private final String owner = UUID.randomUUID().toString();
+
+	private RedisService redisService;
+
+	/** 是否使用redis租约在多个JVM之间只加载一次 */
+	private boolean leaseFlag = false;
+
+	/** 租约有效期(毫秒) */
+	private int leaseMillis = 3000;
+
+	/** 等待其他线程或节点加载的最长时间(毫秒), 超时后自己加载 */
+	private long waitMillis = 3000;
+
+	/** 等待其他节点时轮询租约的间隔(毫秒) */
+	private long pollInterval = 20;
+
+	/** 加载完成标记的有效期(毫秒), 需大于pollInterval, 过长会延迟新插入数据的可见性 */
+	private long doneMillis = 200;
+
+	/** 后台刷新线程数 */
+	private int refreshThreads = 2;
+
+	/** 后台刷新等待队列长度, 队列满时放弃刷新 */
+	private int refreshQueueSize = 10000;
+
+	private volatile ExecutorService refreshExecutor;
+
+	public EntitySingleFlight() {
+	}
+
+	public EntitySingleFlight(RedisService redisService) {
+		this.redisService = redisService;
+	}
+
+	/**
+	 * 加载key对应的数据
+	 *
+	 * @param key
+	 *            缓存key
+	 * @param dbLoader
+	 *            查询db并写入缓存
+	 * @param cacheReader
+	 *            从缓存读取, 等待其他线程加载完成后使用, 每个线程得到自己的实体对象
+	 * @return
+	 * @throws Throwable
+	 */
+	public Object load(String key, EntityLoader dbLoader, EntityLoader cacheReader) throws Throwable {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> flight = flightMap.putIfAbsent(key, future);
+		if (flight != null) {
+			return follow(flight, dbLoader, cacheReader);
+		}
+		try {
+			Object result = lead(key, dbLoader, cacheReader);
+			future.complete(result);
+			return result;
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			flightMap.remove(key, future);
+		}
+	}
+
+	/**
+	 * 在后台刷新key对应的数据, 同一个key已在刷新时忽略
+	 *
+	 * @param key
+	 * @param loader
+	 * @return 未启动后台刷新或队列已满时返回false, 调用方需要自己加载
+	 */
+	public boolean refreshAsync(final String key, final EntityLoader loader) {
+		ExecutorService executor = refreshExecutor;
+		if (executor == null) {
+			return false;
+		}
+		if (!refreshKeys.add(key)) {
+			return true;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						loader.load();
+					} catch (Throwable e) {
+						logger.error("EntitySingleFlight refresh Error! key={} Exception err={}", key, e.toString());
+					} finally {
+						refreshKeys.remove(key);
+					}
+				}
+			});
+			return true;
+		} catch (Exception e) {
+			refreshKeys.remove(key);
+			logger.error("EntitySingleFlight refresh rejected! key={} Exception err={}", key, e.toString());
+			return false;
+		}
+	}
+
+	/**
+	 * 启动后台刷新线程
+	 */
+	public synchronized void start() {
+		if (refreshExecutor != null) {
+			return;
+		}
+		final AtomicInteger threadIndex = new AtomicInteger();
+		refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(refreshQueueSize), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r,
+								GlobalConstants.Thread.ENTITY_SINGLE_FLIGHT_REFRESH + "_" + threadIndex.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * 停止后台刷新线程, 未执行的刷新被丢弃
+	 */
+	public synchronized void shutdown() {
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+		refreshKeys.clear();
+	}
+
+	/**
+	 * 当前正在加载的key数量
+	 */
+	public int size() {
+		return flightMap.size();
+	}
+
+	private Object lead(String key, EntityLoader dbLoader, EntityLoader cacheReader) throws Throwable {
+		if (!leaseFlag || redisService == null) {
+			return dbLoader.load();
+		}
+		String leaseKey = LEASE_KEY_PREFIX + key;
+		if (redisService.setNxPxString(leaseKey, owner, leaseMillis)) {
+			boolean empty = false;
+			try {
+				Object result = dbLoader.load();
+				empty = result == null;
+				return result;
+			} finally {
+				// 只替换自己的租约, 租约已过期并被其他节点拿到时不影响对方; 加载异常时标记为完成, 等待的节点自己加载
+				redisService.compareAndSetPxString(leaseKey, owner, empty ? LEASE_EMPTY : LEASE_DONE, doneMillis);
+			}
+		}
+		// 其他节点正在加载, 等待租约变为完成标记
+		long deadline = System.currentTimeMillis() + waitMillis;
+		while (System.currentTimeMillis() < deadline) {
+			Thread.sleep(pollInterval);
+			String lease = redisService.getString(leaseKey);
+			if (LEASE_EMPTY.equals(lease)) {
+				return null;
+			}
+			if (lease == null || LEASE_DONE.equals(lease)) {
+				// 加载完成, 或持有租约的节点已退出
+				Object result = cacheReader.load();
+				return result != null ? result : dbLoader.load();
+			}
+		}
+		logger.info("EntitySingleFlight wait lease timeout, load by self! key={}", key);
+		return dbLoader.load();
+	}
+
+	private Object follow(CompletableFuture<Object> flight, EntityLoader dbLoader, EntityLoader cacheReader)
+			throws Throwable {
+		Object flightResult;
+		try {
+			flightResult = flight.get(waitMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		} catch (TimeoutException e) {
+			return dbLoader.load();
+		}
+		if (flightResult == null) {
+			return null;
+		}
+		Object result = cacheReader.load();
+		// 缓存写入失败时使用加载线程的结果
+		return result != null ? result : flightResult;
+	}
+
+	public int getRefreshThreads() {
+		return refreshThreads;
+	}
+
+	public void setRefreshThreads(int refreshThreads) {
+		this.refreshThreads = refreshThreads;
+	}
+
+	public int getRefreshQueueSize() {
+		return refreshQueueSize;
+	}
+
+	public void setRefreshQueueSize(int refreshQueueSize) {
+		this.refreshQueueSize = refreshQueueSize;
+	}
+
+	public RedisService getRedisService() {
+		return redisService;
+	}
+
+	public void setRedisService(RedisService redisService) {
+		this.redisService = redisService;
+	}
+
+	public boolean isLeaseFlag() {
+		return leaseFlag;
+	}
+
+	public void setLeaseFlag(boolean leaseFlag) {
+		this.leaseFlag = leaseFlag;
+	}
+
+	public int getLeaseMillis() {
+		return leaseMillis;
+	}
+
+	public void setLeaseMillis(int leaseMillis) {
+		this.leaseMillis = leaseMillis;
+	}
+
+	public long getWaitMillis() {
+		return waitMillis;
+	}
+
+	public void setWaitMillis(long waitMillis) {
+		this.waitMillis = waitMillis;
+	}
+
+	public long getDoneMillis() {
+		return doneMillis;
+	}
+
+	public void setDoneMillis(long doneMillis) {
+		this.doneMillis = doneMillis;
+	}
+
+	public long getPollInterval() {
+		return pollInterval;
+	}
+
+	public void setPollInterval(long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+}
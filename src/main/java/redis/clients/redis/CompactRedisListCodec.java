@@ -0,0 +1,93 @@
+package redis.clients.redis;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ClassUtils;
+
+import redis.clients.common.utils.EntityFieldCodec;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+
+/**
+ * 紧凑的列表缓存编解码器
+ *
+ * 按EntityFieldCodec的Save2Redis字段顺序只保存字段值, 不保存字段名, 每个值前加长度, 解码时不需要json解析和转义.
+ * 格式: 标记字符 + 字段表签名 + ':' + (值长度 + ':' + 值)*
+ * 字段表签名与当前类不一致(实体字段有增删)时按未命中处理, 由db重新加载. 以'{'开头的旧数据使用JsonRedisListCodec读取
+ */
+public class CompactRedisListCodec implements RedisListCodec {
+
+	/** 紧凑格式的标记字符, 与json的'{'区分 */
+	private static final char MARK = '\u0002';
+
+	private static final char SPLIT = ':';
+
+	private static final ConcurrentMap<Class<?>, String> signatures = new ConcurrentHashMap<>();
+
+	private final RedisListCodec jsonCodec = new JsonRedisListCodec();
+
+	@Override
+	public String encode(RedisListInterface po) {
+		Class<?> clazz = ClassUtils.getUserClass(po);
+		String[] values = EntityFieldCodec.getCodec(clazz).encodeValues(po, EntitySaveEnum.Save2Redis);
+		if (values.length == 0) {
+			return null;
+		}
+		int length = 8;
+		for (String value : values) {
+			length += value.length() + 4;
+		}
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(MARK).append(getSignature(clazz)).append(SPLIT);
+		for (String value : values) {
+			sb.append(value.length()).append(SPLIT).append(value);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(String value, Class<?> clazz) throws Exception {
+		if (value.isEmpty() || value.charAt(0) != MARK) {
+			return jsonCodec.decode(value, clazz);
+		}
+		String signature = getSignature(clazz);
+		int index = value.indexOf(SPLIT, 1);
+		if (index - 1 != signature.length() || !value.regionMatches(1, signature, 0, signature.length())) {
+			return null;
+		}
+		EntityFieldCodec codec = EntityFieldCodec.getCodec(clazz);
+		String[] values = new String[codec.getCacheFields(EntitySaveEnum.Save2Redis).length];
+		int position = index + 1;
+		for (int i = 0; i < values.length; i++) {
+			int length = 0;
+			char c;
+			while ((c = value.charAt(position++)) != SPLIT) {
+				length = length * 10 + (c - '0');
+			}
+			values[i] = value.substring(position, position + length);
+			position += length;
+		}
+		Object po = clazz.newInstance();
+		codec.decodeValues(values, po, EntitySaveEnum.Save2Redis);
+		return (T) po;
+	}
+
+	/*
+	 * 字段表签名, 字段名顺序的hash
+	 */
+	private static String getSignature(Class<?> clazz) {
+		String signature = signatures.get(clazz);
+		if (signature == null) {
+			int hash = 1;
+			for (Field field : EntityFieldCodec.getCodec(clazz).getCacheFields(EntitySaveEnum.Save2Redis)) {
+				hash = 31 * hash + field.getName().hashCode();
+				hash = 31 * hash + field.getType().getName().hashCode();
+			}
+			signature = Integer.toString(hash, Character.MAX_RADIX);
+			signatures.putIfAbsent(clazz, signature);
+		}
+		return signature;
+	}
+}
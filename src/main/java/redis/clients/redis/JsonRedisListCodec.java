@@ -0,0 +1,41 @@
+package redis.clients.redis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.fastjson.JSON;
+
+import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+import redis.clients.common.utils.ObjectUtils;
+import redis.clients.entity.IEntity;
+
+/**
+ * 默认的列表缓存编解码器, 字段名到字段值的json
+ */
+public class JsonRedisListCodec implements RedisListCodec {
+
+	@Override
+	public String encode(RedisListInterface po) {
+		Map<String, String> cacheMap = EntityUtils.getCacheValueMap((IEntity) po, EntitySaveEnum.Save2Redis);
+		if (cacheMap == null || cacheMap.isEmpty()) {
+			return null;
+		}
+		return JSON.toJSONString(cacheMap);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(String value, Class<?> clazz) throws Exception {
+		Map<String, String> mapFields;
+		if (value.startsWith("{\"")) {
+			mapFields = JSON.parseObject(value, HashMap.class);
+		} else {
+			// 兼容Map.toString格式的旧数据
+			mapFields = JSON.parseObject(value.replaceAll("=", ":"), HashMap.class);
+		}
+		Object po = clazz.newInstance();
+		ObjectUtils.getObjFromMap(mapFields, po);
+		return (T) po;
+	}
+}
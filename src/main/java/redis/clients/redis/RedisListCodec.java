@@ -0,0 +1,27 @@
+package redis.clients.redis;
+
+/**
+ * 列表缓存对象的编解码器
+ *
+ * RedisService.setListToHash将每个子对象编码为hash的一个value, getListFromHash/getObjectFromList解码还原
+ */
+public interface RedisListCodec {
+
+	/**
+	 * 编码列表子对象
+	 *
+	 * @param po
+	 * @return 没有需要缓存的字段时返回null
+	 */
+	public String encode(RedisListInterface po);
+
+	/**
+	 * 解码列表子对象
+	 *
+	 * @param value
+	 * @param clazz
+	 * @return 无法解码(如实体字段已变化)时返回null, 调用方按缓存未命中处理
+	 * @throws Exception
+	 */
+	public <T> T decode(String value, Class<?> clazz) throws Exception;
+}
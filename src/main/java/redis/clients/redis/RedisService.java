@@ -4,8 +4,10 @@ import java.util.*;
 import java.util.Map.Entry;
 import org.slf4j.Logger;
 import com.alibaba.fastjson.JSON;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import redis.clients.common.metrics.MetricsRecorder;
 import redis.clients.common.utils.Loggers;
 import redis.clients.common.utils.EntityUtils;
 import redis.clients.common.utils.ObjectUtils;
@@ -14,10 +16,15 @@ import redis.clients.common.utils.StringUtils;
 import redis.clients.common.utils.TimeUtils;
 import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
 import redis.clients.common.constant.GlobalConstants;
+import redis.clients.entity.AbstractEntity;
 import redis.clients.entity.IEntity;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 /**
  * Created by qq24139297 on 17/3/16. 缓存服务
@@ -32,6 +39,32 @@ public class RedisService {
 	 */
 	private JedisPool jedisPool;
 
+	/*
+	 * 是否使用pipeline合并发送命令 (HMSET+EXPIRE, HGETALL+EXPIRE等一次网络往返)
+	 */
+	private boolean pipelineFlag = false;
+
+	/*
+	 * 列表对象的编解码器, 默认json, 可换成CompactRedisListCodec
+	 */
+	private RedisListCodec redisListCodec = new JsonRedisListCodec();
+
+	/*
+	 * 是否使用带版本号的变化字段更新 (lua脚本校验版本, 版本不一致时拒绝写入)
+	 */
+	private boolean versionFlag = false;
+
+	/*
+	 * 版本更新脚本的sha1, 首次使用时加载
+	 */
+	private volatile String versionScriptSha;
+
+	/*
+	 * 统计, 为null时不统计
+	 */
+	@Autowired(required = false)
+	private MetricsRecorder metricsRecorder;
+
 	/**
 	 * 设置连接池
 	 */
@@ -39,6 +72,84 @@ public class RedisService {
 		this.jedisPool = jedisPool;
 	}
 
+	public RedisListCodec getRedisListCodec() {
+		return redisListCodec;
+	}
+
+	public void setRedisListCodec(RedisListCodec redisListCodec) {
+		this.redisListCodec = redisListCodec;
+	}
+
+	public boolean isPipelineFlag() {
+		return pipelineFlag;
+	}
+
+	/**
+	 * 设置是否使用pipeline模式
+	 */
+	public void setPipelineFlag(boolean pipelineFlag) {
+		this.pipelineFlag = pipelineFlag;
+	}
+
+	public boolean isVersionFlag() {
+		return versionFlag;
+	}
+
+	/**
+	 * 设置是否使用带版本号的变化字段更新
+	 */
+	public void setVersionFlag(boolean versionFlag) {
+		this.versionFlag = versionFlag;
+	}
+
+	public MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder;
+	}
+
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/*
+	 * 从连接池获取连接, 记录等待时间
+	 */
+	private Jedis getResource() {
+		if (metricsRecorder == null) {
+			return jedisPool.getResource();
+		}
+		long start = System.nanoTime();
+		try {
+			return jedisPool.getResource();
+		} finally {
+			metricsRecorder.recordPoolWait(System.nanoTime() - start);
+		}
+	}
+
+	/*
+	 * 记录操作耗时
+	 */
+	private void recordLatency(String name, String key, long start, boolean success) {
+		if (metricsRecorder != null) {
+			metricsRecorder.recordLatency("redis." + name, key, System.nanoTime() - start, success);
+		}
+	}
+
+	/*
+	 * 记录hash的字段和值的总长度
+	 */
+	private void recordPayload(String name, Map<String, String> map) {
+		if (metricsRecorder != null && map != null) {
+			long bytes = 0;
+			for (Entry<String, String> entry : map.entrySet()) {
+				bytes += entry.getKey().length();
+				if (entry.getValue() != null) {
+					bytes += entry.getValue().length();
+				}
+			}
+			metricsRecorder.recordPayload("redis." + name, bytes);
+		}
+	}
+
 	/*
 	 * 正常返还链接
 	 */
@@ -58,7 +169,7 @@ public class RedisService {
 	 */
 	@SuppressWarnings("deprecation")
 	private void returnBrokenResource(Jedis jedis, String name, Exception msge) {
-		logger.error(TimeUtils.dateToString(new Date()) + ":::::" + name + ":::::" + msge.getMessage());
+		logger.error("RedisService {} Exception err={}", name, msge.toString());
 		if (jedis != null) {
 			try {
 				jedisPool.returnBrokenResource(jedis);
@@ -79,7 +190,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -114,27 +225,26 @@ public class RedisService {
 	 * @param seconds
 	 */
 	public boolean setObjectToHash(String key, IEntity entity, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
 			}
-			Map<String, String> map = EntityUtils.getCacheValueMap(entity, EntitySaveEnum.Save2Redis);
+			Map<String, String> map = getEntityHashMap(entity);
+			recordPayload("setObjectToHash", map);
 			if (map != null && map.size() > 0) {
-				String result = jedis.hmset(key, map);
-				ret = "OK".equalsIgnoreCase(result);
-				if (ret && (seconds >= 0)) {
-					jedis.expire(key, seconds);
-				}
+				ret = hmsetAndExpire(jedis, key, map, seconds);
 			}
 		} catch (Exception e) {
 			success = false;
 			returnBrokenResource(jedis, "setObjectToHash:" + key, e);
 		} finally {
+			recordLatency("setObjectToHash", key, start, success);
 			releaseReidsSource(success, jedis);
 		}
 		return ret;
@@ -154,47 +264,451 @@ public class RedisService {
 	}
 
 	public boolean updateObjectHashMap(String key, Map<String, Object> mapToUpdate, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
 			}
-			Map<String, String> map = new HashMap<String, String>();
-			for (Entry<String, Object> entry : mapToUpdate.entrySet()) {
-				String temp = entry.getKey();
-				Object obj = entry.getValue();
-				if (obj instanceof Date) {
-					map.put(temp, TimeUtils.dateToString((Date) obj));
-				}
-				else if((obj instanceof Map)||(obj instanceof HashMap)) {
-					map.put(temp, JSON.toJSONString(obj));
+			Map<String, String> map = getHashStringMap(mapToUpdate);
+			recordPayload("updateObjectHashMap", map);
+			if (map != null && map.size() > 0) {
+				ret = hmsetAndExpire(jedis, key, map, seconds);
+			}
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "updateHashMap:" + key, e);
+		} finally {
+			recordLatency("updateObjectHashMap", key, start, success);
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 批量将对象保存到hash中,并且设置默认生命周期
+	 * 
+	 * @param entityMap
+	 *            key -> entity
+	 * @return key -> 是否保存成功
+	 */
+	public Map<String, Boolean> setObjectToHashBatch(Map<String, ? extends IEntity> entityMap) {
+		return setObjectToHashBatch(entityMap, GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 批量将对象保存到hash中,并且设置生命周期 所有key的HMSET+EXPIRE在同一个pipeline中发送,只有一次网络往返
+	 * 
+	 * @param entityMap
+	 *            key -> entity
+	 * @param seconds
+	 * @return key -> 是否保存成功
+	 */
+	public Map<String, Boolean> setObjectToHashBatch(Map<String, ? extends IEntity> entityMap, int seconds) {
+		Map<String, Map<String, String>> hashMap = new LinkedHashMap<String, Map<String, String>>();
+		for (Entry<String, ? extends IEntity> entry : entityMap.entrySet()) {
+			hashMap.put(entry.getKey(), getEntityHashMap(entry.getValue()));
+		}
+		return hmsetBatch(hashMap, seconds, "setObjectToHashBatch");
+	}
+
+	/**
+	 * 批量更新缓存里的hash值,并且设置默认生命周期
+	 * 
+	 * @param mapToUpdate
+	 *            key -> 需要更新的字段
+	 * @return key -> 是否更新成功
+	 */
+	public Map<String, Boolean> updateObjectHashMapBatch(Map<String, Map<String, Object>> mapToUpdate) {
+		return updateObjectHashMapBatch(mapToUpdate, GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 批量更新缓存里的hash值,所有key的HMSET+EXPIRE在同一个pipeline中发送
+	 * 
+	 * @param mapToUpdate
+	 *            key -> 需要更新的字段
+	 * @param seconds
+	 * @return key -> 是否更新成功
+	 */
+	public Map<String, Boolean> updateObjectHashMapBatch(Map<String, Map<String, Object>> mapToUpdate, int seconds) {
+		Map<String, Map<String, String>> hashMap = new LinkedHashMap<String, Map<String, String>>();
+		for (Entry<String, Map<String, Object>> entry : mapToUpdate.entrySet()) {
+			hashMap.put(entry.getKey(), getHashStringMap(entry.getValue()));
+		}
+		return hmsetBatch(hashMap, seconds, "updateObjectHashMapBatch");
+	}
+
+	/*
+	 * 批量HMSET+EXPIRE, 空map的key直接返回false
+	 */
+	private Map<String, Boolean> hmsetBatch(Map<String, Map<String, String>> hashMap, int seconds, String name) {
+		long start = System.nanoTime();
+		Jedis jedis = null;
+		boolean success = true;
+		Map<String, Boolean> ret = new LinkedHashMap<String, Boolean>();
+		Map<String, Response<String>> responses = new LinkedHashMap<String, Response<String>>();
+		for (String key : hashMap.keySet()) {
+			ret.put(key, false);
+		}
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			Pipeline pipeline = jedis.pipelined();
+			for (Entry<String, Map<String, String>> entry : hashMap.entrySet()) {
+				Map<String, String> map = entry.getValue();
+				recordPayload(name, map);
+				if (map != null && map.size() > 0) {
+					responses.put(entry.getKey(), pipeline.hmset(entry.getKey(), map));
+					if (seconds >= 0) {
+						pipeline.expire(entry.getKey(), seconds);
+					}
 				}
-				else if((obj instanceof List)||(obj instanceof ArrayList)) {
-					map.put(temp, JSON.toJSONString(obj));
+			}
+			pipeline.sync();
+			for (Entry<String, Response<String>> entry : responses.entrySet()) {
+				ret.put(entry.getKey(), "OK".equalsIgnoreCase(entry.getValue().get()));
+			}
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, name + ":" + hashMap.keySet(), e);
+		} finally {
+			recordLatency(name, "size=" + hashMap.size(), start, success);
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 带版本号更新缓存里的hash值,并且设置默认生命周期
+	 * 
+	 * @param key
+	 * @param mapToUpdate
+	 *            需要更新的字段
+	 * @param version
+	 *            读取实体时hash中的版本号
+	 * @return 更新后的版本号, 或VERSION_CONFLICT及当前版本号, VERSION_KEY_MISSING, VERSION_FAILED
+	 */
+	public VersionUpdateResult updateObjectHashMapWithVersion(String key, Map<String, Object> mapToUpdate,
+			long version) {
+		return updateObjectHashMapWithVersion(key, mapToUpdate, version, GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 带版本号更新缓存里的hash值 在redis端用脚本比较版本号, 一致时写入变化字段并将版本号加1,
+	 * 不一致时拒绝写入并返回当前版本号, hash保持不变, 是否删除hash由调用方决定
+	 * 
+	 * @param key
+	 * @param mapToUpdate
+	 *            需要更新的字段
+	 * @param version
+	 *            读取实体时hash中的版本号
+	 * @param seconds
+	 * @return 更新后的版本号, 或VERSION_CONFLICT及当前版本号, VERSION_KEY_MISSING, VERSION_FAILED
+	 */
+	public VersionUpdateResult updateObjectHashMapWithVersion(String key, Map<String, Object> mapToUpdate,
+			long version, int seconds) {
+		long start = System.nanoTime();
+		Jedis jedis = null;
+		boolean success = true;
+		VersionUpdateResult ret = VersionUpdateResult.FAILED;
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			List<String> args = getVersionScriptArgs(getHashStringMap(mapToUpdate), version, seconds);
+			String sha = getVersionScriptSha(jedis);
+			Object result;
+			try {
+				result = jedis.evalsha(sha, Collections.singletonList(key), args);
+			} catch (JedisNoScriptException e) {
+				// 服务器重启或执行过SCRIPT FLUSH, 重新加载
+				versionScriptSha = null;
+				result = jedis.eval(GlobalConstants.RedisVersion.VERSION_HMSET_SCRIPT, Collections.singletonList(key),
+						args);
+			}
+			ret = VersionUpdateResult.parse(result.toString());
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "updateObjectHashMapWithVersion:" + key, e);
+		} finally {
+			recordLatency("updateObjectHashMapWithVersion", key, start, success);
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 批量带版本号更新缓存里的hash值,并且设置默认生命周期
+	 * 
+	 * @param mapToUpdate
+	 *            key -> 需要更新的字段
+	 * @param versionMap
+	 *            key -> 读取实体时hash中的版本号
+	 * @return key -> 更新后的版本号, 或VERSION_CONFLICT及当前版本号, VERSION_KEY_MISSING, VERSION_FAILED
+	 */
+	public Map<String, VersionUpdateResult> updateObjectHashMapWithVersionBatch(Map<String, Map<String, Object>> mapToUpdate,
+			Map<String, Long> versionMap) {
+		return updateObjectHashMapWithVersionBatch(mapToUpdate, versionMap,
+				GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 批量带版本号更新缓存里的hash值, 所有key的脚本调用在同一个pipeline中发送
+	 * 
+	 * @param mapToUpdate
+	 *            key -> 需要更新的字段
+	 * @param versionMap
+	 *            key -> 读取实体时hash中的版本号
+	 * @param seconds
+	 * @return key -> 更新后的版本号, 或VERSION_CONFLICT及当前版本号, VERSION_KEY_MISSING, VERSION_FAILED
+	 */
+	public Map<String, VersionUpdateResult> updateObjectHashMapWithVersionBatch(Map<String, Map<String, Object>> mapToUpdate,
+			Map<String, Long> versionMap, int seconds) {
+		long start = System.nanoTime();
+		Jedis jedis = null;
+		boolean success = true;
+		Map<String, VersionUpdateResult> ret = new LinkedHashMap<String, VersionUpdateResult>();
+		Map<String, List<String>> argsMap = new LinkedHashMap<String, List<String>>();
+		for (Entry<String, Map<String, Object>> entry : mapToUpdate.entrySet()) {
+			ret.put(entry.getKey(), VersionUpdateResult.FAILED);
+			if (entry.getValue() != null && entry.getValue().size() > 0) {
+				Long version = versionMap.get(entry.getKey());
+				argsMap.put(entry.getKey(),
+						getVersionScriptArgs(getHashStringMap(entry.getValue()), version == null ? 0 : version, seconds));
+			}
+		}
+		if (argsMap.isEmpty()) {
+			return ret;
+		}
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			String sha = getVersionScriptSha(jedis);
+			Map<String, Response<String>> responses = new LinkedHashMap<String, Response<String>>();
+			Pipeline pipeline = jedis.pipelined();
+			for (Entry<String, List<String>> entry : argsMap.entrySet()) {
+				responses.put(entry.getKey(),
+						pipeline.evalsha(sha, Collections.singletonList(entry.getKey()), entry.getValue()));
+			}
+			pipeline.sync();
+			Map<String, Response<String>> retryResponses = new LinkedHashMap<String, Response<String>>();
+			Pipeline retryPipeline = null;
+			for (Entry<String, Response<String>> entry : responses.entrySet()) {
+				try {
+					ret.put(entry.getKey(), VersionUpdateResult.parse(entry.getValue().get()));
+				} catch (JedisNoScriptException e) {
+					// 脚本缓存被清除, 这些key改用eval重发
+					versionScriptSha = null;
+					if (retryPipeline == null) {
+						retryPipeline = jedis.pipelined();
+					}
+					retryResponses.put(entry.getKey(), retryPipeline.eval(GlobalConstants.RedisVersion.VERSION_HMSET_SCRIPT,
+							Collections.singletonList(entry.getKey()), argsMap.get(entry.getKey())));
 				}
-				else {
-					map.put(temp, obj.toString());
+			}
+			if (retryPipeline != null) {
+				retryPipeline.sync();
+				for (Entry<String, Response<String>> entry : retryResponses.entrySet()) {
+					ret.put(entry.getKey(), VersionUpdateResult.parse(entry.getValue().get()));
 				}
 			}
-			if (map != null && map.size() > 0) {
-				String result = jedis.hmset(key, map);
-				ret = "OK".equalsIgnoreCase(result);
-				if (ret && (seconds >= 0)) {
-					jedis.expire(key, seconds);
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "updateObjectHashMapWithVersionBatch:" + mapToUpdate.keySet(), e);
+		} finally {
+			recordLatency("updateObjectHashMapWithVersionBatch", "size=" + mapToUpdate.size(), start, success);
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 批量读取hash中的版本号, 所有key的HGET在同一个pipeline中发送
+	 * 
+	 * @param keys
+	 * @return 与keys顺序一致的版本号, hash不存在, 没有版本号或读取失败时为null
+	 */
+	public List<Long> getObjectVersionBatch(List<String> keys) {
+		long start = System.nanoTime();
+		Jedis jedis = null;
+		boolean success = true;
+		if (ObjectUtils.isEmpityList(keys)) {
+			return new ArrayList<Long>();
+		}
+		List<Long> ret = new ArrayList<Long>(Collections.nCopies(keys.size(), (Long) null));
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			List<Response<String>> responses = new ArrayList<Response<String>>(keys.size());
+			Pipeline pipeline = jedis.pipelined();
+			for (String key : keys) {
+				responses.add(pipeline.hget(key, GlobalConstants.RedisVersion.VERSION_FIELD));
+			}
+			pipeline.sync();
+			for (int i = 0; i < responses.size(); i++) {
+				String version = responses.get(i).get();
+				if (version != null) {
+					ret.set(i, Long.parseLong(version));
 				}
 			}
 		} catch (Exception e) {
 			success = false;
-			returnBrokenResource(jedis, "updateHashMap:" + key, e);
+			returnBrokenResource(jedis, "getObjectVersionBatch:" + keys, e);
 		} finally {
+			recordLatency("getObjectVersionBatch", "size=" + keys.size(), start, success);
 			releaseReidsSource(success, jedis);
 		}
 		return ret;
 	}
+
+	/*
+	 * 实体整体写入hash的字段, 开启版本号时同时写入版本种子
+	 */
+	private Map<String, String> getEntityHashMap(IEntity entity) {
+		Map<String, String> map = EntityUtils.getCacheValueMap(entity, EntitySaveEnum.Save2Redis);
+		if (versionFlag && map != null && map.size() > 0 && entity instanceof AbstractEntity) {
+			AbstractEntity abstractEntity = (AbstractEntity) entity;
+			long version = nextVersionSeed(abstractEntity.getCacheVersion());
+			map.put(GlobalConstants.RedisVersion.VERSION_FIELD, String.valueOf(version));
+			abstractEntity.setCacheVersion(version);
+		}
+		return map;
+	}
+
+	/*
+	 * 整体写入(从数据库加载, 过期后重建)时的版本种子, 不从0开始:
+	 * 取数据行携带的版本号加1与毫秒时间*1000中的较大值, 持有重建前版本号的旧写入方不会再次匹配
+	 */
+	static long nextVersionSeed(long rowVersion) {
+		return Math.max(rowVersion + 1, System.currentTimeMillis() * 1000);
+	}
+
+	/*
+	 * 版本更新脚本参数: 版本字段, 期望版本, 生命周期, 字段, 值...
+	 */
+	private List<String> getVersionScriptArgs(Map<String, String> map, long version, int seconds) {
+		List<String> args = new ArrayList<String>(3 + map.size() * 2);
+		args.add(GlobalConstants.RedisVersion.VERSION_FIELD);
+		args.add(String.valueOf(version));
+		args.add(String.valueOf(seconds));
+		for (Entry<String, String> entry : map.entrySet()) {
+			args.add(entry.getKey());
+			args.add(entry.getValue());
+		}
+		return args;
+	}
+
+	/*
+	 * 获取版本更新脚本的sha1, 没有时加载脚本
+	 */
+	private String getVersionScriptSha(Jedis jedis) {
+		String sha = versionScriptSha;
+		if (sha == null) {
+			sha = jedis.scriptLoad(GlobalConstants.RedisVersion.VERSION_HMSET_SCRIPT);
+			versionScriptSha = sha;
+		}
+		return sha;
+	}
+
+	/*
+	 * HMSET+EXPIRE, pipeline模式下合并为一次网络往返
+	 */
+	private boolean hmsetAndExpire(Jedis jedis, String key, Map<String, String> map, int seconds) {
+		if (!pipelineFlag) {
+			boolean ret = "OK".equalsIgnoreCase(jedis.hmset(key, map));
+			if (ret && (seconds >= 0)) {
+				jedis.expire(key, seconds);
+			}
+			return ret;
+		}
+		Pipeline pipeline = jedis.pipelined();
+		Response<String> result = pipeline.hmset(key, map);
+		if (seconds >= 0) {
+			pipeline.expire(key, seconds);
+		}
+		pipeline.sync();
+		return "OK".equalsIgnoreCase(result.get());
+	}
+
+	/*
+	 * HGETALL+EXPIRE, pipeline模式下合并为一次网络往返
+	 */
+	private Map<String, String> hgetAllAndExpire(Jedis jedis, String key, int seconds) {
+		if (!pipelineFlag) {
+			Map<String, String> map = jedis.hgetAll(key);
+			if (map != null && map.size() > 0 && seconds >= 0) {
+				jedis.expire(key, seconds);
+			}
+			return map;
+		}
+		Pipeline pipeline = jedis.pipelined();
+		Response<Map<String, String>> result = pipeline.hgetAll(key);
+		if (seconds >= 0) {
+			pipeline.expire(key, seconds);
+		}
+		pipeline.sync();
+		return result.get();
+	}
+
+	/*
+	 * HGET+EXPIRE, pipeline模式下合并为一次网络往返
+	 */
+	private String hgetAndExpire(Jedis jedis, String key, String field, int seconds) {
+		if (!pipelineFlag) {
+			String value = jedis.hget(key, field);
+			if (!StringUtils.isEmpty(value) && seconds >= 0) {
+				jedis.expire(key, seconds);
+			}
+			return value;
+		}
+		Pipeline pipeline = jedis.pipelined();
+		Response<String> result = pipeline.hget(key, field);
+		if (seconds >= 0) {
+			pipeline.expire(key, seconds);
+		}
+		pipeline.sync();
+		return result.get();
+	}
+
+	/*
+	 * 将字段值转换为缓存字符串
+	 */
+	private Map<String, String> getHashStringMap(Map<String, Object> mapToUpdate) {
+		Map<String, String> map = new HashMap<String, String>();
+		for (Entry<String, Object> entry : mapToUpdate.entrySet()) {
+			String temp = entry.getKey();
+			Object obj = entry.getValue();
+			if (obj instanceof Date) {
+				map.put(temp, TimeUtils.dateToString((Date) obj));
+			}
+			else if((obj instanceof Map)||(obj instanceof HashMap)) {
+				map.put(temp, JSON.toJSONString(obj));
+			}
+			else if((obj instanceof List)||(obj instanceof ArrayList)) {
+				map.put(temp, JSON.toJSONString(obj));
+			}
+			else {
+				map.put(temp, obj.toString());
+			}
+		}
+		return map;
+	}
 	/*
 	 * 更新缓存里的field字段值
 	 * 
@@ -210,7 +724,7 @@ public class RedisService {
 		boolean success = true;
 		Long ret = -1L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -253,6 +767,7 @@ public class RedisService {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T getObjectFromHash(String key, Class<?> clazz, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
 		Object ret = null;
@@ -261,30 +776,90 @@ public class RedisService {
 				success = false;
 				return null;
 			}
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return null;
 			}
-			Map<String, String> map = jedis.hgetAll(key);
+			Map<String, String> map = hgetAllAndExpire(jedis, key, seconds);
+			recordPayload("getObjectFromHash", map);
 			if (map != null && map.size() > 0) {
 				Object obj = clazz.newInstance();
 				if (obj != null) {
 					ret = ObjectUtils.getObjFromMap(map, obj);
 				}
-				if (seconds >= 0) {
-					jedis.expire(key, seconds);
-				}
 			}
 		} catch (Exception e) {
 			success = false;
 			returnBrokenResource(jedis, "getObjectFromHash:" + key, e);
 		} finally {
+			recordLatency("getObjectFromHash", key, start, success);
 			releaseReidsSource(success, jedis);
 		}
 		return (T) ret;
 	}
 
+	/**
+	 * 批量从缓存里获取对象 缺省默认时间
+	 * 
+	 * @param keys
+	 * @param clazz
+	 * @return 与keys顺序一致, 不存在的key对应null
+	 */
+	public <T> List<T> getObjectFromHashBatch(List<String> keys, Class<?> clazz) {
+		return getObjectFromHashBatch(keys, clazz, GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 批量从缓存里获取对象 所有key的HGETALL+EXPIRE在同一个pipeline中发送
+	 * 
+	 * @param keys
+	 * @param clazz
+	 * @param seconds
+	 * @return 与keys顺序一致, 不存在的key对应null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getObjectFromHashBatch(List<String> keys, Class<?> clazz, int seconds) {
+		long start = System.nanoTime();
+		Jedis jedis = null;
+		boolean success = true;
+		List<T> ret = new ArrayList<T>();
+		if (clazz == null || ObjectUtils.isEmpityList(keys)) {
+			return ret;
+		}
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			List<Response<Map<String, String>>> responses = new ArrayList<Response<Map<String, String>>>(keys.size());
+			Pipeline pipeline = jedis.pipelined();
+			for (String key : keys) {
+				responses.add(pipeline.hgetAll(key));
+				if (seconds >= 0) {
+					pipeline.expire(key, seconds);
+				}
+			}
+			pipeline.sync();
+			for (Response<Map<String, String>> response : responses) {
+				Map<String, String> map = response.get();
+				Object obj = null;
+				if (map != null && map.size() > 0) {
+					obj = ObjectUtils.getObjFromMap(map, clazz.newInstance());
+				}
+				ret.add((T) obj);
+			}
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "getObjectFromHashBatch:" + keys, e);
+		} finally {
+			recordLatency("getObjectFromHashBatch", "size=" + keys.size(), start, success);
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
 	/**
 	 * 将一个列表对象放入缓存
 	 * 
@@ -306,38 +881,72 @@ public class RedisService {
 	 * @param seconds
 	 */
 	public boolean setListToHash(String key, List<RedisListInterface> list, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
 			}
-			Map<String, String> map = new HashMap<String, String>();
-			for (RedisListInterface po : list) {
-				Map<String, String> cacheMap = EntityUtils.getCacheValueMap((IEntity) po, EntitySaveEnum.Save2Redis);
-				if (cacheMap != null && (!cacheMap.isEmpty())) {
-					map.put(po.getSubUniqueKey(), JSON.toJSONString(cacheMap));
-				}
-			}
+			Map<String, String> map = getListHashMap(list);
+			recordPayload("setListToHash", map);
 			if (map != null && map.size() > 0) {
-				String result = jedis.hmset(key, map);
-				ret = "OK".equalsIgnoreCase(result);
-				if (ret && (seconds >= 0)) {
-					jedis.expire(key, seconds);
-				}
+				ret = hmsetAndExpire(jedis, key, map, seconds);
 			}
 		} catch (Exception e) {
 			success = false;
 			returnBrokenResource(jedis, "setListToHash:" + key, e);
 		} finally {
+			recordLatency("setListToHash", key, start, success);
 			releaseReidsSource(success, jedis);
 		}
 		return ret;
 	}
 
+	/**
+	 * 批量将多个列表对象放入缓存,并且设置默认生命周期
+	 * 
+	 * @param listMap
+	 *            key -> 列表对象
+	 * @return key -> 是否保存成功
+	 */
+	public Map<String, Boolean> setListToHashBatch(Map<String, List<RedisListInterface>> listMap) {
+		return setListToHashBatch(listMap, GlobalConstants.RedisKeyConfig.NORMAL_LIFECYCLE);
+	}
+
+	/**
+	 * 批量将多个列表对象放入缓存 所有key的HMSET+EXPIRE在同一个pipeline中发送
+	 * 
+	 * @param listMap
+	 *            key -> 列表对象
+	 * @param seconds
+	 * @return key -> 是否保存成功
+	 */
+	public Map<String, Boolean> setListToHashBatch(Map<String, List<RedisListInterface>> listMap, int seconds) {
+		Map<String, Map<String, String>> hashMap = new LinkedHashMap<String, Map<String, String>>();
+		for (Entry<String, List<RedisListInterface>> entry : listMap.entrySet()) {
+			hashMap.put(entry.getKey(), getListHashMap(entry.getValue()));
+		}
+		return hmsetBatch(hashMap, seconds, "setListToHashBatch");
+	}
+
+	/*
+	 * 列表对象转换为 subUniqueKey -> 缓存字符串
+	 */
+	private Map<String, String> getListHashMap(List<RedisListInterface> list) {
+		Map<String, String> map = new HashMap<String, String>();
+		for (RedisListInterface po : list) {
+			String value = redisListCodec.encode(po);
+			if (value != null) {
+				map.put(po.getSubUniqueKey(), value);
+			}
+		}
+		return map;
+	}
+
 	/**
 	 * 从缓存里还原一个列表对象
 	 * 
@@ -358,6 +967,7 @@ public class RedisService {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> List<T> getListFromHash(String key, Class<?> clazz, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
 		List<T> ret = new ArrayList<T>();
@@ -366,29 +976,28 @@ public class RedisService {
 				success = false;
 				return null;
 			}
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return null;
 			}
-			Map<String, String> map = jedis.hgetAll(key);
+			Map<String, String> map = hgetAllAndExpire(jedis, key, seconds);
+			recordPayload("getListFromHash", map);
 			if (map != null && map.size() > 0) {
-				RedisListInterface po = null;
-				Map<String, String> mapFields = null;
 				for (Entry<String, String> entry : map.entrySet()) {
-					mapFields = JSON.parseObject(entry.getValue().replaceAll("=", ":"), HashMap.class);
-					po = (RedisListInterface) clazz.newInstance();
-					ObjectUtils.getObjFromMap(mapFields, po);
-					ret.add((T) po);
-				}
-				if (seconds >= 0) {
-					jedis.expire(key, seconds);
+					T po = redisListCodec.decode(entry.getValue(), clazz);
+					if (po == null) {
+						// 有无法解码的数据时整个列表按未命中处理
+						return null;
+					}
+					ret.add(po);
 				}
 			}
 		} catch (Exception e) {
 			success = false;
 			returnBrokenResource(jedis, "getListFromHash:" + key, e);
 		} finally {
+			recordLatency("getListFromHash", key, start, success);
 			releaseReidsSource(success, jedis);
 		}
 		return ret;
@@ -408,38 +1017,32 @@ public class RedisService {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T getObjectFromList(String key, String subUnionkey, Class<?> clazz, int seconds) {
+		long start = System.nanoTime();
 		Jedis jedis = null;
 		boolean success = true;
-		RedisListInterface po = null;
-		Map<String, String> mapFields = null;
+		T po = null;
 		try {
 			if (clazz == null) {
 				success = false;
 				return null;
 			}
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return null;
 			}
-			String value = jedis.hget(key, subUnionkey);
+			String value = hgetAndExpire(jedis, key, subUnionkey, seconds);
 			if (!StringUtils.isEmpty(value)) {
-				mapFields = JSON.parseObject(value.replaceAll("=", ":"), HashMap.class);
-				po = (RedisListInterface) clazz.newInstance();
-				if (po != null) {
-					ObjectUtils.getObjFromMap(mapFields, po);
-				}
-				if (seconds >= 0) {
-					jedis.expire(key, seconds);
-				}
+				po = redisListCodec.decode(value, clazz);
 			}
 		} catch (Exception e) {
 			success = false;
 			returnBrokenResource(jedis, "getObjectFromList:" + key, e);
 		} finally {
+			recordLatency("getObjectFromList", key, start, success);
 			releaseReidsSource(success, jedis);
 		}
-		return (T) po;
+		return po;
 	}
 
 	/**
@@ -458,7 +1061,7 @@ public class RedisService {
 			// String keyNames[] = null;
 			// Map<String, String> keyMap = null;
 			int index = 0;
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -492,7 +1095,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -523,7 +1126,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -552,7 +1155,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -578,7 +1181,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -603,7 +1206,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -619,6 +1222,134 @@ public class RedisService {
 		return ret;
 	}
 
+	/**
+	 * 批量删除key 每个key一条DEL命令,在同一个pipeline中发送
+	 * 
+	 * @param keys
+	 * @return 与keys顺序一致的删除数量, 失败时为-1
+	 */
+	public List<Long> deleteKeyBatch(List<String> keys) {
+		Jedis jedis = null;
+		boolean success = true;
+		if (ObjectUtils.isEmpityList(keys)) {
+			return new ArrayList<Long>();
+		}
+		List<Long> ret = new ArrayList<Long>(Collections.nCopies(keys.size(), -1L));
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			List<Response<Long>> responses = new ArrayList<Response<Long>>(keys.size());
+			Pipeline pipeline = jedis.pipelined();
+			for (String key : keys) {
+				responses.add(pipeline.del(key));
+			}
+			pipeline.sync();
+			for (int i = 0; i < responses.size(); i++) {
+				ret.set(i, responses.get(i).get());
+			}
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "deleteKeyBatch:" + keys, e);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 批量删除hash字段 keys与fields一一对应,每对一条HDEL命令,在同一个pipeline中发送
+	 * 
+	 * @param keys
+	 * @param fields
+	 * @return 与keys顺序一致的删除数量, 失败时为-1
+	 */
+	public List<Long> hdelBatch(List<String> keys, List<String> fields) {
+		Jedis jedis = null;
+		boolean success = true;
+		if (ObjectUtils.isEmpityList(keys)) {
+			return new ArrayList<Long>();
+		}
+		List<Long> ret = new ArrayList<Long>(Collections.nCopies(keys.size(), -1L));
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			List<Response<Long>> responses = new ArrayList<Response<Long>>(keys.size());
+			Pipeline pipeline = jedis.pipelined();
+			for (int i = 0; i < keys.size(); i++) {
+				responses.add(pipeline.hdel(keys.get(i), fields.get(i)));
+			}
+			pipeline.sync();
+			for (int i = 0; i < responses.size(); i++) {
+				ret.set(i, responses.get(i).get());
+			}
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "hdelBatch:" + keys, e);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 发布消息
+	 * 
+	 * @param channel
+	 * @param message
+	 * @return 收到消息的订阅者数量
+	 */
+	public long publish(String channel, String message) {
+		Jedis jedis = null;
+		boolean success = true;
+		long ret = -1;
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return ret;
+			}
+			ret = jedis.publish(channel, message);
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "publish:" + channel, e);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 订阅频道 会阻塞当前线程,直到jedisPubSub取消订阅或连接异常
+	 * 
+	 * @param jedisPubSub
+	 * @param channels
+	 * @return 是否正常取消订阅
+	 */
+	public boolean subscribe(JedisPubSub jedisPubSub, String... channels) {
+		Jedis jedis = null;
+		boolean success = true;
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return false;
+			}
+			jedis.subscribe(jedisPubSub, channels);
+		} catch (Exception e) {
+			success = false;
+			returnBrokenResource(jedis, "subscribe:" + Arrays.toString(channels), e);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return success;
+	}
+
 	/**
 	 * 获取所有成员及分数
 	 * 
@@ -629,7 +1360,7 @@ public class RedisService {
 		boolean success = true;
 		Set<Tuple> set = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return set;
@@ -655,7 +1386,7 @@ public class RedisService {
 		boolean success = true;
 		Set<String> set = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return set;
@@ -677,7 +1408,7 @@ public class RedisService {
 	public void deleteKeys(String... keys) {
 		Jedis jedis = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				return;
 			}
@@ -722,7 +1453,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -749,7 +1480,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -778,7 +1509,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = "";
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return null;
@@ -800,7 +1531,7 @@ public class RedisService {
 		Jedis jedis = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return null;
@@ -819,7 +1550,7 @@ public class RedisService {
 		Jedis jedis = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -845,7 +1576,7 @@ public class RedisService {
 		Jedis jedis = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -865,7 +1596,7 @@ public class RedisService {
 		boolean success = true;
 		Long ret = -1L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -888,7 +1619,7 @@ public class RedisService {
 			return ret;
 		}
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -925,7 +1656,7 @@ public class RedisService {
 		Jedis jedis = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return;
@@ -947,7 +1678,7 @@ public class RedisService {
 		boolean success = true;
 		Map<String, String> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -967,7 +1698,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -987,7 +1718,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = -1;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1008,7 +1739,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1029,7 +1760,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1055,7 +1786,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1076,7 +1807,7 @@ public class RedisService {
 		boolean success = true;
 		Long ret = 0L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1096,7 +1827,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1116,7 +1847,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1136,7 +1867,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1156,7 +1887,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1176,7 +1907,7 @@ public class RedisService {
 		boolean success = true;
 		Set<String> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1203,7 +1934,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0L;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1230,7 +1961,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1250,7 +1981,7 @@ public class RedisService {
 		boolean success = true;
 		Set<String> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1276,7 +2007,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1304,7 +2035,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1330,7 +2061,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1351,7 +2082,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = -1;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1371,7 +2102,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = -1;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1397,7 +2128,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1423,7 +2154,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1443,7 +2174,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1466,7 +2197,7 @@ public class RedisService {
 		boolean success = true;
 		Set<Tuple> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1492,7 +2223,7 @@ public class RedisService {
 		boolean success = true;
 		Set<String> keys = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return keys;
@@ -1519,7 +2250,7 @@ public class RedisService {
 		// Set<String> keys = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1547,7 +2278,7 @@ public class RedisService {
 		boolean success = true;
 		boolean ret = false;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return false;
@@ -1567,12 +2298,71 @@ public class RedisService {
 
 	}
 
+	/**
+	 * key不存在时设置值和过期时间(SET NX PX), 一条命令原子完成, 设置失败时不影响已有key的过期时间
+	 *
+	 * @param key
+	 * @param value
+	 * @param millisec
+	 * @return 是否设置成功
+	 */
+	public boolean setNxPxString(String key, String value, long millisec) {
+		Jedis jedis = null;
+		boolean success = true;
+		boolean ret = false;
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return false;
+			}
+			ret = "OK".equalsIgnoreCase(jedis.set(key, value, "NX", "PX", millisec));
+		} catch (Exception e) {
+			success = false;
+			releaseBrokenReidsSource(jedis, key, "setNxPxString", e, false);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
+	/**
+	 * 当前值等于expect时替换为value并设置过期时间, 用脚本原子完成, 用于释放自己持有的租约
+	 *
+	 * @param key
+	 * @param expect
+	 * @param value
+	 * @param millisec
+	 * @return 是否替换成功
+	 */
+	public boolean compareAndSetPxString(String key, String expect, String value, long millisec) {
+		Jedis jedis = null;
+		boolean success = true;
+		boolean ret = false;
+		try {
+			jedis = getResource();
+			if (jedis == null) {
+				success = false;
+				return false;
+			}
+			Object result = jedis.eval(GlobalConstants.RedisLease.COMPARE_AND_SET_SCRIPT,
+					Collections.singletonList(key), Arrays.asList(expect, value, String.valueOf(millisec)));
+			ret = Long.valueOf(1).equals(result);
+		} catch (Exception e) {
+			success = false;
+			releaseBrokenReidsSource(jedis, key, "compareAndSetPxString", e, false);
+		} finally {
+			releaseReidsSource(success, jedis);
+		}
+		return ret;
+	}
+
 	public List<String> lrange(String key, int start, int stop) {
 		Jedis jedis = null;
 		boolean success = true;
 		List<String> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1593,7 +2383,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = -1;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1613,7 +2403,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1633,7 +2423,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1653,7 +2443,7 @@ public class RedisService {
 		Jedis jedis = null;
 		boolean success = true;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1673,7 +2463,7 @@ public class RedisService {
 		boolean success = true;
 		String ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1693,7 +2483,7 @@ public class RedisService {
 		boolean success = true;
 		List<String> ret = null;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -1714,7 +2504,7 @@ public class RedisService {
 		boolean success = true;
 		long ret = 0;
 		try {
-			jedis = jedisPool.getResource();
+			jedis = getResource();
 			if (jedis == null) {
 				success = false;
 				return ret;
@@ -0,0 +1,65 @@
+package redis.clients.redis;
+
+import redis.clients.common.constant.GlobalConstants;
+
+/**
+ * 带版本号更新hash的结果
+ *
+ * 成功时status为更新后的版本号, 版本冲突时status为VERSION_CONFLICT, currentVersion为缓存中的当前版本号
+ */
+public class VersionUpdateResult {
+
+	public static final VersionUpdateResult FAILED = new VersionUpdateResult(
+			GlobalConstants.RedisVersion.VERSION_FAILED, -1);
+
+	/** 更新后的版本号, 或VERSION_CONFLICT, VERSION_KEY_MISSING, VERSION_FAILED */
+	private final long status;
+
+	/** 缓存中的当前版本号, 未知时为-1 */
+	private final long currentVersion;
+
+	public VersionUpdateResult(long status, long currentVersion) {
+		this.status = status;
+		this.currentVersion = currentVersion;
+	}
+
+	/**
+	 * 解析VERSION_HMSET_SCRIPT的返回值: 新版本号, "-1:当前版本号" 或 "-2"
+	 *
+	 * @param reply
+	 * @return
+	 */
+	public static VersionUpdateResult parse(String reply) {
+		if (reply == null) {
+			return FAILED;
+		}
+		int index = reply.indexOf(':');
+		if (index < 0) {
+			long status = Long.parseLong(reply);
+			return new VersionUpdateResult(status, status > 0 ? status : -1);
+		}
+		return new VersionUpdateResult(Long.parseLong(reply.substring(0, index)),
+				Long.parseLong(reply.substring(index + 1)));
+	}
+
+	public boolean isSuccess() {
+		return status > 0;
+	}
+
+	public boolean isConflict() {
+		return status == GlobalConstants.RedisVersion.VERSION_CONFLICT;
+	}
+
+	public long getStatus() {
+		return status;
+	}
+
+	public long getCurrentVersion() {
+		return currentVersion;
+	}
+
+	@Override
+	public String toString() {
+		return "VersionUpdateResult [status=" + status + ", currentVersion=" + currentVersion + "]";
+	}
+}
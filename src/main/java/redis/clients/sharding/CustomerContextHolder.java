@@ -8,8 +8,14 @@ import org.springframework.stereotype.Service;
 @Service
 public class CustomerContextHolder {
 
+	/** 分库批量操作涉及多个数据源时记录的数据源 */
+	public static final String MULTI_DB_KEY = "multi";
+
 	private static final ThreadLocal<String> contextHolder = new ThreadLocal<String>();
 
+	/* 本线程最近一次实体db操作实际使用的数据源, 供统计读取 */
+	private static final ThreadLocal<String> usedHolder = new ThreadLocal<String>();
+
 	public static String getCustomerType() {
 		return (String) contextHolder.get();
 	}
@@ -23,4 +29,17 @@ public class CustomerContextHolder {
 		contextHolder.set(customerType);
 	}
 
+	public static String getUsedDBKey() {
+		return usedHolder.get();
+	}
+
+	/**
+	 * 记录本线程实际使用的数据源, 由EntityService在切换数据源时设置
+	 * 
+	 * @param dbKey
+	 */
+	public static void setUsedDBKey(String dbKey) {
+		usedHolder.set(dbKey);
+	}
+
 }
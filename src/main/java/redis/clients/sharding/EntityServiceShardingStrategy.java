@@ -33,11 +33,41 @@ public class EntityServiceShardingStrategy {
 	 */
 	private boolean openSharding = false;
 
+	/**
+	 * 分库路由策略, 默认取模
+	 */
+	private ShardingRouter shardingRouter = new ModShardingRouter();
+
 	public String getShardingDBKeyByUserId(long userId) {
 		if (!openSharding) {
 			return dataSource;
 		}
-		long dbIndex = userId % dbCount;
+		return getShardingDBKeyByDbIndex(shardingRouter.getDbIndex(userId, dbCount));
+	}
+
+	/**
+	 * 分库主键的数据当前是否允许写入
+	 * 
+	 * @param userId
+	 * @return
+	 */
+	public boolean isWritable(long userId) {
+		if (!openSharding) {
+			return true;
+		}
+		return shardingRouter.isWritable(userId);
+	}
+
+	/**
+	 * 根据数据库下标获取数据源key
+	 * 
+	 * @param dbIndex
+	 * @return
+	 */
+	public String getShardingDBKeyByDbIndex(int dbIndex) {
+		if (!openSharding) {
+			return dataSource;
+		}
 		return dataSource + dbIndex;
 	}
 
@@ -95,4 +125,12 @@ public class EntityServiceShardingStrategy {
 	public void setOpenSharding(boolean openSharding) {
 		this.openSharding = openSharding;
 	}
+
+	public ShardingRouter getShardingRouter() {
+		return shardingRouter;
+	}
+
+	public void setShardingRouter(ShardingRouter shardingRouter) {
+		this.shardingRouter = shardingRouter;
+	}
 }
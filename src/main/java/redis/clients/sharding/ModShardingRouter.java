@@ -0,0 +1,12 @@
+package redis.clients.sharding;
+
+/**
+ * 取模路由 shardingId % dbCount, 默认策略 增加数据库时几乎所有数据都需要迁移
+ */
+public class ModShardingRouter implements ShardingRouter {
+
+	@Override
+	public int getDbIndex(long shardingId, int dbCount) {
+		return (int) Math.floorMod(shardingId, (long) dbCount);
+	}
+}
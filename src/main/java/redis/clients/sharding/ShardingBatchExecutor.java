@@ -0,0 +1,142 @@
+package redis.clients.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import redis.clients.common.constant.GlobalConstants;
+
+/**
+ * 分库批量操作执行器
+ *
+ * 一次批量操作涉及多个分库时, 每个分库的任务在独立线程中并发执行, 调用线程执行第一个分库.
+ * 线程池队列满时由调用线程执行. 作为spring bean时随容器启动和关闭
+ */
+public class ShardingBatchExecutor implements InitializingBean, DisposableBean {
+
+	/** 线程数, 一般不超过分库数量 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/** 等待队列长度 */
+	private int queueSize = 1024;
+
+	private volatile ExecutorService executorService;
+
+	@Override
+	public void afterPropertiesSet() {
+		start();
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	/**
+	 * 启动线程池
+	 */
+	public synchronized void start() {
+		if (executorService != null) {
+			return;
+		}
+		final AtomicInteger threadIndex = new AtomicInteger();
+		executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r,
+								GlobalConstants.Thread.ENTITY_SHARDING_BATCH + "_" + threadIndex.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * 停止线程池, 等待已提交的任务完成
+	 */
+	public synchronized void shutdown() {
+		if (executorService != null) {
+			executorService.shutdown();
+			try {
+				executorService.awaitTermination(60, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executorService = null;
+		}
+	}
+
+	/**
+	 * 并发执行任务, 返回与taskList顺序一致的结果
+	 *
+	 * 未启动或只有一个任务时在调用线程中顺序执行
+	 *
+	 * @param taskList
+	 * @return
+	 * @throws Exception
+	 *             任意任务抛出的第一个异常, 其余任务仍会执行完成
+	 */
+	public <R> List<R> invokeAll(List<Callable<R>> taskList) throws Exception {
+		List<R> result = new ArrayList<>(taskList.size());
+		ExecutorService executor = executorService;
+		if (executor == null || taskList.size() <= 1) {
+			for (Callable<R> task : taskList) {
+				result.add(task.call());
+			}
+			return result;
+		}
+		List<Future<R>> futureList = new ArrayList<>(taskList.size() - 1);
+		for (int i = 1; i < taskList.size(); i++) {
+			futureList.add(executor.submit(taskList.get(i)));
+		}
+		Exception error = null;
+		try {
+			result.add(taskList.get(0).call());
+		} catch (Exception e) {
+			error = e;
+			result.add(null);
+		}
+		for (Future<R> future : futureList) {
+			try {
+				result.add(future.get());
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+				result.add(null);
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		return result;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+}
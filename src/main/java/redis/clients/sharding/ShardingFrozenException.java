@@ -0,0 +1,13 @@
+package redis.clients.sharding;
+
+/**
+ * 写入迁移期间被冻结的分桶 写入被拒绝, 数据库和缓存都没有修改, 调用方需要在迁移完成后重试
+ */
+public class ShardingFrozenException extends IllegalStateException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ShardingFrozenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,278 @@
+package redis.clients.sharding;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+import redis.clients.common.utils.EntityUtils;
+import redis.clients.common.utils.Loggers;
+import redis.clients.entity.AbstractEntity;
+import redis.clients.entity.EntityService;
+
+/**
+ * 虚拟分桶迁移辅助类 只流式读取会失去桶的源库, 只复制和删除被移动的桶里的实体.
+ *
+ * 迁移流程: 冻结被移动的桶 -> 等待冻结通知送达所有JVM -> 复制到目标库 -> 再扫描一遍源库补复制遗漏的实体 -> 切换路由桶表 ->
+ * 解除冻结 -> 从源库删除复制过的实体. 冻结期间EntityService对这些桶的写入抛出ShardingFrozenException, 异步存储的更新等解冻后再写入,
+ * 复制失败时删除目标库里已复制的实体.
+ * 新增的数据库需要先加入DynamicDataSource, 多个JVM时router需要配置redisService
+ */
+public class ShardingMigrationHelper {
+
+	private static final Logger logger = Loggers.dbLogger;
+
+	/**
+	 * 每批读取和写入的实体数量
+	 */
+	private int batchSize = 500;
+
+	/**
+	 * 冻结后开始复制前的等待时间(毫秒), 需要大于冻结通知的传播时间和一次写入的最长耗时
+	 */
+	private long fenceWaitMillis = 2000;
+
+	/**
+	 * 迁移分桶
+	 *
+	 * @param entityService
+	 * @param entity
+	 *            getEntityList的查询参数
+	 * @param router
+	 *            entityService当前使用的路由, 桶表需要已初始化
+	 * @param moves
+	 *            桶 -> 新的数据库下标, 可由VirtualBucketShardingRouter.planRebalance生成
+	 * @return 迁移的实体数量, 复制失败时删除已复制的实体, 不切换路由并返回-1
+	 */
+	public <T extends AbstractEntity> long migrate(final EntityService<T> entityService, T entity,
+			final VirtualBucketShardingRouter router, Map<Integer, Integer> moves) {
+		final EntityServiceShardingStrategy strategy = entityService.getEntityServiceShardingStrategy();
+		// 源库下标 -> (桶 -> 目标库下标)
+		Map<Integer, Map<Integer, Integer>> sourceMoves = new LinkedHashMap<>();
+		Map<Integer, Integer> bucketTargets = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Integer> entry : moves.entrySet()) {
+			int source = router.getBucketDbIndex(entry.getKey());
+			if (source < 0 || source == entry.getValue()) {
+				continue;
+			}
+			Map<Integer, Integer> bucketMoves = sourceMoves.get(source);
+			if (bucketMoves == null) {
+				bucketMoves = new LinkedHashMap<>();
+				sourceMoves.put(source, bucketMoves);
+			}
+			bucketMoves.put(entry.getKey(), entry.getValue());
+			bucketTargets.put(entry.getKey(), entry.getValue());
+		}
+		if (sourceMoves.isEmpty()) {
+			return 0;
+		}
+
+		// 已复制到目标库的实体 id#uid
+		Set<String> copiedKeys = new HashSet<>();
+		router.freezeBuckets(bucketTargets.keySet());
+		try {
+			boolean success = waitFence();
+			// 第二遍只复制第一遍之后才出现的实体, 冻结生效前开始的写入
+			for (int pass = 0; pass < 2 && success; pass++) {
+				for (Map.Entry<Integer, Map<Integer, Integer>> entry : sourceMoves.entrySet()) {
+					if (!copy(entityService, entity, router, strategy, entry.getKey(), entry.getValue(), copiedKeys)) {
+						success = false;
+						break;
+					}
+				}
+			}
+			if (success) {
+				try {
+					router.moveBuckets(moves);
+				} catch (RuntimeException e) {
+					logger.error("ShardingMigrationHelper moveBuckets Error! Exception err={}", e.toString());
+					success = false;
+				}
+			}
+			if (!success) {
+				rollback(entityService, entity, router, strategy, bucketTargets, copiedKeys);
+				return -1;
+			}
+		} finally {
+			router.unfreezeBuckets(bucketTargets.keySet());
+		}
+
+		for (Map.Entry<Integer, Map<Integer, Integer>> entry : sourceMoves.entrySet()) {
+			deleteCopied(entityService, entity, router, strategy.getShardingDBKeyByDbIndex(entry.getKey()),
+					entry.getValue().keySet(), copiedKeys);
+		}
+		logger.info("ShardingMigrationHelper migrate buckets={} count={}", bucketTargets.size(), copiedKeys.size());
+		return copiedKeys.size();
+	}
+
+	/*
+	 * 等待冻结通知送达其他JVM, 已开始的写入完成
+	 */
+	private boolean waitFence() {
+		try {
+			Thread.sleep(fenceWaitMillis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error("ShardingMigrationHelper interrupted before copy");
+			return false;
+		}
+	}
+
+	/*
+	 * 复制一个源库里被移动桶中还没有复制过的实体, 写入成功的实体加入copiedKeys
+	 */
+	private <T extends AbstractEntity> boolean copy(final EntityService<T> entityService, T entity,
+			final VirtualBucketShardingRouter router, final EntityServiceShardingStrategy strategy, int source,
+			final Map<Integer, Integer> bucketMoves, final Set<String> copiedKeys) {
+		final boolean[] failed = new boolean[1];
+		long ret = entityService.getEntityListStreamByDBKey(strategy.getShardingDBKeyByDbIndex(source), entity,
+				batchSize, new Consumer<List<T>>() {
+					@Override
+					public void accept(List<T> batch) {
+						for (Map.Entry<Integer, List<T>> target : groupByTarget(entityService, router, bucketMoves,
+								copiedKeys, batch).entrySet()) {
+							List<T> targetList = target.getValue();
+							List<Long> result = entityService.insertEntityBatchByDBKey(
+									strategy.getShardingDBKeyByDbIndex(target.getKey()), targetList);
+							for (int i = 0; i < targetList.size(); i++) {
+								if (result.get(i) == 0L) {
+									failed[0] = true;
+								} else {
+									copiedKeys.add(getCopyKey(targetList.get(i)));
+								}
+							}
+						}
+					}
+				});
+		if (ret < 0 || failed[0]) {
+			logger.error("ShardingMigrationHelper copy Error! source={} buckets={} copied={}", source,
+					bucketMoves.keySet(), copiedKeys.size());
+			return false;
+		}
+		return true;
+	}
+
+	/*
+	 * 复制失败时从目标库删除已复制的实体
+	 */
+	private <T extends AbstractEntity> void rollback(EntityService<T> entityService, T entity,
+			VirtualBucketShardingRouter router, EntityServiceShardingStrategy strategy,
+			Map<Integer, Integer> bucketTargets, Set<String> copiedKeys) {
+		if (copiedKeys.isEmpty()) {
+			return;
+		}
+		Map<Integer, Set<Integer>> targetBuckets = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Integer> entry : bucketTargets.entrySet()) {
+			Set<Integer> buckets = targetBuckets.get(entry.getValue());
+			if (buckets == null) {
+				buckets = new HashSet<>();
+				targetBuckets.put(entry.getValue(), buckets);
+			}
+			buckets.add(entry.getKey());
+		}
+		for (Map.Entry<Integer, Set<Integer>> entry : targetBuckets.entrySet()) {
+			deleteCopied(entityService, entity, router, strategy.getShardingDBKeyByDbIndex(entry.getKey()),
+					entry.getValue(), copiedKeys);
+		}
+		logger.error("ShardingMigrationHelper rollback copied={}", copiedKeys.size());
+	}
+
+	/*
+	 * 删除一个库里被移动桶中复制过的实体, 没有复制过的实体保留
+	 */
+	private <T extends AbstractEntity> void deleteCopied(final EntityService<T> entityService, T entity,
+			final VirtualBucketShardingRouter router, final String dbKey, final Set<Integer> buckets,
+			final Set<String> copiedKeys) {
+		final long[] skipped = new long[1];
+		entityService.getEntityListStreamByDBKey(dbKey, entity, batchSize, new Consumer<List<T>>() {
+			@Override
+			public void accept(List<T> batch) {
+				List<T> deleteList = new ArrayList<>();
+				for (T item : filter(entityService, router, buckets, batch)) {
+					if (copiedKeys.contains(getCopyKey(item))) {
+						deleteList.add(item);
+					} else {
+						skipped[0]++;
+					}
+				}
+				if (!deleteList.isEmpty()) {
+					List<Long> result = entityService.deleteEntityBatchByDBKey(dbKey, deleteList);
+					if (result.contains(0L)) {
+						logger.error("ShardingMigrationHelper delete Error! dbKey={} size={}", dbKey, deleteList.size());
+					}
+				}
+			}
+		});
+		if (skipped[0] > 0) {
+			logger.error("ShardingMigrationHelper delete skipped not copied entities dbKey={} count={}", dbKey,
+					skipped[0]);
+		}
+	}
+
+	/*
+	 * 按目标库对被移动桶里还没有复制过的实体分组
+	 */
+	private <T extends AbstractEntity> Map<Integer, List<T>> groupByTarget(EntityService<T> entityService,
+			VirtualBucketShardingRouter router, Map<Integer, Integer> bucketMoves, Set<String> copiedKeys, List<T> batch) {
+		Map<Integer, List<T>> targetMap = new LinkedHashMap<>();
+		for (T item : batch) {
+			if (copiedKeys.contains(getCopyKey(item))) {
+				continue;
+			}
+			Integer target = bucketMoves.get(router.getBucket(entityService.getShardingId(item)));
+			if (target == null) {
+				continue;
+			}
+			List<T> list = targetMap.get(target);
+			if (list == null) {
+				list = new ArrayList<>();
+				targetMap.put(target, list);
+			}
+			list.add(item);
+		}
+		return targetMap;
+	}
+
+	/*
+	 * 实体的唯一标识 id#uid, 与EntityAsyncSaveQueue一致, 同一个id可以有多个uid不同的实体
+	 */
+	private static String getCopyKey(AbstractEntity item) {
+		return item.getId() + EntityUtils.ENTITY_SPLIT_STRING + item.getUid();
+	}
+
+	/*
+	 * 过滤出被移动桶里的实体
+	 */
+	private <T extends AbstractEntity> List<T> filter(EntityService<T> entityService, VirtualBucketShardingRouter router,
+			Set<Integer> buckets, List<T> batch) {
+		List<T> list = new ArrayList<>();
+		for (T item : batch) {
+			if (buckets.contains(router.getBucket(entityService.getShardingId(item)))) {
+				list.add(item);
+			}
+		}
+		return list;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getFenceWaitMillis() {
+		return fenceWaitMillis;
+	}
+
+	public void setFenceWaitMillis(long fenceWaitMillis) {
+		this.fenceWaitMillis = fenceWaitMillis;
+	}
+}
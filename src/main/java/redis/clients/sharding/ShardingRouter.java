@@ -0,0 +1,29 @@
+package redis.clients.sharding;
+
+/**
+ * 分库路由策略 根据分库主键计算数据库下标
+ */
+public interface ShardingRouter {
+
+	/**
+	 * 获取数据库下标
+	 * 
+	 * @param shardingId
+	 *            分库主键
+	 * @param dbCount
+	 *            数据库数量
+	 * @return
+	 */
+	int getDbIndex(long shardingId, int dbCount);
+
+	/**
+	 * 分库主键的数据当前是否允许写入, 迁移期间被冻结的数据返回false
+	 * 
+	 * @param shardingId
+	 *            分库主键
+	 * @return
+	 */
+	default boolean isWritable(long shardingId) {
+		return true;
+	}
+}
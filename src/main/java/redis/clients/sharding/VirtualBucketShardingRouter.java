@@ -0,0 +1,444 @@
+package redis.clients.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import redis.clients.common.constant.GlobalConstants;
+import redis.clients.common.utils.Loggers;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.redis.RedisService;
+
+/**
+ * 虚拟分桶路由 shardingId先固定映射到bucketCount个桶中的一个, 再通过桶表找到数据库下标.
+ * 桶的数量不变, 扩容时只需要把部分桶改到新库, 只有这些桶的数据需要迁移.
+ *
+ * 配置redisService后桶表和冻结的桶保存在Redis中, 启动时加载, 修改后通过发布订阅通知其他JVM重新加载,
+ * 所有实例使用同一份路由. 迁移期间被冻结的桶拒绝写入
+ */
+public class VirtualBucketShardingRouter implements ShardingRouter, InitializingBean, DisposableBean {
+
+	private static final Logger logger = Loggers.dbLogger;
+
+	/** 默认的桶表key */
+	public static final String DEFAULT_TABLE_KEY = "sharding_bucket_table";
+
+	/** 默认的桶表更新通知频道 */
+	public static final String DEFAULT_CHANNEL = "sharding_bucket_table_update";
+
+	/** 桶表保存格式的分段分隔符: 版本|桶表|冻结的桶 */
+	private static final String PART_SPLIT = "|";
+
+	private static final String VALUE_SPLIT = ",";
+
+	/** 订阅断开后重连的间隔(毫秒) */
+	private static final long RESUBSCRIBE_INTERVAL = 1000;
+
+	/**
+	 * 桶数量, 使用后不要修改
+	 */
+	private int bucketCount = 1024;
+
+	/**
+	 * 桶 -> 数据库下标, 修改时整体替换
+	 */
+	private volatile int[] bucketMap;
+
+	/**
+	 * 冻结的桶, null为没有, 修改时整体替换
+	 */
+	private volatile boolean[] frozenBuckets;
+
+	/**
+	 * 当前桶表的版本, 每次保存递增, 只加载更新的版本
+	 */
+	private long version;
+
+	private RedisService redisService;
+
+	/** 桶表key */
+	private String tableKey = DEFAULT_TABLE_KEY;
+
+	/** 桶表更新通知频道 */
+	private String channel = DEFAULT_CHANNEL;
+
+	private volatile boolean running;
+
+	private volatile JedisPubSub jedisPubSub;
+
+	private Thread subscribeThread;
+
+	@Override
+	public int getDbIndex(long shardingId, int dbCount) {
+		int[] map = bucketMap;
+		if (map == null) {
+			map = initBucketMap(dbCount);
+		}
+		return map[getBucket(shardingId)];
+	}
+
+	@Override
+	public boolean isWritable(long shardingId) {
+		boolean[] frozen = frozenBuckets;
+		return frozen == null || !frozen[getBucket(shardingId)];
+	}
+
+	/**
+	 * 获取分库主键所在的桶
+	 *
+	 * @param shardingId
+	 * @return
+	 */
+	public int getBucket(long shardingId) {
+		return (int) Math.floorMod(shardingId, (long) bucketCount);
+	}
+
+	/**
+	 * 获取桶当前所在的数据库下标
+	 *
+	 * @param bucket
+	 * @return 桶表没有初始化时返回-1
+	 */
+	public int getBucketDbIndex(int bucket) {
+		int[] map = bucketMap;
+		return map == null ? -1 : map[bucket];
+	}
+
+	/**
+	 * 初始化桶表 先从Redis加载, 没有保存过时按取模生成并保存. 已初始化时不修改
+	 *
+	 * @param dbCount
+	 *            当前的数据库数量
+	 * @return
+	 */
+	public synchronized int[] initBucketMap(int dbCount) {
+		if (bucketMap == null) {
+			load();
+		}
+		if (bucketMap == null) {
+			int[] map = new int[bucketCount];
+			for (int bucket = 0; bucket < bucketCount; bucket++) {
+				map[bucket] = bucket % dbCount;
+			}
+			bucketMap = map;
+			save();
+		}
+		return bucketMap;
+	}
+
+	/**
+	 * 修改部分桶所在的数据库, 保存并通知其他JVM
+	 *
+	 * @param moves
+	 *            桶 -> 新的数据库下标
+	 */
+	public synchronized void moveBuckets(Map<Integer, Integer> moves) {
+		load();
+		checkInitialized();
+		int[] map = bucketMap.clone();
+		for (Map.Entry<Integer, Integer> entry : moves.entrySet()) {
+			map[entry.getKey()] = entry.getValue();
+		}
+		bucketMap = map;
+		save();
+		logger.info("VirtualBucketShardingRouter moveBuckets size={} version={}", moves.size(), version);
+	}
+
+	/**
+	 * 冻结桶的写入, 保存并通知其他JVM. 其他JVM收到通知前仍可能写入, 调用方需要等待通知送达
+	 *
+	 * @param buckets
+	 */
+	public synchronized void freezeBuckets(Collection<Integer> buckets) {
+		setFrozen(buckets, true);
+		logger.info("VirtualBucketShardingRouter freezeBuckets size={} version={}", buckets.size(), version);
+	}
+
+	/**
+	 * 解除桶的冻结, 保存并通知其他JVM
+	 *
+	 * @param buckets
+	 */
+	public synchronized void unfreezeBuckets(Collection<Integer> buckets) {
+		setFrozen(buckets, false);
+		logger.info("VirtualBucketShardingRouter unfreezeBuckets size={} version={}", buckets.size(), version);
+	}
+
+	private void setFrozen(Collection<Integer> buckets, boolean frozen) {
+		load();
+		checkInitialized();
+		boolean[] current = frozenBuckets;
+		boolean[] next = current == null ? new boolean[bucketCount] : current.clone();
+		boolean any = false;
+		for (Integer bucket : buckets) {
+			next[bucket] = frozen;
+		}
+		for (boolean item : next) {
+			any |= item;
+		}
+		frozenBuckets = any ? next : null;
+		save();
+	}
+
+	/**
+	 * 计算数据库数量变为dbCount时需要移动的桶 每个库保留不超过平均数的桶, 多出的桶以及被移除的库的桶分给不足平均数的库,
+	 * 其余桶不动
+	 *
+	 * @param dbCount
+	 *            新的数据库数量
+	 * @return 桶 -> 新的数据库下标, 不修改当前桶表
+	 * @throws IllegalStateException
+	 *             桶表没有初始化, 需要先按当前的数据库数量调用initBucketMap
+	 */
+	public synchronized Map<Integer, Integer> planRebalance(int dbCount) {
+		load();
+		checkInitialized();
+		int[] map = bucketMap;
+		int[] quota = new int[dbCount];
+		for (int i = 0; i < dbCount; i++) {
+			quota[i] = bucketCount / dbCount + (i < bucketCount % dbCount ? 1 : 0);
+		}
+		int[] count = new int[dbCount];
+		List<Integer> freeBuckets = new ArrayList<>();
+		for (int bucket = 0; bucket < map.length; bucket++) {
+			int dbIndex = map[bucket];
+			if (dbIndex < dbCount && count[dbIndex] < quota[dbIndex]) {
+				count[dbIndex]++;
+			} else {
+				freeBuckets.add(bucket);
+			}
+		}
+		Map<Integer, Integer> moves = new LinkedHashMap<>();
+		int dbIndex = 0;
+		for (Integer bucket : freeBuckets) {
+			while (count[dbIndex] >= quota[dbIndex]) {
+				dbIndex++;
+			}
+			count[dbIndex]++;
+			moves.put(bucket, dbIndex);
+		}
+		return moves;
+	}
+
+	private void checkInitialized() {
+		if (bucketMap == null) {
+			throw new IllegalStateException("VirtualBucketShardingRouter bucketMap is not initialized");
+		}
+	}
+
+	/**
+	 * 从Redis加载更新版本的桶表
+	 *
+	 * @return 是否加载了新的桶表
+	 */
+	public synchronized boolean load() {
+		if (redisService == null) {
+			return false;
+		}
+		String value = redisService.getString(tableKey);
+		if (value == null || value.isEmpty()) {
+			return false;
+		}
+		try {
+			String[] parts = value.split("\\" + PART_SPLIT, -1);
+			long tableVersion = Long.parseLong(parts[0]);
+			if (tableVersion <= version && bucketMap != null) {
+				return false;
+			}
+			String[] buckets = parts[1].split(VALUE_SPLIT);
+			if (buckets.length != bucketCount) {
+				logger.error("VirtualBucketShardingRouter load Error! key={} length={} bucketCount={}", tableKey,
+						buckets.length, bucketCount);
+				return false;
+			}
+			int[] map = new int[bucketCount];
+			for (int i = 0; i < bucketCount; i++) {
+				map[i] = Integer.parseInt(buckets[i]);
+			}
+			boolean[] frozen = null;
+			if (!parts[2].isEmpty()) {
+				frozen = new boolean[bucketCount];
+				for (String bucket : parts[2].split(VALUE_SPLIT)) {
+					frozen[Integer.parseInt(bucket)] = true;
+				}
+			}
+			bucketMap = map;
+			frozenBuckets = frozen;
+			version = tableVersion;
+			logger.info("VirtualBucketShardingRouter load key={} version={}", tableKey, version);
+			return true;
+		} catch (RuntimeException e) {
+			logger.error("VirtualBucketShardingRouter load Error! key={} Exception err={}", tableKey, e.toString());
+			return false;
+		}
+	}
+
+	/*
+	 * 保存桶表并通知其他JVM, 没有配置redisService时只修改本JVM
+	 */
+	private void save() {
+		if (redisService == null) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(version + 1).append(PART_SPLIT);
+		int[] map = bucketMap;
+		for (int i = 0; i < map.length; i++) {
+			if (i > 0) {
+				sb.append(VALUE_SPLIT);
+			}
+			sb.append(map[i]);
+		}
+		sb.append(PART_SPLIT);
+		boolean[] frozen = frozenBuckets;
+		if (frozen != null) {
+			boolean first = true;
+			for (int i = 0; i < frozen.length; i++) {
+				if (frozen[i]) {
+					if (!first) {
+						sb.append(VALUE_SPLIT);
+					}
+					sb.append(i);
+					first = false;
+				}
+			}
+		}
+		if (!redisService.setString(tableKey, sb.toString())) {
+			throw new IllegalStateException("VirtualBucketShardingRouter save bucketMap failed key=" + tableKey);
+		}
+		version++;
+		redisService.publish(channel, String.valueOf(version));
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		start();
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	/**
+	 * 加载桶表并启动订阅线程, 接收其他JVM的更新通知
+	 */
+	public synchronized void start() {
+		if (running || redisService == null) {
+			return;
+		}
+		load();
+		running = true;
+		subscribeThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				subscribeLoop();
+			}
+		}, GlobalConstants.Thread.SHARDING_BUCKET_SUBSCRIBE);
+		subscribeThread.setDaemon(true);
+		subscribeThread.start();
+	}
+
+	/**
+	 * 停止订阅
+	 */
+	public synchronized void shutdown() {
+		running = false;
+		JedisPubSub pubSub = jedisPubSub;
+		if (pubSub != null && pubSub.isSubscribed()) {
+			pubSub.unsubscribe();
+		}
+		if (subscribeThread != null) {
+			subscribeThread.interrupt();
+			subscribeThread = null;
+		}
+	}
+
+	private void subscribeLoop() {
+		while (running) {
+			jedisPubSub = new JedisPubSub() {
+				@Override
+				public void onSubscribe(String channel, int subscribedChannels) {
+					// 订阅前的更新没有收到通知
+					load();
+				}
+
+				@Override
+				public void onMessage(String channel, String message) {
+					load();
+				}
+			};
+			redisService.subscribe(jedisPubSub, channel);
+			if (running) {
+				logger.error("VirtualBucketShardingRouter subscribe channel={} disconnected, resubscribe after {}ms",
+						channel, RESUBSCRIBE_INTERVAL);
+				try {
+					Thread.sleep(RESUBSCRIBE_INTERVAL);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	public void setBucketCount(int bucketCount) {
+		this.bucketCount = bucketCount;
+	}
+
+	/**
+	 * @return 桶表的副本
+	 */
+	public int[] getBucketMap() {
+		int[] map = bucketMap;
+		return map == null ? null : map.clone();
+	}
+
+	/**
+	 * 设置本JVM的桶表, 长度必须与bucketCount一致. 配置了redisService时以Redis中更新的版本为准
+	 *
+	 * @param bucketMap
+	 */
+	public synchronized void setBucketMap(int[] bucketMap) {
+		if (bucketMap.length != bucketCount) {
+			throw new IllegalArgumentException("VirtualBucketShardingRouter bucketMap length=" + bucketMap.length
+					+ " bucketCount=" + bucketCount);
+		}
+		this.bucketMap = Arrays.copyOf(bucketMap, bucketMap.length);
+	}
+
+	public RedisService getRedisService() {
+		return redisService;
+	}
+
+	public void setRedisService(RedisService redisService) {
+		this.redisService = redisService;
+	}
+
+	public String getTableKey() {
+		return tableKey;
+	}
+
+	public void setTableKey(String tableKey) {
+		this.tableKey = tableKey;
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	public void setChannel(String channel) {
+		this.channel = channel;
+	}
+}
@@ -0,0 +1,45 @@
+package redis.clients.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed size direct ByteBuffers shared by {@link SocketChannelTransport}s. Direct buffers
+ * are expensive to allocate and are only freed by GC, so connections return them here on close.
+ */
+public final class DirectBufferPool {
+
+	public static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final int MAX_POOLED = 1024;
+
+	private static final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	private static final AtomicInteger pooled = new AtomicInteger();
+
+	private DirectBufferPool() {
+		throw new InstantiationError("Must not instantiate this class");
+	}
+
+	public static ByteBuffer acquire() {
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	public static void release(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect() || buffer.capacity() != BUFFER_SIZE) {
+			return;
+		}
+		if (pooled.incrementAndGet() > MAX_POOLED) {
+			pooled.decrementAndGet();
+			return;
+		}
+		buffers.offer(buffer);
+	}
+}
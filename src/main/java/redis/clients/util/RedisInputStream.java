@@ -10,6 +10,7 @@
 package redis.clients.util;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
 /**
@@ -42,31 +43,26 @@ public class RedisInputStream extends FilterInputStream {
 	}
 
 	public String readLine() {
-		final StringBuilder sb = new StringBuilder();
-		while (true) {
-			ensureFill();
-
-			byte b = buf[count++];
-			if (b == '\r') {
-				ensureFill(); // Must be one more byte
+		ensureFill();
 
-				byte c = buf[count++];
-				if (c == '\n') {
-					break;
+		// fast path: the whole line is already buffered, decode it in place
+		final byte[] buf = this.buf;
+		for (int pos = count; pos < limit - 1; pos++) {
+			if (buf[pos] == '\r' && buf[pos + 1] == '\n') {
+				if (pos == count) {
+					throw new JedisConnectionException("It seems like server has closed the connection.");
 				}
-				sb.append((char) b);
-				sb.append((char) c);
-			} else {
-				sb.append((char) b);
+				final String reply = new String(buf, count, pos - count, StandardCharsets.UTF_8);
+				count = pos + 2;
+				return reply;
 			}
 		}
 
-		final String reply = sb.toString();
-		if (reply.length() == 0) {
+		final byte[] line = readLineBytesSlowly();
+		if (line.length == 0) {
 			throw new JedisConnectionException("It seems like server has closed the connection.");
 		}
-
-		return reply;
+		return new String(line, StandardCharsets.UTF_8);
 	}
 
 	public byte[] readLineBytes() {
@@ -177,6 +173,103 @@ public class RedisInputStream extends FilterInputStream {
 		return (isNeg ? -value : value);
 	}
 
+	/**
+	 * Reads a bulk payload of the given length plus its trailing CRLF and decodes it as UTF-8. When the
+	 * payload fits in the buffer it is decoded straight from the buffer without an intermediate byte[].
+	 */
+	public String readBulkString(int len) {
+		final String value;
+		if (fillAtLeast(len)) {
+			value = new String(buf, count, len, StandardCharsets.UTF_8);
+			count += len;
+		} else {
+			value = new String(readBulkBytes(len), StandardCharsets.UTF_8);
+		}
+		skipCrLf();
+		return value;
+	}
+
+	/**
+	 * Reads a bulk payload holding a decimal integer plus its trailing CRLF, parsing it in place.
+	 */
+	public long readBulkLong(int len) {
+		if (!fillAtLeast(len)) {
+			final long value = Long.parseLong(new String(readBulkBytes(len), StandardCharsets.US_ASCII));
+			skipCrLf();
+			return value;
+		}
+		final byte[] buf = this.buf;
+		final int end = count + len;
+		int pos = count;
+		final boolean isNeg = len > 0 && buf[pos] == '-';
+		if (isNeg) {
+			pos++;
+		}
+		if (pos == end) {
+			throw new NumberFormatException("Empty integer bulk reply");
+		}
+		long value = 0;
+		while (pos < end) {
+			final int digit = buf[pos++] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException(new String(buf, count, len, StandardCharsets.US_ASCII));
+			}
+			value = value * 10 + digit;
+		}
+		count = end;
+		skipCrLf();
+		return isNeg ? -value : value;
+	}
+
+	/*
+	 * Copies a bulk payload that does not fit in the buffer.
+	 */
+	private byte[] readBulkBytes(int len) {
+		final byte[] read = new byte[len];
+		int offset = 0;
+		while (offset < len) {
+			offset += read(read, offset, len - offset);
+		}
+		return read;
+	}
+
+	private void skipCrLf() {
+		ensureFill();
+		count++;
+		ensureFill();
+		count++;
+	}
+
+	/**
+	 * Makes sure at least len unread bytes are in the buffer, compacting it first if needed.
+	 *
+	 * @return false when len is larger than the buffer
+	 */
+	private boolean fillAtLeast(int len) {
+		if (limit - count >= len) {
+			return true;
+		}
+		if (len > buf.length) {
+			return false;
+		}
+		final int remaining = Math.max(limit - count, 0);
+		System.arraycopy(buf, count, buf, 0, remaining);
+		count = 0;
+		limit = remaining;
+		try {
+			while (limit < len) {
+				final int size = in.read(buf, limit, buf.length - limit);
+				if (size == -1) {
+					throw new JedisConnectionException("Unexpected end of stream.");
+				}
+				limit += size;
+			}
+		} catch (IOException e) {
+			throw new JedisConnectionException(e);
+		}
+		return true;
+	}
+
 	@Override
 	public int read(byte[] b, int off, int len) throws JedisConnectionException {
 		ensureFill();
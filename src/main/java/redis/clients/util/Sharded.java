@@ -1,11 +1,11 @@
 package redis.clients.util;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -14,6 +14,9 @@ public class Sharded<R, S extends ShardInfo<R>> {
 
 	public static final int DEFAULT_WEIGHT = 1;
 	private TreeMap<Long, S> nodes;
+	// the ring of nodes as sorted hashes and their shards, searched by getShardInfo
+	private long[] ringHashes;
+	private Object[] ringShards;
 	private final Hashing algo;
 	private final Map<ShardInfo<R>, R> resources = new LinkedHashMap<ShardInfo<R>, R>();
 
@@ -64,6 +67,15 @@ public class Sharded<R, S extends ShardInfo<R>> {
 				}
 			resources.put(shardInfo, shardInfo.createResource());
 		}
+
+		ringHashes = new long[nodes.size()];
+		ringShards = new Object[nodes.size()];
+		int i = 0;
+		for (Map.Entry<Long, S> node : nodes.entrySet()) {
+			ringHashes[i] = node.getKey();
+			ringShards[i] = node.getValue();
+			i++;
+		}
 	}
 
 	public R getShard(byte[] key) {
@@ -74,12 +86,19 @@ public class Sharded<R, S extends ShardInfo<R>> {
 		return resources.get(getShardInfo(key));
 	}
 
+	/**
+	 * The first node whose hash is not below the key's hash, wrapping around to the first node.
+	 */
+	@SuppressWarnings("unchecked")
 	public S getShardInfo(byte[] key) {
-		SortedMap<Long, S> tail = nodes.tailMap(algo.hash(key));
-		if (tail.isEmpty()) {
-			return nodes.get(nodes.firstKey());
+		int index = Arrays.binarySearch(ringHashes, algo.hash(key));
+		if (index < 0) {
+			index = -index - 1;
+			if (index == ringHashes.length) {
+				index = 0;
+			}
 		}
-		return tail.get(tail.firstKey());
+		return (S) ringShards[index];
 	}
 
 	public S getShardInfo(String key) {
@@ -94,6 +113,9 @@ public class Sharded<R, S extends ShardInfo<R>> {
 	 * @return The tag if it exists, or the original key
 	 */
 	public String getKeyTag(String key) {
+		if (tagPattern == DEFAULT_KEY_TAG_PATTERN) {
+			return scanKeyTag(key);
+		}
 		if (tagPattern != null) {
 			Matcher m = tagPattern.matcher(key);
 			if (m.find())
@@ -102,6 +124,26 @@ public class Sharded<R, S extends ShardInfo<R>> {
 		return key;
 	}
 
+	/**
+	 * DEFAULT_KEY_TAG_PATTERN without regex: the first {...} with at least one character, like
+	 * "\\{(.+?)\\}" the tag doesn't span a line terminator
+	 */
+	static String scanKeyTag(String key) {
+		int length = key.length();
+		for (int open = key.indexOf('{'); open >= 0 && open + 2 < length; open = key.indexOf('{', open + 1)) {
+			for (int i = open + 1; i < length; i++) {
+				char c = key.charAt(i);
+				if (c == '}' && i > open + 1) {
+					return key.substring(open + 1, i);
+				}
+				if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+					break;
+				}
+			}
+		}
+		return key;
+	}
+
 	public Collection<S> getAllShardInfo() {
 		return Collections.unmodifiableCollection(nodes.values());
 	}
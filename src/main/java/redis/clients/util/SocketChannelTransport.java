@@ -0,0 +1,113 @@
+package redis.clients.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * SocketChannel transport with a pooled direct write buffer, exposed as the InputStream /
+ * OutputStream pair that RedisInputStream and RedisOutputStream wrap.
+ *
+ * The channel stays in blocking mode and needs no Selector. Reads go through the channel's socket
+ * stream, which honours SO_TIMEOUT and costs a single read when data is ready; wrap it with a
+ * READ_BUFFER_SIZE RedisInputStream so big replies take few reads.
+ *
+ * Small writes are copied into a direct buffer that is written when it fills or on flush. A write of
+ * at least LARGE_WRITE bytes (a big bulk argument) is sent at once, together with the buffered bytes,
+ * in one gathering write. It is never copied and the array is not referenced once write returns, so
+ * callers may reuse it.
+ */
+public class SocketChannelTransport {
+
+	public static final int LARGE_WRITE = 16 * 1024;
+
+	public static final int READ_BUFFER_SIZE = DirectBufferPool.BUFFER_SIZE;
+
+	private final SocketChannel channel;
+	private final InputStream inputStream;
+	private final OutputStream outputStream = new ChannelOutputStream();
+	private final ByteBuffer[] gather = new ByteBuffer[2];
+	private ByteBuffer writeBuffer;
+
+	/**
+	 * @param channel
+	 *            a connected channel in blocking mode
+	 */
+	public SocketChannelTransport(SocketChannel channel) throws IOException {
+		this.channel = channel;
+		this.inputStream = channel.socket().getInputStream();
+		this.writeBuffer = DirectBufferPool.acquire();
+	}
+
+	public InputStream getInputStream() {
+		return inputStream;
+	}
+
+	public OutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	/**
+	 * Returns the direct buffer to the pool. The channel is closed by the owner of the socket.
+	 */
+	public void close() {
+		DirectBufferPool.release(writeBuffer);
+		writeBuffer = null;
+	}
+
+	private void writeBuffered() throws IOException {
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining()) {
+			channel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+	}
+
+	private class ChannelOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!writeBuffer.hasRemaining()) {
+				writeBuffered();
+			}
+			writeBuffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len >= LARGE_WRITE) {
+				writeBuffer.flip();
+				ByteBuffer large = ByteBuffer.wrap(b, off, len);
+				gather[0] = writeBuffer;
+				gather[1] = large;
+				try {
+					while (large.hasRemaining()) {
+						channel.write(gather);
+					}
+				} finally {
+					gather[1] = null;
+					writeBuffer.clear();
+				}
+				return;
+			}
+			while (len > 0) {
+				if (!writeBuffer.hasRemaining()) {
+					writeBuffered();
+				}
+				int length = Math.min(len, writeBuffer.remaining());
+				writeBuffer.put(b, off, length);
+				off += length;
+				len -= length;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (writeBuffer.position() > 0) {
+				writeBuffered();
+			}
+		}
+	}
+}
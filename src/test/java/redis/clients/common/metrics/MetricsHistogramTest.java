@@ -0,0 +1,68 @@
+package redis.clients.common.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsHistogramTest {
+
+  @Test
+  public void smallValuesHaveTheirOwnBucket() {
+    for (int value = 0; value < 16; value++) {
+      assertEquals(value, MetricsHistogram.getIndex(value));
+      assertEquals(value, MetricsHistogram.getUpperValue(value));
+    }
+    assertEquals(16, MetricsHistogram.getIndex(16));
+  }
+
+  @Test
+  public void bucketsAreContiguous() {
+    int last = MetricsHistogram.getIndex(Long.MAX_VALUE);
+    for (int index = 0; index < last; index++) {
+      long upper = MetricsHistogram.getUpperValue(index);
+      assertEquals("upper of " + index, index, MetricsHistogram.getIndex(upper));
+      assertEquals("after upper of " + index, index + 1, MetricsHistogram.getIndex(upper + 1));
+    }
+    assertEquals(Long.MAX_VALUE, MetricsHistogram.getUpperValue(last));
+  }
+
+  @Test
+  public void relativeErrorIsBounded() {
+    long[] values = { 17, 100, 1000, 12345, 999999, 123456789L, 1L << 40, (1L << 40) + 1, Long.MAX_VALUE / 3 };
+    for (long value : values) {
+      long upper = MetricsHistogram.getUpperValue(MetricsHistogram.getIndex(value));
+      assertTrue(value + " <= " + upper, value <= upper);
+      assertTrue(value + " ~ " + upper, upper - value <= value / 16);
+    }
+  }
+
+  @Test
+  public void percentiles() {
+    MetricsHistogram histogram = new MetricsHistogram();
+    assertEquals(0, histogram.getValueAtPercentile(99));
+
+    for (int value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(500, histogram.getMean());
+
+    long p50 = histogram.getValueAtPercentile(50);
+    assertTrue(String.valueOf(p50), p50 >= 500 && p50 - 500 <= 500 / 16);
+    long p99 = histogram.getValueAtPercentile(99);
+    assertTrue(String.valueOf(p99), p99 >= 990 && p99 <= 1000);
+    assertEquals(1000, histogram.getValueAtPercentile(100));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void negativeValuesAreRecordedAsZero() {
+    MetricsHistogram histogram = new MetricsHistogram();
+    histogram.record(-5);
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getValueAtPercentile(100));
+  }
+}
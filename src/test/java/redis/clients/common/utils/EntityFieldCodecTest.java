@@ -0,0 +1,338 @@
+package redis.clients.common.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import redis.clients.common.annotation.FieldSave;
+import redis.clients.common.annotation.FieldSave2DB;
+import redis.clients.common.annotation.FieldSave2Redis;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+
+public class EntityFieldCodecTest {
+
+  public static class BaseEntity {
+    @FieldSave
+    private long id;
+    @FieldSave
+    private String name = "base";
+    private int transientCount;
+
+    public long getId() {
+      return id;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public String getBaseName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getTransientCount() {
+      return transientCount;
+    }
+
+    public void setTransientCount(int transientCount) {
+      this.transientCount = transientCount;
+    }
+  }
+
+  public static class SampleEntity extends BaseEntity {
+    @FieldSave
+    private String name;
+    @FieldSave
+    private int level;
+    @FieldSave2DB
+    private boolean online;
+    @FieldSave2Redis
+    private Long exp;
+    @FieldSave
+    private float rate;
+    @FieldSave
+    private double score;
+    @FieldSave
+    private byte type;
+    @FieldSave
+    private short slot;
+    @FieldSave
+    private Date created;
+    @FieldSave
+    private Timestamp updated;
+    @FieldSave
+    private Map<String, String> attributes;
+    @FieldSave
+    private List<String> tags;
+    // no setter, never decoded
+    @FieldSave
+    private String readOnly;
+
+    @Override
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getLevel() {
+      return level;
+    }
+
+    public void setLevel(int level) {
+      this.level = level;
+    }
+
+    public boolean isOnline() {
+      return online;
+    }
+
+    public void setOnline(boolean online) {
+      this.online = online;
+    }
+
+    public Long getExp() {
+      return exp;
+    }
+
+    public void setExp(Long exp) {
+      this.exp = exp;
+    }
+
+    public float getRate() {
+      return rate;
+    }
+
+    public void setRate(float rate) {
+      this.rate = rate;
+    }
+
+    public double getScore() {
+      return score;
+    }
+
+    public void setScore(double score) {
+      this.score = score;
+    }
+
+    public byte getType() {
+      return type;
+    }
+
+    public void setType(byte type) {
+      this.type = type;
+    }
+
+    public short getSlot() {
+      return slot;
+    }
+
+    public void setSlot(short slot) {
+      this.slot = slot;
+    }
+
+    public Date getCreated() {
+      return created;
+    }
+
+    public void setCreated(Date created) {
+      this.created = created;
+    }
+
+    public Timestamp getUpdated() {
+      return updated;
+    }
+
+    public void setUpdated(Timestamp updated) {
+      this.updated = updated;
+    }
+
+    public Map<String, String> getAttributes() {
+      return attributes;
+    }
+
+    public void setAttributes(Map<String, String> attributes) {
+      this.attributes = attributes;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public void setTags(List<String> tags) {
+      this.tags = tags;
+    }
+
+    public String getReadOnly() {
+      return readOnly;
+    }
+  }
+
+  public static class ProxySampleEntity extends SampleEntity {
+  }
+
+  private static SampleEntity sample() {
+    SampleEntity entity = new SampleEntity();
+    entity.setId(1001L);
+    entity.setName("player");
+    entity.setLevel(42);
+    entity.setOnline(true);
+    entity.setExp(123456789012L);
+    entity.setRate(0.5f);
+    entity.setScore(98.25);
+    entity.setType((byte) 7);
+    entity.setSlot((short) 300);
+    entity.setCreated(TimeUtils.stringToDate("2016-10-18 12:34:56"));
+    entity.setUpdated(TimeUtils.stringtoTimestamp("2016-10-19 01:02:03"));
+    Map<String, String> attributes = new HashMap<String, String>();
+    attributes.put("color", "red");
+    entity.setAttributes(attributes);
+    entity.setTags(Arrays.asList("a", "b"));
+    entity.setTransientCount(9);
+    return entity;
+  }
+
+  private static String[] names(Field[] fields) {
+    String[] names = new String[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      names[i] = fields[i].getName();
+    }
+    return names;
+  }
+
+  @Test
+  public void codecIsCachedPerClass() {
+    assertSame(EntityFieldCodec.getCodec(SampleEntity.class), EntityFieldCodec.getCodec(SampleEntity.class));
+  }
+
+  @Test
+  public void cacheFieldsFollowAnnotationsSubclassFirst() {
+    EntityFieldCodec codec = EntityFieldCodec.getCodec(SampleEntity.class);
+    String[] common = { "name", "level", "rate", "score", "type", "slot", "created", "updated", "attributes",
+        "tags", "readOnly" };
+    List<String> all = Arrays.asList(names(codec.getCacheFields(EntitySaveEnum.SaveAll)));
+    assertEquals(Arrays.asList(common), all.subList(0, common.length));
+    assertEquals(Arrays.asList("id", "name"), all.subList(common.length, all.size()));
+
+    List<String> db = Arrays.asList(names(codec.getCacheFields(EntitySaveEnum.Save2DB)));
+    assertTrue(db.contains("online"));
+    assertFalse(db.contains("exp"));
+    assertEquals(all.size() + 1, db.size());
+
+    List<String> redis = Arrays.asList(names(codec.getCacheFields(EntitySaveEnum.Save2Redis)));
+    assertTrue(redis.contains("exp"));
+    assertFalse(redis.contains("online"));
+    assertFalse(redis.contains("transientCount"));
+  }
+
+  @Test
+  public void encodeDecodeRoundTrip() throws Exception {
+    SampleEntity entity = sample();
+    EntityFieldCodec codec = EntityFieldCodec.getCodec(SampleEntity.class);
+
+    Map<String, String> map = codec.encode(entity, EntitySaveEnum.SaveAll);
+    assertEquals("player", map.get("name"));
+    assertEquals("42", map.get("level"));
+    assertEquals("2016-10-18 12:34:56", map.get("created"));
+    assertEquals("2016-10-19 01:02:03", map.get("updated"));
+    assertEquals("", map.get("readOnly"));
+    assertFalse(map.containsKey("transientCount"));
+
+    map.put("exp", "123456789012");
+    map.put("online", "true");
+    SampleEntity decoded = codec.decode(map, new SampleEntity());
+    assertEquals(entity.getId(), decoded.getId());
+    assertEquals("player", decoded.getName());
+    assertEquals(42, decoded.getLevel());
+    assertTrue(decoded.isOnline());
+    assertEquals(Long.valueOf(123456789012L), decoded.getExp());
+    assertEquals(0.5f, decoded.getRate(), 0f);
+    assertEquals(98.25, decoded.getScore(), 0d);
+    assertEquals(7, decoded.getType());
+    assertEquals(300, decoded.getSlot());
+    assertEquals(entity.getCreated(), decoded.getCreated());
+    assertEquals(entity.getUpdated(), decoded.getUpdated());
+    assertEquals(entity.getAttributes(), decoded.getAttributes());
+    assertEquals(entity.getTags(), decoded.getTags());
+    assertNull(decoded.getReadOnly());
+    assertEquals(0, decoded.getTransientCount());
+  }
+
+  @Test
+  public void emptyAndUnknownValuesAreIgnored() throws Exception {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("level", "");
+    map.put("unknown", "1");
+    map.put("", "2");
+    map.put("readOnly", "x");
+    SampleEntity decoded = EntityFieldCodec.getCodec(SampleEntity.class).decode(map, new SampleEntity());
+    assertEquals(0, decoded.getLevel());
+    assertNull(decoded.getReadOnly());
+  }
+
+  @Test
+  public void subclassFieldHidesParentField() throws Exception {
+    SampleEntity entity = new SampleEntity();
+    EntityFieldCodec codec = EntityFieldCodec.getCodec(SampleEntity.class);
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("name", "child");
+    codec.decode(map, entity);
+    assertEquals("child", entity.getName());
+    assertEquals("base", entity.getBaseName());
+    assertEquals("child", codec.getFieldValue(entity, "name"));
+    assertNull(codec.getFieldValue(entity, "missing"));
+    assertNull(codec.getAccessor("missing"));
+  }
+
+  @Test
+  public void valuesFollowCacheFieldOrder() throws Exception {
+    SampleEntity entity = sample();
+    EntityFieldCodec codec = EntityFieldCodec.getCodec(SampleEntity.class);
+    String[] values = codec.encodeValues(entity, EntitySaveEnum.Save2Redis);
+    Field[] fields = codec.getCacheFields(EntitySaveEnum.Save2Redis);
+    assertEquals(fields.length, values.length);
+
+    Map<String, String> map = codec.encode(entity, EntitySaveEnum.Save2Redis);
+    for (int i = 0; i < fields.length; i++) {
+      if (fields[i].getDeclaringClass() == SampleEntity.class) {
+        assertEquals(fields[i].getName(), map.get(fields[i].getName()), values[i]);
+      }
+    }
+
+    SampleEntity decoded = codec.decodeValues(values, new SampleEntity(), EntitySaveEnum.Save2Redis);
+    assertArrayEquals(values, codec.encodeValues(decoded, EntitySaveEnum.Save2Redis));
+  }
+
+  @Test
+  public void copyFieldsIntoSubclass() throws Exception {
+    SampleEntity entity = sample();
+    ProxySampleEntity copy = EntityFieldCodec.getCodec(SampleEntity.class).copyFields(entity,
+        new ProxySampleEntity());
+    assertEquals(entity.getId(), copy.getId());
+    assertEquals(entity.getName(), copy.getName());
+    assertEquals(entity.getBaseName(), copy.getBaseName());
+    assertEquals(9, copy.getTransientCount());
+    assertSame(entity.getAttributes(), copy.getAttributes());
+    assertArrayEquals(EntityFieldCodec.getCodec(SampleEntity.class).encodeValues(entity, EntitySaveEnum.SaveAll),
+        EntityFieldCodec.getCodec(SampleEntity.class).encodeValues(copy, EntitySaveEnum.SaveAll));
+  }
+}
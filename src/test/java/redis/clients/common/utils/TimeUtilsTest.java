@@ -0,0 +1,139 @@
+package redis.clients.common.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimeUtilsTest {
+
+  // 1900-01-01 .. 2200-01-01 UTC
+  private static final long FROM = -2208988800000L;
+  private static final long TO = 7258118400000L;
+
+  private static SimpleDateFormat defaultFormat() {
+    SimpleDateFormat format = new SimpleDateFormat(TimeUtils.DEFAULT_DATE_FAMAT);
+    format.setTimeZone(TimeUtils.TIME_ZONE);
+    return format;
+  }
+
+  private static long randomTime(Random random) {
+    return FROM + (long) (random.nextDouble() * (TO - FROM));
+  }
+
+  @Test
+  public void formatMatchesSimpleDateFormat() {
+    SimpleDateFormat format = defaultFormat();
+    Random random = new Random(20161018L);
+    long[] edges = { 0, -1, 951782400000L, 951868799999L, 1330444800000L, 946656000000L, 4107456000000L };
+    for (long time : edges) {
+      assertEquals(format.format(new Date(time)), TimeUtils.formatYMDHMSTime(time));
+    }
+    for (int n = 0; n < 100000; n++) {
+      long time = randomTime(random);
+      assertEquals(format.format(new Date(time)), TimeUtils.dateToString(new Date(time)));
+    }
+  }
+
+  @Test
+  public void parseRoundTrip() {
+    Random random = new Random(20161019L);
+    for (int n = 0; n < 100000; n++) {
+      long time = randomTime(random);
+      long seconds = Math.floorDiv(time, TimeUtils.SECOND) * TimeUtils.SECOND;
+      assertEquals(seconds, TimeUtils.stringToDate(TimeUtils.formatYMDHMSTime(time)).getTime());
+    }
+  }
+
+  @Test
+  public void parseFallsBackToSimpleDateFormat() throws ParseException {
+    SimpleDateFormat format = defaultFormat();
+    String[] values = { "2012-2-3 4:05:06", "2012-02-30 00:00:00", "2011-02-29 12:00:00", "2012-12-24 24:00:00",
+        "2016-10-18 23:59:60" };
+    for (String value : values) {
+      assertEquals(value, format.parse(value), TimeUtils.stringToDate(value));
+    }
+    assertEquals(format.parse("2012-02-29 12:00:00"), TimeUtils.stringToDate("2012-02-29 12:00:00"));
+  }
+
+  @Test
+  public void timestamp() throws ParseException {
+    Timestamp timestamp = TimeUtils.stringtoTimestamp("2012-12-24 15:01:12");
+    assertEquals(defaultFormat().parse("2012-12-24 15:01:12").getTime(), timestamp.getTime());
+    assertEquals("2012-12-24 15:01:12", TimeUtils.dateToString(timestamp));
+  }
+
+  @Test
+  public void shortFormats() throws ParseException {
+    long time = TimeUtils.getYMDHMTime("2012-12-24 15:01");
+    assertEquals("2012-12-24 15:01", TimeUtils.formatYMDHMTime(time));
+    assertEquals("2012-12-24", TimeUtils.formatYMDTime(time));
+    assertEquals("15:01", TimeUtils.formatHMTime(time));
+    assertEquals("2012-12-24 15:01:00", TimeUtils.formatYMDHMSTime(time));
+
+    assertEquals(time, TimeUtils.getYMDHMTime("2012-12-24 15:1"));
+    assertEquals(TimeUtils.getYMDTime("2012-01-02"), TimeUtils.getYMDTime("2012-1-2"));
+    assertEquals(time - 15 * TimeUtils.HOUR - TimeUtils.MIN, TimeUtils.getYMDTime("2012-12-24"));
+    assertEquals(15 * TimeUtils.HOUR + TimeUtils.MIN, TimeUtils.getHMTime("15:01"));
+    assertEquals(TimeUtils.getHMTime("15:01"), TimeUtils.getHMTime("15:1"));
+  }
+
+  @Test
+  public void shortFormatsAreLenientLikeSimpleDateFormat() throws ParseException {
+    assertEquals(TimeUtils.getYMDTime("2017-03-02"), TimeUtils.getYMDTime("2017-02-30"));
+    assertEquals(TimeUtils.getYMDTime("2011-01-11"), TimeUtils.getYMDTime("2011-01-11 01:10"));
+    assertEquals(TimeUtils.getYMDHMTime("2012-12-25 00:30"), TimeUtils.getYMDHMTime("2012-12-24 24:30"));
+    assertEquals(TimeUtils.getHMTime("15:01"), TimeUtils.getHMTime("15:01:59"));
+
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+    format.setTimeZone(TimeUtils.TIME_ZONE);
+    assertEquals(format.parse("2017-02-30").getTime(), TimeUtils.getYMDTime("2017-02-30"));
+  }
+
+  @Test(expected = ParseException.class)
+  public void invalidShortFormat() throws ParseException {
+    TimeUtils.getYMDHMTime("2012/12/24 15:01");
+  }
+
+  @Test
+  public void concurrentFormatAndParse() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < 8; t++) {
+        final long seed = t;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            SimpleDateFormat format = defaultFormat();
+            Random random = new Random(seed);
+            for (int n = 0; n < 20000; n++) {
+              long time = randomTime(random);
+              String value = TimeUtils.formatYMDHMSTime(time);
+              assertEquals(format.format(new Date(time)), value);
+              assertEquals(format.parse(value), TimeUtils.stringToDate(value));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
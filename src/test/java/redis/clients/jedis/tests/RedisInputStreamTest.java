@@ -0,0 +1,138 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.RedisInputStream;
+import redis.clients.util.SafeEncoder;
+
+public class RedisInputStreamTest {
+
+  /**
+   * Hands out at most chunk bytes per read, so every value crosses several buffer refills.
+   */
+  private static class ChunkedInputStream extends ByteArrayInputStream {
+    private final int chunk;
+
+    ChunkedInputStream(byte[] buf, int chunk) {
+      super(buf);
+      this.chunk = chunk;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      return super.read(b, off, Math.min(len, chunk));
+    }
+  }
+
+  private static RedisInputStream stream(String data, int bufferSize, int chunk) {
+    InputStream in = new ChunkedInputStream(SafeEncoder.encode(data), chunk);
+    return new RedisInputStream(in, bufferSize);
+  }
+
+  @Test
+  public void readLineAcrossRefills() {
+    for (int chunk = 1; chunk <= 9; chunk++) {
+      RedisInputStream in = stream("+OK a rather long status line\r\n+QUEUED\r\n-ERR x\r\n", 8, chunk);
+      assertEquals('+', in.readByte());
+      assertEquals("OK a rather long status line", in.readLine());
+      assertEquals('+', in.readByte());
+      assertEquals("QUEUED", in.readLine());
+      assertEquals('-', in.readByte());
+      assertEquals("ERR x", in.readLine());
+    }
+  }
+
+  @Test
+  public void readLineWithCrAtTheEndOfTheBuffer() {
+    // the buffer ends right after '\r', the '\n' comes with the next read
+    RedisInputStream in = stream("abcdefg\r\nh\r\n", 8, 8);
+    assertEquals("abcdefg", in.readLine());
+    assertEquals("h", in.readLine());
+  }
+
+  @Test
+  public void readLineDecodesUtf8SplitAcrossReads() {
+    String line = "\u4e2d\u6587\u72b6\u6001\u00e9";
+    for (int chunk = 1; chunk <= 4; chunk++) {
+      RedisInputStream in = stream(line + "\r\n", 8, chunk);
+      assertEquals(line, in.readLine());
+    }
+  }
+
+  @Test
+  public void readBulkStringCompactsTheBuffer() {
+    // after the header the payload straddles the end of the buffer and has to be compacted
+    String payload = "0123456789abc";
+    for (int chunk = 1; chunk <= 16; chunk++) {
+      RedisInputStream in = stream("$13\r\n" + payload + "\r\n:1\r\n", 16, chunk);
+      assertEquals('$', in.readByte());
+      assertEquals(13, in.readIntCrLf());
+      assertEquals(payload, in.readBulkString(13));
+      assertEquals(':', in.readByte());
+      assertEquals(1, in.readLongCrLf());
+    }
+  }
+
+  @Test
+  public void readBulkStringLargerThanTheBuffer() {
+    char[] chars = new char[1000];
+    Arrays.fill(chars, '\u597d');
+    String payload = new String(chars) + "end";
+    byte[] bytes = SafeEncoder.encode(payload);
+    for (int chunk : new int[] { 1, 7, 64, 5000 }) {
+      RedisInputStream in = stream(payload + "\r\n+OK\r\n", 32, chunk);
+      assertEquals(payload, in.readBulkString(bytes.length));
+      assertEquals('+', in.readByte());
+      assertEquals("OK", in.readLine());
+    }
+  }
+
+  @Test
+  public void readEmptyBulkString() {
+    RedisInputStream in = stream("\r\n+OK\r\n", 8, 1);
+    assertEquals("", in.readBulkString(0));
+    assertEquals('+', in.readByte());
+    assertEquals("OK", in.readLine());
+  }
+
+  @Test
+  public void readBulkLongAcrossRefills() {
+    for (int chunk = 1; chunk <= 8; chunk++) {
+      RedisInputStream in = stream("-1234567\r\n9223372036854775807\r\n0\r\n", 8, chunk);
+      assertEquals(-1234567L, in.readBulkLong(8));
+      // longer than the buffer
+      assertEquals(Long.MAX_VALUE, in.readBulkLong(19));
+      assertEquals(0L, in.readBulkLong(1));
+    }
+  }
+
+  @Test
+  public void readBulkLongRejectsNonDigits() {
+    RedisInputStream in = stream("12a\r\n", 8, 8);
+    try {
+      in.readBulkLong(3);
+      fail("expected NumberFormatException");
+    } catch (NumberFormatException e) {
+      assertTrue(e.getMessage().contains("12a"));
+    }
+  }
+
+  @Test(expected = JedisConnectionException.class)
+  public void truncatedBulkString() {
+    stream("abc", 16, 1).readBulkString(5);
+  }
+
+  @Test(expected = JedisConnectionException.class)
+  public void truncatedLine() {
+    stream("abc", 16, 1).readLine();
+  }
+}
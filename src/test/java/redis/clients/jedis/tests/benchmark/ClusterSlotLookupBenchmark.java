@@ -0,0 +1,128 @@
+package redis.clients.jedis.tests.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Contended slot lookups: JedisClusterInfoCache.getSlotPool (array snapshot) against the former
+ * HashMap guarded by a ReentrantReadWriteLock, with one thread per core and optional concurrent
+ * topology updates. No redis server is needed, the pools are never used.
+ */
+public class ClusterSlotLookupBenchmark {
+  private static final int SLOTS = 16384;
+  private static final int NODES = 6;
+  private static final long DURATION_MILLIS = 2000;
+
+  interface SlotLookup {
+    JedisPool get(int slot);
+
+    void update(int slot, JedisPool pool);
+  }
+
+  static class LockedMapLookup implements SlotLookup {
+    private final Map<Integer, JedisPool> slots = new HashMap<Integer, JedisPool>();
+    private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+
+    public JedisPool get(int slot) {
+      rwl.readLock().lock();
+      try {
+        return slots.get(slot);
+      } finally {
+        rwl.readLock().unlock();
+      }
+    }
+
+    public void update(int slot, JedisPool pool) {
+      rwl.writeLock().lock();
+      try {
+        slots.put(slot, pool);
+      } finally {
+        rwl.writeLock().unlock();
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+    final JedisClusterInfoCache cache = new JedisClusterInfoCache(new GenericObjectPoolConfig(), 2000);
+    final LockedMapLookup locked = new LockedMapLookup();
+    final List<HostAndPort> nodes = new ArrayList<HostAndPort>();
+    for (int n = 0; n < NODES; n++) {
+      HostAndPort node = new HostAndPort("127.0.0.1", 7000 + n);
+      nodes.add(node);
+      List<Integer> range = new ArrayList<Integer>();
+      for (int slot = n * SLOTS / NODES; slot < (n + 1) * SLOTS / NODES; slot++) {
+        range.add(slot);
+        locked.update(slot, cache.setupNodeIfNotExist(node));
+      }
+      cache.assignSlotsToNode(range, node);
+    }
+    SlotLookup snapshot = new SlotLookup() {
+      public JedisPool get(int slot) {
+        return cache.getSlotPool(slot);
+      }
+
+      public void update(int slot, JedisPool pool) {
+        cache.assignSlotToNode(slot, nodes.get(slot % NODES));
+      }
+    };
+
+    for (int round = 0; round < 2; round++) {
+      boolean updates = round == 1;
+      System.out.println(threads + " threads, topology updates " + (updates ? "every 1ms" : "off"));
+      System.out.println("  rwlock HashMap : " + measure(locked, threads, updates) + " lookups/s");
+      System.out.println("  array snapshot : " + measure(snapshot, threads, updates) + " lookups/s");
+    }
+    cache.reset();
+  }
+
+  private static long measure(final SlotLookup lookup, int threads, final boolean updates)
+      throws InterruptedException {
+    final AtomicLong total = new AtomicLong();
+    final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+    final CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      final int seed = t;
+      new Thread() {
+        public void run() {
+          long count = 0;
+          int slot = seed * 997;
+          Object sink = null;
+          while ((count & 1023) != 0 || System.nanoTime() < end) {
+            slot = (slot + 7919) & (SLOTS - 1);
+            sink = lookup.get(slot);
+            count++;
+          }
+          if (sink == null) {
+            System.out.println("missing slot");
+          }
+          total.addAndGet(count);
+          done.countDown();
+        }
+      }.start();
+    }
+    if (updates) {
+      int slot = 0;
+      while (done.getCount() > 0) {
+        lookup.update(slot, lookup.get(slot));
+        slot = (slot + 1) & (SLOTS - 1);
+        Thread.sleep(1);
+      }
+    }
+    done.await();
+    return total.get() * 1000 / DURATION_MILLIS;
+  }
+}
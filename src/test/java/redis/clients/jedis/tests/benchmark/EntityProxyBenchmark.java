@@ -0,0 +1,57 @@
+package redis.clients.jedis.tests.benchmark;
+
+import java.util.Calendar;
+import java.util.Map;
+
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+import redis.clients.entity.UserEntity;
+import redis.clients.proxy.EntityProxyFactory;
+
+public class EntityProxyBenchmark {
+  private static final int TOTAL_OPERATIONS = 200000;
+
+  public static void main(String[] args) throws Exception {
+    UserEntity entity = new UserEntity();
+    entity.init();
+    entity.setUid("benchmark");
+    entity.setAcc("acc");
+
+    EntityProxyFactory cglibFactory = new EntityProxyFactory();
+    EntityProxyFactory bitSetFactory = new EntityProxyFactory();
+    bitSetFactory.setBitSetProxyFlag(true);
+
+    System.out.println("cglib changed " + run(cglibFactory, entity, 1));
+    System.out.println("bitset changed " + run(bitSetFactory, entity, 1));
+
+    // 预热
+    run(cglibFactory, entity, TOTAL_OPERATIONS / 10);
+    run(bitSetFactory, entity, TOTAL_OPERATIONS / 10);
+
+    long begin = Calendar.getInstance().getTimeInMillis();
+    run(cglibFactory, entity, TOTAL_OPERATIONS);
+    long elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " EntityProxy create+update ops");
+
+    begin = Calendar.getInstance().getTimeInMillis();
+    run(bitSetFactory, entity, TOTAL_OPERATIONS);
+    elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " BitSetEntityProxy create+update ops");
+  }
+
+  /**
+   * 创建代理, 修改三个字段并取出变化字段
+   */
+  private static Map<String, Object> run(EntityProxyFactory factory, UserEntity entity, int count)
+      throws Exception {
+    Map<String, Object> changeParamSet = null;
+    for (int n = 0; n < count; n++) {
+      UserEntity proxyEntity = factory.createProxyEntity(entity);
+      proxyEntity.setLevel(n + 1);
+      proxyEntity.setGoldCoin(n + 100);
+      proxyEntity.setName("name" + (n & 7));
+      changeParamSet = proxyEntity.getEntityProxyWrapper().getEntityProxy()
+          .getChangeParamSet(EntitySaveEnum.Save2DB);
+    }
+    return changeParamSet;
+  }
+}
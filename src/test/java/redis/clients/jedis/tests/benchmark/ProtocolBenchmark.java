@@ -1,5 +1,6 @@
 package redis.clients.jedis.tests.benchmark;
 
+import redis.clients.jedis.BuilderFactory;
 import redis.clients.jedis.Protocol;
 import redis.clients.util.RedisInputStream;
 import redis.clients.util.RedisOutputStream;
@@ -48,6 +49,28 @@ public class ProtocolBenchmark {
     }
 
     System.out.println((total / 5) + " avg");
+
+    total = 0;
+    for (int at = 0; at != 10; ++at) {
+      long elapsed = measureInputHash(false);
+      long ops = ((1000 * 2 * TOTAL_OPERATIONS) / TimeUnit.NANOSECONDS.toMillis(elapsed));
+      if (at >= 5) {
+        total += ops;
+      }
+    }
+
+    System.out.println((total / 5) + " avg hgetall STRING_MAP");
+
+    total = 0;
+    for (int at = 0; at != 10; ++at) {
+      long elapsed = measureInputHash(true);
+      long ops = ((1000 * 2 * TOTAL_OPERATIONS) / TimeUnit.NANOSECONDS.toMillis(elapsed));
+      if (at >= 5) {
+        total += ops;
+      }
+    }
+
+    System.out.println((total / 5) + " avg hgetall STREAMING_STRING_MAP");
   }
 
   private static long measureInputMulti() throws Exception {
@@ -83,6 +106,27 @@ public class ProtocolBenchmark {
     return duration;
   }
 
+  private static long measureInputHash(boolean streaming) throws Exception {
+    long duration = 0;
+
+    InputStream is = new ByteArrayInputStream(("*8\r\n$3\r\nuid\r\n$8\r\n10000001\r\n$4\r\nname\r\n$6\r\nplayer"
+        + "\r\n$5\r\nlevel\r\n$2\r\n42\r\n$10\r\ncreateTime\r\n$19\r\n2017-03-16 12:00:00\r\n").getBytes());
+
+    RedisInputStream in = new RedisInputStream(is);
+    for (int n = 0; n <= TOTAL_OPERATIONS; n++) {
+      long start = System.nanoTime();
+      if (streaming) {
+        BuilderFactory.STREAMING_STRING_MAP.build(in);
+      } else {
+        BuilderFactory.STRING_MAP.build(Protocol.read(in));
+      }
+      duration += (System.nanoTime() - start);
+      in.reset();
+    }
+
+    return duration;
+  }
+
   private static long measureCommand() throws Exception {
     long duration = 0;
 
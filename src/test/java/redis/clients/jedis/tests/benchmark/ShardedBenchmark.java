@@ -2,12 +2,25 @@ package redis.clients.jedis.tests.benchmark;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
 
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
 import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+import redis.clients.util.Sharded;
 
 public class ShardedBenchmark {
   private static final int TOTAL_OPERATIONS = 10000000;
+  private static final int SHARDS = 16;
+  private static final int KEYS = 1 << 16;
+  // keeps the lookup loops from being optimized away
+  static volatile int blackhole;
 
   public static void main(String[] args) throws UnknownHostException, IOException {
 
@@ -33,5 +46,70 @@ public class ShardedBenchmark {
 
     System.out.println(((1000 * TOTAL_OPERATIONS) / elapsed) + " Murmur ops");
 
+    lookups();
+  }
+
+  /**
+   * Shard lookups with the key tag pattern: Sharded.getShardInfo (sorted long[] ring, key tag
+   * scanner) against the former TreeMap tailMap and regex. No redis server is needed.
+   */
+  private static void lookups() {
+    List<JedisShardInfo> shards = new ArrayList<JedisShardInfo>();
+    for (int i = 0; i < SHARDS; i++) {
+      shards.add(new JedisShardInfo("localhost", 6379 + i));
+    }
+    Sharded<Jedis, JedisShardInfo> sharded = new Sharded<Jedis, JedisShardInfo>(shards,
+        Sharded.DEFAULT_KEY_TAG_PATTERN);
+    TreeMap<Long, JedisShardInfo> treeRing = new TreeMap<Long, JedisShardInfo>();
+    for (int i = 0; i < SHARDS; i++) {
+      for (int n = 0; n < 160 * shards.get(i).getWeight(); n++) {
+        treeRing.put(Hashing.MURMUR_HASH.hash("SHARD-" + i + "-NODE-" + n), shards.get(i));
+      }
+    }
+
+    String[] keys = new String[KEYS];
+    for (int n = 0; n < KEYS; n++) {
+      keys[n] = n % 4 == 0 ? "user{" + n + "}:profile" : "foo" + n;
+    }
+    for (int n = 0; n < KEYS; n++) {
+      if (sharded.getShardInfo(keys[n]) != treeLookup(treeRing, keys[n])) {
+        System.out.println("lookup mismatch for " + keys[n]);
+        return;
+      }
+    }
+
+    for (int round = 0; round < 2; round++) {
+      long begin = Calendar.getInstance().getTimeInMillis();
+      int sink = 0;
+      for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+        sink += treeLookup(treeRing, keys[n & (KEYS - 1)]).getPort();
+      }
+      long elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+      System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " TreeMap+regex lookup ops (" + SHARDS
+          + " shards)");
+      blackhole = sink;
+
+      begin = Calendar.getInstance().getTimeInMillis();
+      sink = 0;
+      for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+        sink += sharded.getShardInfo(keys[n & (KEYS - 1)]).getPort();
+      }
+      elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+      System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " array ring lookup ops (" + SHARDS
+          + " shards)");
+      blackhole = sink;
+    }
+  }
+
+  private static JedisShardInfo treeLookup(TreeMap<Long, JedisShardInfo> ring, String key) {
+    Matcher m = Sharded.DEFAULT_KEY_TAG_PATTERN.matcher(key);
+    if (m.find()) {
+      key = m.group(1);
+    }
+    SortedMap<Long, JedisShardInfo> tail = ring.tailMap(Hashing.MURMUR_HASH.hash(SafeEncoder.encode(key)));
+    if (tail.isEmpty()) {
+      return ring.get(ring.firstKey());
+    }
+    return tail.get(tail.firstKey());
   }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package redis.clients.jedis.tests.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.tests.HostAndPortUtil;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Big pipelines over the socket streams and over the SocketChannel transport. Besides the time it
+ * prints the read/write system calls of the benchmark thread from /proc/thread-self/io (Linux only).
+ */
+public class SocketChannelTransportBenchmark {
+  private static HostAndPort hnp = HostAndPortUtil.getRedisServers().get(0);
+  private static final int TOTAL_OPERATIONS = 20000;
+  private static final int SMALL_VALUE = 100;
+  private static final int LARGE_VALUE = 64 * 1024;
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) throws UnknownHostException, IOException {
+    for (int round = 0; round < ROUNDS; round++) {
+      run(false, SMALL_VALUE);
+      run(true, SMALL_VALUE);
+      run(false, LARGE_VALUE);
+      run(true, LARGE_VALUE);
+    }
+  }
+
+  private static void run(boolean nio, int valueSize) throws IOException {
+    Jedis jedis = new Jedis(hnp.getHost(), hnp.getPort());
+    jedis.getClient().setNioTransportFlag(nio);
+    jedis.connect();
+    jedis.auth("foobared");
+    jedis.flushAll();
+
+    byte[] value = new byte[valueSize];
+    Arrays.fill(value, (byte) 'x');
+    int operations = valueSize >= LARGE_VALUE ? TOTAL_OPERATIONS / 20 : TOTAL_OPERATIONS;
+
+    long[] before = syscalls();
+    long begin = Calendar.getInstance().getTimeInMillis();
+
+    Pipeline p = jedis.pipelined();
+    for (int n = 0; n < operations; n++) {
+      p.set(SafeEncoder.encode("foo" + n), value);
+    }
+    p.sync();
+
+    long elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    long[] after = syscalls();
+
+    jedis.disconnect();
+
+    System.out.println((nio ? "channel" : "socket ") + " value=" + valueSize + " " + operations + " sets "
+        + elapsed + " ms" + (before == null ? "" : " reads=" + (after[0] - before[0]) + " writes="
+        + (after[1] - before[1])));
+  }
+
+  /*
+   * syscr and syscw of the current thread, null when /proc/thread-self/io is not available
+   */
+  private static long[] syscalls() {
+    long[] ret = new long[2];
+    try {
+      BufferedReader reader = new BufferedReader(new FileReader("/proc/thread-self/io"));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith("syscr:")) {
+            ret[0] = Long.parseLong(line.substring(6).trim());
+          } else if (line.startsWith("syscw:")) {
+            ret[1] = Long.parseLong(line.substring(6).trim());
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return ret;
+  }
+}
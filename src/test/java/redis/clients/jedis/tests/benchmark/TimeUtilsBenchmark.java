@@ -0,0 +1,67 @@
+package redis.clients.jedis.tests.benchmark;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+import redis.clients.common.utils.EntityFieldCodec;
+import redis.clients.common.utils.EntityUtils.EntitySaveEnum;
+import redis.clients.common.utils.TimeUtils;
+import redis.clients.entity.UserEntity;
+
+public class TimeUtilsBenchmark {
+  private static final int TOTAL_OPERATIONS = 2000000;
+
+  public static void main(String[] args) throws ParseException {
+    Date date = new Date();
+    String text = TimeUtils.dateToString(date);
+    UserEntity entity = new UserEntity();
+    entity.setUid("benchmark");
+    entity.setDeleteTime(date);
+    EntityFieldCodec codec = EntityFieldCodec.getCodec(UserEntity.class);
+
+    // 预热
+    for (int n = 0; n < TOTAL_OPERATIONS / 10; n++) {
+      new SimpleDateFormat(TimeUtils.DEFAULT_DATE_FAMAT).format(date);
+      TimeUtils.dateToString(date);
+      codec.encode(entity, EntitySaveEnum.Save2Redis);
+    }
+
+    long begin = Calendar.getInstance().getTimeInMillis();
+    for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+      new SimpleDateFormat(TimeUtils.DEFAULT_DATE_FAMAT).format(date);
+    }
+    long elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " SimpleDateFormat format ops");
+
+    begin = Calendar.getInstance().getTimeInMillis();
+    for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+      TimeUtils.dateToString(date);
+    }
+    elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " TimeUtils.dateToString ops");
+
+    begin = Calendar.getInstance().getTimeInMillis();
+    for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+      new SimpleDateFormat(TimeUtils.DEFAULT_DATE_FAMAT).parse(text);
+    }
+    elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " SimpleDateFormat parse ops");
+
+    begin = Calendar.getInstance().getTimeInMillis();
+    for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+      TimeUtils.stringToDate(text);
+    }
+    elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " TimeUtils.stringToDate ops");
+
+    // 实体缓存序列化路径, deleteTime为Date字段
+    begin = Calendar.getInstance().getTimeInMillis();
+    for (int n = 0; n < TOTAL_OPERATIONS; n++) {
+      codec.encode(entity, EntitySaveEnum.Save2Redis);
+    }
+    elapsed = Calendar.getInstance().getTimeInMillis() - begin;
+    System.out.println(((1000L * TOTAL_OPERATIONS) / elapsed) + " UserEntity encode ops");
+  }
+}
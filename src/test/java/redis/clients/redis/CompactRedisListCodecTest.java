@@ -0,0 +1,157 @@
+package redis.clients.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import redis.clients.common.annotation.FieldSave;
+import redis.clients.common.annotation.FieldSave2DB;
+import redis.clients.common.annotation.FieldSave2Redis;
+
+public class CompactRedisListCodecTest {
+
+  public static class ListItem implements RedisListInterface {
+    @FieldSave
+    private long userId;
+    @FieldSave
+    private int itemId;
+    @FieldSave
+    private String name;
+    @FieldSave2Redis
+    private String note;
+    @FieldSave2DB
+    private String dbOnly;
+
+    public String getSubUniqueKey() {
+      return String.valueOf(itemId);
+    }
+
+    public String getShardingKey() {
+      return String.valueOf(userId);
+    }
+
+    public String getRedisKeyEnumString() {
+      return "item#";
+    }
+
+    public long getUserId() {
+      return userId;
+    }
+
+    public void setUserId(long userId) {
+      this.userId = userId;
+    }
+
+    public int getItemId() {
+      return itemId;
+    }
+
+    public void setItemId(int itemId) {
+      this.itemId = itemId;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getNote() {
+      return note;
+    }
+
+    public void setNote(String note) {
+      this.note = note;
+    }
+
+    public String getDbOnly() {
+      return dbOnly;
+    }
+
+    public void setDbOnly(String dbOnly) {
+      this.dbOnly = dbOnly;
+    }
+  }
+
+  /**
+   * Same field names as ListItem but a different field type, like an entity changed between releases
+   */
+  public static class ChangedListItem extends ListItem {
+    @FieldSave
+    private String itemId;
+
+    public void setItemId(String itemId) {
+      this.itemId = itemId;
+    }
+  }
+
+  public static class EmptyListItem implements RedisListInterface {
+    private String value;
+
+    public String getSubUniqueKey() {
+      return value;
+    }
+
+    public String getShardingKey() {
+      return value;
+    }
+
+    public String getRedisKeyEnumString() {
+      return value;
+    }
+  }
+
+  private final CompactRedisListCodec codec = new CompactRedisListCodec();
+
+  private static ListItem item(String name, String note) {
+    ListItem item = new ListItem();
+    item.setUserId(10001L);
+    item.setItemId(7);
+    item.setName(name);
+    item.setNote(note);
+    item.setDbOnly("db");
+    return item;
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    String[][] values = { { "sword", "sharp" }, { "12:34", "5:" }, { "{\"a\":1}", "" }, { "", null },
+        { "\u4e2d\u6587", "\u00e9\ud83d\ude00" }, { "a\r\nb", "0" } };
+    for (String[] value : values) {
+      ListItem item = item(value[0], value[1]);
+      String encoded = codec.encode(item);
+      assertNotEquals('{', encoded.charAt(0));
+
+      ListItem decoded = codec.decode(encoded, ListItem.class);
+      assertEquals(10001L, decoded.getUserId());
+      assertEquals(7, decoded.getItemId());
+      // empty strings are not decoded, like the hash and json formats
+      assertEquals(value[0].isEmpty() ? null : value[0], decoded.getName());
+      assertEquals(value[1] == null || value[1].isEmpty() ? null : value[1], decoded.getNote());
+      assertNull(decoded.getDbOnly());
+    }
+  }
+
+  @Test
+  public void jsonValuesAreStillReadable() throws Exception {
+    ListItem decoded = codec.decode("{\"userId\":\"10001\",\"itemId\":\"7\",\"name\":\"sword\"}", ListItem.class);
+    assertEquals(10001L, decoded.getUserId());
+    assertEquals(7, decoded.getItemId());
+    assertEquals("sword", decoded.getName());
+  }
+
+  @Test
+  public void changedFieldsAreAMiss() throws Exception {
+    String encoded = codec.encode(item("sword", "sharp"));
+    assertNull(codec.decode(encoded, ChangedListItem.class));
+  }
+
+  @Test
+  public void nothingToCache() {
+    assertNull(codec.encode(new EmptyListItem()));
+  }
+}
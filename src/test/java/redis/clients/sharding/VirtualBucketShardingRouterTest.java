@@ -0,0 +1,118 @@
+package redis.clients.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class VirtualBucketShardingRouterTest {
+
+  private static VirtualBucketShardingRouter newRouter(int bucketCount, int dbCount) {
+    VirtualBucketShardingRouter router = new VirtualBucketShardingRouter();
+    router.setBucketCount(bucketCount);
+    router.initBucketMap(dbCount);
+    return router;
+  }
+
+  @Test
+  public void initialMapIsModulo() {
+    VirtualBucketShardingRouter router = newRouter(16, 3);
+    for (int bucket = 0; bucket < 16; bucket++) {
+      assertEquals(bucket % 3, router.getBucketDbIndex(bucket));
+    }
+    assertEquals(15, router.getBucket(-1));
+    assertEquals(1, router.getDbIndex(17, 3));
+  }
+
+  @Test
+  public void growMovesOnlyTheNewShare() {
+    VirtualBucketShardingRouter router = newRouter(1024, 2);
+    int[] before = router.getBucketMap();
+
+    Map<Integer, Integer> moves = router.planRebalance(3);
+    // the plan does not touch the current table
+    assertTrue(Arrays.equals(before, router.getBucketMap()));
+    // 1024 / 3 rounded down, the new db gets exactly its quota and nothing else moves
+    assertEquals(341, moves.size());
+    for (Map.Entry<Integer, Integer> move : moves.entrySet()) {
+      assertEquals(2, move.getValue().intValue());
+    }
+
+    router.moveBuckets(moves);
+    assertBalanced(router, 3);
+    assertTrue(router.planRebalance(3).isEmpty());
+  }
+
+  @Test
+  public void shrinkMovesOnlyTheRemovedDb() {
+    VirtualBucketShardingRouter router = newRouter(1000, 4);
+    int[] before = router.getBucketMap();
+
+    Map<Integer, Integer> moves = router.planRebalance(3);
+    assertEquals(250, moves.size());
+    for (Map.Entry<Integer, Integer> move : moves.entrySet()) {
+      assertEquals(3, before[move.getKey()]);
+      assertTrue(move.getValue() < 3);
+    }
+
+    router.moveBuckets(moves);
+    assertBalanced(router, 3);
+  }
+
+  @Test
+  public void unevenTableIsLeveled() {
+    VirtualBucketShardingRouter router = new VirtualBucketShardingRouter();
+    router.setBucketCount(10);
+    router.setBucketMap(new int[] { 0, 0, 0, 0, 0, 0, 0, 1, 1, 2 });
+
+    Map<Integer, Integer> moves = router.planRebalance(3);
+    assertEquals(3, moves.size());
+    for (Map.Entry<Integer, Integer> move : moves.entrySet()) {
+      assertEquals(0, router.getBucketDbIndex(move.getKey()));
+      assertNotEquals(0, move.getValue().intValue());
+    }
+    router.moveBuckets(moves);
+    assertBalanced(router, 3);
+  }
+
+  @Test
+  public void planRequiresAnInitializedTable() {
+    VirtualBucketShardingRouter router = new VirtualBucketShardingRouter();
+    try {
+      router.planRebalance(2);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void frozenBucketsRejectWrites() {
+    VirtualBucketShardingRouter router = newRouter(16, 2);
+    router.freezeBuckets(Arrays.asList(3));
+    assertFalse(router.isWritable(3));
+    assertFalse(router.isWritable(19));
+    assertTrue(router.isWritable(4));
+    router.unfreezeBuckets(Arrays.asList(3));
+    assertTrue(router.isWritable(3));
+  }
+
+  private static void assertBalanced(VirtualBucketShardingRouter router, int dbCount) {
+    int bucketCount = router.getBucketCount();
+    int[] count = new int[dbCount];
+    for (int dbIndex : router.getBucketMap()) {
+      assertTrue(dbIndex < dbCount);
+      count[dbIndex]++;
+    }
+    for (int dbIndex = 0; dbIndex < dbCount; dbIndex++) {
+      int quota = bucketCount / dbCount + (dbIndex < bucketCount % dbCount ? 1 : 0);
+      assertEquals("db " + dbIndex, quota, count[dbIndex]);
+    }
+  }
+}
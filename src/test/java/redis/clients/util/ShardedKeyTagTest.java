@@ -0,0 +1,46 @@
+package redis.clients.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import org.junit.Test;
+
+public class ShardedKeyTagTest {
+
+  private static String regexKeyTag(String key) {
+    Matcher m = Sharded.DEFAULT_KEY_TAG_PATTERN.matcher(key);
+    return m.find() ? m.group(1) : key;
+  }
+
+  private static void assertSameAsRegex(String key) {
+    assertEquals("key " + key, regexKeyTag(key), Sharded.scanKeyTag(key));
+  }
+
+  @Test
+  public void knownKeys() {
+    String[] keys = { "", "foo", "foo{bar}", "foo{bar}}", "{bar}foo", "f{bar}oo", "{}", "{}}", "{}bar}", "{{}",
+        "{{}}", "{a{b}", "{a}{b}", "foo{", "foo}", "}{", "{", "}", "a{\nb}c", "{\n}", "{a\r}{b}", "{x\u2028}{y}",
+        "{x\u0085y}", "{}{a}", "{{a}}", "a{b}c{d}", "{ }", "{\u00e9\u4e2d}" };
+    for (String key : keys) {
+      assertSameAsRegex(key);
+    }
+    assertEquals("bar", Sharded.scanKeyTag("foo{bar}"));
+    assertEquals("}bar", Sharded.scanKeyTag("foo{}bar}"));
+    assertEquals("foo{}", Sharded.scanKeyTag("foo{}"));
+  }
+
+  @Test
+  public void randomKeys() {
+    char[] alphabet = { 'a', 'b', '{', '}', '{', '}', '\n', '\r', '\u0085', '\u2028', '\u2029', '\t' };
+    Random random = new Random(20161018L);
+    for (int n = 0; n < 200000; n++) {
+      char[] key = new char[random.nextInt(10)];
+      for (int i = 0; i < key.length; i++) {
+        key[i] = alphabet[random.nextInt(alphabet.length)];
+      }
+      assertSameAsRegex(new String(key));
+    }
+  }
+}